@@ -0,0 +1,92 @@
+package uk.yetanother.dependency.report.benchmark;
+
+import com.opencsv.CSVWriter;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates synthetic datafiles and dependency trees for the benchmarks. Both use the same FOSS item ids, so every
+ * dependency in a generated tree has a row in a datafile generated with at least as many rows.
+ */
+public final class SyntheticData {
+
+    private static final int ARTIFACTS_PER_GROUP = 100;
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Get the FOSS item id of a synthetic artifact.
+     *
+     * @param index the artifact number
+     * @return the FOSS item id
+     */
+    public static String fossId(int index) {
+        return "bench.group" + (index / ARTIFACTS_PER_GROUP) + ":artifact" + index + ":jar:1." + (index % 10);
+    }
+
+    /**
+     * Write a datafile with a headings row followed by a row for each artifact in the range.
+     *
+     * @param file    the datafile to write
+     * @param first   the first artifact number
+     * @param rows    the number of rows
+     * @param columns the number of additional attribute columns
+     * @param value   prefix of every attribute value, so datafiles for different updates can be told apart
+     * @throws IOException if the datafile cannot be written
+     */
+    public static void writeDatafile(Path file, int first, int rows, int columns, String value) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file); CSVWriter csvWriter = new CSVWriter(writer)) {
+            String[] line = new String[columns + 1];
+            line[0] = "id";
+            for (int column = 1; column <= columns; column++) {
+                line[column] = "attribute" + column;
+            }
+            csvWriter.writeNext(line);
+            for (int row = first; row < first + rows; row++) {
+                line[0] = fossId(row);
+                for (int column = 1; column <= columns; column++) {
+                    line[column] = value + row + "." + column;
+                }
+                csvWriter.writeNext(line);
+            }
+        }
+    }
+
+    /**
+     * Build a dependency tree with a fixed fan out. Every node is a distinct artifact, numbered breadth first.
+     *
+     * @param dependencies the number of dependencies below the root
+     * @param fanOut       the number of children of each node
+     * @return the root node
+     */
+    public static DependencyNode dependencyTree(int dependencies, int fanOut) {
+        List<DefaultDependencyNode> nodes = new ArrayList<>(dependencies + 1);
+        DefaultDependencyNode root = new DefaultDependencyNode(artifact("bench.root:root:jar:1.0"));
+        root.setChildren(new ArrayList<>());
+        nodes.add(root);
+        for (int index = 0; index < dependencies; index++) {
+            DefaultDependencyNode parent = nodes.get(index / fanOut);
+            DefaultDependencyNode child = new DefaultDependencyNode(parent, artifact(fossId(index)), null, null, null);
+            child.setChildren(new ArrayList<>());
+            parent.getChildren().add(child);
+            nodes.add(child);
+        }
+        return root;
+    }
+
+    private static Artifact artifact(String id) {
+        String[] coordinates = id.split(":");
+        return new DefaultArtifact(coordinates[0], coordinates[1], coordinates[3], Artifact.SCOPE_COMPILE, coordinates[2], null, new DefaultArtifactHandler(coordinates[2]));
+    }
+}
@@ -0,0 +1,121 @@
+package uk.yetanother.dependency.report.csv;
+
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.yetanother.dependency.report.benchmark.SyntheticData;
+import uk.yetanother.dependency.report.datastore.IFossDatastore;
+import uk.yetanother.dependency.report.datastore.IndexedFileFossDatastore;
+import uk.yetanother.dependency.report.writer.DependencyRow;
+import uk.yetanother.dependency.report.writer.IReportFormat;
+import uk.yetanother.dependency.report.writer.IReportWriter;
+import uk.yetanother.dependency.report.writer.ReportFormats;
+import uk.yetanother.dependency.report.writer.ReportHeader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the export of a synthetic dependency tree, both building the CSV rows and looking up the datastore on
+ * their own and the whole export from resolving the graph to writing the report in each format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CsvExportBenchmark {
+
+    private static final int FAN_OUT = 8;
+
+    @Param({"100", "1000", "10000"})
+    private int dependencies;
+
+    @Param({"5", "50"})
+    private int columns;
+
+    @Param({"csv", "jsonl", "cyclonedx", "binary", "csv,jsonl,cyclonedx,binary"})
+    private String format;
+
+    private final Log log = new DefaultLog(new ConsoleLogger(Logger.LEVEL_WARN, "benchmark"));
+    private final MavenProject project = new MavenProject();
+    private ReactorDependencyResolver resolver;
+    private IFossDatastore datastore;
+    private Map<String, DependencyRow> resolved;
+    private Path outputDirectory;
+    private List<IReportFormat> formats;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, MojoExecutionException {
+        Path datafile = Files.createTempFile("foss-benchmark", ".csv");
+        try {
+            SyntheticData.writeDatafile(datafile, 0, dependencies, columns, "");
+            new IndexedFileFossDatastore(log).createDatastore(datafile);
+        } finally {
+            Files.deleteIfExists(datafile);
+        }
+        datastore = new IndexedFileFossDatastore(log);
+
+        DependencyNode tree = SyntheticData.dependencyTree(dependencies, FAN_OUT);
+        resolver = new ReactorDependencyResolver((request, filter) -> tree, new DefaultProjectBuildingRequest(), 1);
+        resolved = resolver.resolveProject(project);
+        outputDirectory = Files.createTempDirectory("foss-benchmark-report");
+        formats = ReportFormats.resolve(Arrays.asList(format.split(",")));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, MojoExecutionException {
+        new IndexedFileFossDatastore(log).clearDatastore();
+        for (IReportFormat reportFormat : formats) {
+            Files.deleteIfExists(outputDirectory.resolve(reportFormat.getFilename()));
+        }
+        Files.deleteIfExists(outputDirectory);
+    }
+
+    @Benchmark
+    public void buildRows(Blackhole blackhole) throws MojoExecutionException {
+        StringBuilder row = new StringBuilder(512);
+        for (DependencyRow dependency : resolved.values()) {
+            row.setLength(0);
+            dependency.appendTo(row);
+            blackhole.consume(row.length());
+            blackhole.consume(datastore.getAdditionalAttributesForFossItem(dependency.getId()));
+        }
+    }
+
+    @Benchmark
+    public void exportReport() throws MojoExecutionException {
+        Map<String, DependencyRow> rows = resolver.resolveProject(project);
+        try (IReportWriter writer = ReportFormats.open(formats, outputDirectory.toFile(), log, false)) {
+            writer.writeHeader(new ReportHeader("bench.root", "root", "1.0", false, datastore.getAdditionalAttributeHeadings()));
+            for (DependencyRow dependency : rows.values()) {
+                writer.writeDependency(dependency, null, datastore.getAdditionalAttributesForFossItem(dependency.getId()));
+            }
+        }
+    }
+}
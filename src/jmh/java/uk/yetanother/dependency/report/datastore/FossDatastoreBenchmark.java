@@ -0,0 +1,122 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.yetanother.dependency.report.benchmark.SyntheticData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks loading and updating the FOSS datastore. Each operation is timed on its own, as loading and updating are
+ * done once per goal execution rather than in a tight loop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class FossDatastoreBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"5", "50"})
+    private int columns;
+
+    private final Log log = new DefaultLog(new ConsoleLogger(Logger.LEVEL_WARN, "benchmark"));
+    private Path workDirectory;
+    private Path updateDatafile;
+
+    @Setup(Level.Trial)
+    public void createDatastore() throws IOException, MojoExecutionException {
+        workDirectory = Files.createTempDirectory("foss-benchmark");
+        Path datafile = workDirectory.resolve("datafile.csv");
+        SyntheticData.writeDatafile(datafile, 0, rows, columns, "");
+        new IndexedFileFossDatastore(log).createDatastore(datafile);
+
+        // A tenth of the datastore, half replacing existing items and half adding new ones.
+        updateDatafile = workDirectory.resolve("update.csv");
+        SyntheticData.writeDatafile(updateDatafile, rows - rows / 20, rows / 10, columns, "updated");
+    }
+
+    @TearDown(Level.Trial)
+    public void clearDatastore() throws IOException, MojoExecutionException {
+        new IndexedFileFossDatastore(log).clearDatastore();
+        Files.deleteIfExists(workDirectory.resolve("datafile.csv"));
+        Files.deleteIfExists(updateDatafile);
+        Files.deleteIfExists(workDirectory);
+    }
+
+    @Benchmark
+    public IFossDatastore loadInternalFileDatastore() throws MojoExecutionException {
+        return new InternalFileFossDatastore(log);
+    }
+
+    @Benchmark
+    public IFossDatastore openIndexedFileDatastore() throws MojoExecutionException {
+        return new IndexedFileFossDatastore(log);
+    }
+
+    @Benchmark
+    public IFossDatastore updateInternalFileWithOverride(UpdateState state) throws MojoExecutionException {
+        state.internalDatastore.updateDatastore(updateDatafile, true);
+        return state.internalDatastore;
+    }
+
+    @Benchmark
+    public IFossDatastore updateInternalFileWithoutOverride(UpdateState state) throws MojoExecutionException {
+        state.internalDatastore.updateDatastore(updateDatafile, false);
+        return state.internalDatastore;
+    }
+
+    @Benchmark
+    public IFossDatastore updateIndexedFileWithOverride(UpdateState state) throws MojoExecutionException {
+        state.indexedDatastore.updateDatastore(updateDatafile, true);
+        return state.indexedDatastore;
+    }
+
+    @Benchmark
+    public IFossDatastore updateIndexedFileWithoutOverride(UpdateState state) throws MojoExecutionException {
+        state.indexedDatastore.updateDatastore(updateDatafile, false);
+        return state.indexedDatastore;
+    }
+
+    /**
+     * Datastores opened before every update, with the updates made by the previous invocation removed, so every update
+     * starts from the same datastore.
+     */
+    @State(Scope.Thread)
+    public static class UpdateState {
+
+        private final Log log = new DefaultLog(new ConsoleLogger(Logger.LEVEL_WARN, "benchmark"));
+        private InternalFileFossDatastore internalDatastore;
+        private IndexedFileFossDatastore indexedDatastore;
+
+        @Setup(Level.Invocation)
+        public void openDatastores() throws MojoExecutionException {
+            FossDatastoreDeltaLog.delete(InternalFileFossDatastore.getDatastoreLocation());
+            internalDatastore = new InternalFileFossDatastore(log);
+            indexedDatastore = new IndexedFileFossDatastore(log);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.yetanother.dependency.report.benchmark.SyntheticData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks looking up the additional attributes of FOSS items, the operation made for every dependency in a report.
+ * One in five of the ids looked up is not held in the datastore.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FossDatastoreLookupBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"5", "50"})
+    private int columns;
+
+    private final Log log = new DefaultLog(new ConsoleLogger(Logger.LEVEL_WARN, "benchmark"));
+    private final String[] fossIds = new String[LOOKUPS];
+    private InternalFileFossDatastore internalDatastore;
+    private IndexedFileFossDatastore indexedDatastore;
+
+    @Setup(Level.Trial)
+    public void createDatastore() throws IOException, MojoExecutionException {
+        Path datafile = Files.createTempFile("foss-benchmark", ".csv");
+        try {
+            SyntheticData.writeDatafile(datafile, 0, rows, columns, "");
+            new IndexedFileFossDatastore(log).createDatastore(datafile);
+        } finally {
+            Files.deleteIfExists(datafile);
+        }
+        internalDatastore = new InternalFileFossDatastore(log);
+        indexedDatastore = new IndexedFileFossDatastore(log);
+
+        Random random = new Random(rows);
+        for (int i = 0; i < LOOKUPS; i++) {
+            int index = random.nextInt(rows);
+            fossIds[i] = i % 5 == 0 ? SyntheticData.fossId(rows + index) : SyntheticData.fossId(index);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void clearDatastore() throws MojoExecutionException {
+        indexedDatastore.clearDatastore();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void lookupInternalFileDatastore(Blackhole blackhole) {
+        for (String fossId : fossIds) {
+            blackhole.consume(internalDatastore.getAdditionalAttributesForFossItem(fossId));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void lookupIndexedFileDatastore(Blackhole blackhole) {
+        for (String fossId : fossIds) {
+            blackhole.consume(indexedDatastore.getAdditionalAttributesForFossItem(fossId));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void batchLookupIndexedFileDatastore(Blackhole blackhole) {
+        blackhole.consume(indexedDatastore.getAdditionalAttributesForFossItems(Arrays.asList(fossIds)));
+    }
+}
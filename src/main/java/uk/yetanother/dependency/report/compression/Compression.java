@@ -0,0 +1,179 @@
+package uk.yetanother.dependency.report.compression;
+
+import io.airlift.compress.zstd.ZstdInputStream;
+import io.airlift.compress.zstd.ZstdOutputStream;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The codecs reports and datastore files can be compressed with. Files are compressed and decompressed as streams, in
+ * the same pass that writes or reads them, so no uncompressed copy is ever written. The codec of a file is detected
+ * from the magic number at its start, so files are read the same way whichever codec they were written with.
+ * <ul>
+ * <li>{@link #NONE}, the default, plain files.</li>
+ * <li>{@link #GZIP}, gzip from the JDK, widely supported by other tools.</li>
+ * <li>{@link #ZSTD}, Zstandard from the pure Java aircompressor library, faster to compress and decompress than gzip
+ * at a similar size.</li>
+ * </ul>
+ */
+public enum Compression {
+
+    NONE("none", ""),
+    GZIP("gzip", ".gz"),
+    ZSTD("zstd", ".zst");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] GZIP_MAGIC = {0x1f, (byte) 0x8b};
+    private static final byte[] ZSTD_MAGIC = {0x28, (byte) 0xb5, 0x2f, (byte) 0xfd};
+    private static final int MAGIC_LENGTH = ZSTD_MAGIC.length;
+
+    private final String codecName;
+    private final String extension;
+
+    Compression(String codecName, String extension) {
+        this.codecName = codecName;
+        this.extension = extension;
+    }
+
+    /**
+     * Get the name the codec is selected by.
+     *
+     * @return the codec name
+     */
+    public String getCodecName() {
+        return codecName;
+    }
+
+    /**
+     * Get the extension added to the name of a file written with the codec.
+     *
+     * @return the extension, empty for {@link #NONE}
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Resolve a codec by name, ignoring case.
+     *
+     * @param name the codec name, null or empty for {@link #NONE}
+     * @return the codec
+     * @throws MojoExecutionException if the name is not a known codec
+     */
+    public static Compression named(String name) throws MojoExecutionException {
+        String key = name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+        if (key.isEmpty()) {
+            return NONE;
+        }
+        for (Compression compression : values()) {
+            if (compression.codecName.equals(key)) {
+                return compression;
+            }
+        }
+        throw new MojoExecutionException(String.format("Unknown compression '%s', the codecs available are none, gzip and zstd", name));
+    }
+
+    /**
+     * Wrap a stream so everything written to it is compressed with this codec. Closing the returned stream completes
+     * the compressed data and closes the wrapped stream.
+     *
+     * @param out the stream to write the compressed data to
+     * @return the stream to write the uncompressed data to
+     * @throws IOException if the compressed data cannot be started
+     */
+    public OutputStream compress(OutputStream out) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPOutputStream(out, BUFFER_SIZE);
+            case ZSTD:
+                return new ZstdOutputStream(out);
+            default:
+                return out;
+        }
+    }
+
+    /**
+     * Detect the codec of a file from its magic number.
+     *
+     * @param file the file
+     * @return the codec, {@link #NONE} if the file is missing or not compressed
+     * @throws IOException if the file cannot be read
+     */
+    public static Compression detect(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = new byte[MAGIC_LENGTH];
+            int length = 0;
+            int read;
+            while (length < magic.length && (read = in.read(magic, length, magic.length - length)) > 0) {
+                length += read;
+            }
+            return detect(magic, length);
+        } catch (NoSuchFileException e) {
+            return NONE;
+        }
+    }
+
+    /**
+     * Open a file for reading, decompressing it with the codec detected from its magic number.
+     *
+     * @param file the file
+     * @return the stream of uncompressed data
+     * @throws IOException if the file cannot be read
+     */
+    public static InputStream open(Path file) throws IOException {
+        return decompress(Files.newInputStream(file));
+    }
+
+    /**
+     * Wrap a stream so it is decompressed with the codec detected from its magic number. A stream that is not
+     * compressed is returned buffered but otherwise unchanged.
+     *
+     * @param in the stream to read
+     * @return the stream of uncompressed data
+     * @throws IOException if the stream cannot be read
+     */
+    public static InputStream decompress(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        byte[] magic = new byte[MAGIC_LENGTH];
+        buffered.mark(MAGIC_LENGTH);
+        int length = 0;
+        int read;
+        while (length < magic.length && (read = buffered.read(magic, length, magic.length - length)) > 0) {
+            length += read;
+        }
+        buffered.reset();
+        switch (detect(magic, length)) {
+            case GZIP:
+                return new GZIPInputStream(buffered, BUFFER_SIZE);
+            case ZSTD:
+                return new ZstdInputStream(buffered);
+            default:
+                return buffered;
+        }
+    }
+
+    private static Compression detect(byte[] magic, int length) {
+        if (startsWith(magic, length, ZSTD_MAGIC)) {
+            return ZSTD;
+        }
+        if (startsWith(magic, length, GZIP_MAGIC)) {
+            return GZIP;
+        }
+        return NONE;
+    }
+
+    private static boolean startsWith(byte[] magic, int length, byte[] prefix) {
+        return length >= prefix.length && Arrays.equals(Arrays.copyOf(magic, prefix.length), prefix);
+    }
+}
@@ -3,43 +3,111 @@ package uk.yetanother.dependency.report.csv;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.shared.dependency.graph.DependencyNode;
 import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
+import uk.yetanother.dependency.report.writer.DependencyRow;
 
+import java.util.Arrays;
 import java.util.Map;
 
 /**
  * CSV dependency node visitor is used by the Maven Dependency Tree code and builds up a unique map of dependencies seen.
+ * Only the first occurrence of an artifact is recorded, later occurrences are skipped without creating a new row.
+ * Dependencies excluded by the {@link DependencyFilter} are not recorded and their children are not visited. When a
+ * {@link DependencyGraph} is given every occurrence is also recorded in it, along with its parent and depth.
  */
 public class CsvDependencyNodeVisitor implements DependencyNodeVisitor {
 
-    private final Map<String, String> dependencies;
+    private final Map<String, DependencyRow> dependencies;
+    private final DependencyFilter filter;
+    private final DependencyGraph graph;
+    private int[] path = new int[16];
+    private int pathLength;
+    private long nodesVisited;
+    private long nodesExcluded;
 
     /**
-     * CSV dependency node visitor constructor. Takes an empty Set of Strings that will be populated with the dependencies
+     * CSV dependency node visitor constructor. Takes an empty Map that will be populated with the dependencies
      * seen while parsing the dependency tree.
      *
-     * @param dependencies empty Map of Strings that will be populated with dependency information keyed by the artifact ID.
+     * @param dependencies empty Map that will be populated with dependency rows keyed by the artifact ID.
      */
-    public CsvDependencyNodeVisitor(Map<String, String> dependencies) {
+    public CsvDependencyNodeVisitor(Map<String, DependencyRow> dependencies) {
+        this(dependencies, new DependencyFilter());
+    }
+
+    /**
+     * CSV dependency node visitor constructor that only records the dependencies included by a filter.
+     *
+     * @param dependencies empty Map that will be populated with dependency rows keyed by the artifact ID.
+     * @param filter       the filter deciding which dependencies are recorded and expanded
+     */
+    public CsvDependencyNodeVisitor(Map<String, DependencyRow> dependencies, DependencyFilter filter) {
+        this(dependencies, filter, null);
+    }
+
+    /**
+     * CSV dependency node visitor constructor that also records how each dependency is introduced.
+     *
+     * @param dependencies empty Map that will be populated with dependency rows keyed by the artifact ID.
+     * @param filter       the filter deciding which dependencies are recorded and expanded
+     * @param graph        the graph to record every occurrence in, may be null
+     */
+    public CsvDependencyNodeVisitor(Map<String, DependencyRow> dependencies, DependencyFilter filter, DependencyGraph graph) {
         this.dependencies = dependencies;
+        this.filter = filter;
+        this.graph = graph;
     }
 
     public boolean visit(DependencyNode node) {
+        nodesVisited++;
         Artifact artifact = node.getArtifact();
+        // The root node is the project itself, which is always recorded.
+        if (artifact != null && node.getParent() != null && !filter.include(artifact)) {
+            nodesExcluded++;
+            pushPath(-1);
+            return false;
+        }
+        int graphNode = -1;
         if (artifact != null) {
-            this.dependencies.put(artifact.getId(),
-                    String.format("%s,%s,%s,%s,%s,%s,%s",
-                            artifact.getId(),
-                            artifact.getGroupId(),
-                            artifact.getArtifactId(),
-                            artifact.getVersion(),
-                            artifact.getClassifier() != null ? artifact.getClassifier() : "",
-                            artifact.getType(),
-                            artifact.getScope() != null ? artifact.getScope() : ""));
+            String id = artifact.getId();
+            if (!this.dependencies.containsKey(id)) {
+                this.dependencies.put(id, new DependencyRow(id, artifact));
+            }
+            if (graph != null) {
+                graphNode = graph.addOccurrence(id, pathLength == 0 ? -1 : path[pathLength - 1], pathLength);
+            }
         }
+        pushPath(graphNode);
         return true;
     }
 
     public boolean endVisit(DependencyNode node) {
+        // End visit is called for every node visited, including those excluded.
+        pathLength--;
         return true;
     }
+
+    /**
+     * Get the number of nodes visited, including repeated occurrences of the same artifact.
+     *
+     * @return the number of nodes visited
+     */
+    public long getNodesVisited() {
+        return nodesVisited;
+    }
+
+    /**
+     * Get the number of nodes excluded by the filter, the nodes below them are not visited.
+     *
+     * @return the number of nodes excluded
+     */
+    public long getNodesExcluded() {
+        return nodesExcluded;
+    }
+
+    private void pushPath(int graphNode) {
+        if (pathLength == path.length) {
+            path = Arrays.copyOf(path, path.length * 2);
+        }
+        path[pathLength++] = graphNode;
+    }
 }
@@ -7,38 +7,56 @@ import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.apache.maven.project.DefaultProjectBuildingRequest;
 import org.apache.maven.project.MavenProject;
-import org.apache.maven.project.ProjectBuildingRequest;
 import org.apache.maven.shared.dependency.graph.DependencyGraphBuilder;
-import org.apache.maven.shared.dependency.graph.DependencyGraphBuilderException;
-import org.apache.maven.shared.dependency.graph.DependencyNode;
-import org.apache.maven.shared.dependency.graph.traversal.BuildingDependencyNodeVisitor;
-import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import uk.yetanother.dependency.report.compression.Compression;
+import uk.yetanother.dependency.report.csv.ReactorDependencyResolver.AggregatedDependency;
+import uk.yetanother.dependency.report.csv.ReportBaseline.ReportChange;
+import uk.yetanother.dependency.report.datastore.FossDatastoreArtifacts;
+import uk.yetanother.dependency.report.datastore.FossDatastoreCache;
+import uk.yetanother.dependency.report.datastore.FossDatastoreVersion;
+import uk.yetanother.dependency.report.datastore.FossDatastores;
 import uk.yetanother.dependency.report.datastore.IFossDatastore;
-import uk.yetanother.dependency.report.datastore.InternalFileFossDatastore;
+import uk.yetanother.dependency.report.datastore.PrecompiledFossDatastore;
+import uk.yetanother.dependency.report.metrics.ExecutionMetrics;
+import uk.yetanother.dependency.report.writer.DependencyRow;
+import uk.yetanother.dependency.report.writer.DiffReportWriter;
+import uk.yetanother.dependency.report.writer.IReportFormat;
+import uk.yetanother.dependency.report.writer.IReportWriter;
+import uk.yetanother.dependency.report.writer.ReportFormats;
+import uk.yetanother.dependency.report.writer.ReportHeader;
 
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.StringWriter;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Mojo to have the CSV goal. This class uses the Maven Dependency Tree to work out all the dependencies for the
- * maven project and formats the results into a CSV output.
+ * maven project and formats the results into a CSV output, or any other selected report formats, all written from a
+ * single pass over the dependencies. When run in aggregate mode a single report is produced
+ * for the whole reactor, listing which modules use each dependency. When a baseline report is given only the
+ * dependencies added, removed or changed in version since the baseline are reported. The depth and shortest path of
+ * each dependency can also be reported, to show why a transitive dependency is present. The datastore can be a
+ * precompiled snapshot resolved as a Maven artifact, which is mapped straight from the local repository. The rows can
+ * be sorted by a key column and compressed as they are written.
  */
 @Mojo(name = "csv", defaultPhase = LifecyclePhase.VERIFY)
 public class CsvExporterMojo extends AbstractMojo {
 
-    private static final String DELIMITER = ",";
-    private static final String DEFAULT_HEADINGS = "id,groupId,artifactId,version,classifier,type,scope";
-
     @Component
     private DependencyGraphBuilder dependencyGraphBuilder;
 
+    @Component
+    private RepositorySystem repositorySystem;
+
     @Parameter(defaultValue = "${project}", required = true, readonly = true)
     private MavenProject project;
 
@@ -48,71 +66,315 @@ public class CsvExporterMojo extends AbstractMojo {
     @Parameter(defaultValue = "${reactorProjects}", readonly = true, required = true)
     private List<MavenProject> reactorProjects;
 
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    private String pluginVersion;
+
+    @Parameter(defaultValue = "${repositorySystemSession}", readonly = true, required = true)
+    private RepositorySystemSession repositorySession;
+
+    @Parameter(defaultValue = "${project.remoteProjectRepositories}", readonly = true, required = true)
+    private List<RemoteRepository> remoteRepositories;
+
     @Parameter(defaultValue = "${project.build.directory}", property = "outputDirectory", required = true)
     private File outputDirectory;
 
     @Parameter(defaultValue = "false", property = "console")
     private boolean console;
 
+    @Parameter(defaultValue = "false", property = "aggregate")
+    private boolean aggregate;
+
+    @Parameter(defaultValue = "1", property = "resolverThreads")
+    private int resolverThreads;
+
+    @Parameter(defaultValue = "false", property = "skipUnchanged")
+    private boolean skipUnchanged;
+
+    @Parameter(defaultValue = "false", property = "forceRegenerate")
+    private boolean forceRegenerate;
+
+    @Parameter(defaultValue = "false", property = "metricsSummary")
+    private boolean metricsSummary;
+
+    @Parameter(property = "datastoreDirectory")
+    private File datastoreDirectory;
+
+    @Parameter(defaultValue = "file", property = "datastoreType")
+    private String datastoreType;
+
+    @Parameter(property = "datastoreArtifact")
+    private String datastoreArtifact;
+
+    @Parameter(defaultValue = "csv", property = "formats")
+    private List<String> formats;
+
+    @Parameter(defaultValue = "none", property = "compression")
+    private String compression;
+
+    @Parameter(property = "sortBy")
+    private String sortBy;
+
+    @Parameter(defaultValue = "false", property = "dependencyPaths")
+    private boolean dependencyPaths;
+
+    @Parameter(property = "baseline")
+    private File baseline;
+
+    @Parameter(property = "includeScopes")
+    private List<String> includeScopes;
+
+    @Parameter(property = "excludeScopes")
+    private List<String> excludeScopes;
+
+    @Parameter(property = "includeGroupIds")
+    private List<String> includeGroupIds;
+
+    @Parameter(property = "excludeGroupIds")
+    private List<String> excludeGroupIds;
+
+    @Parameter(property = "includeTypes")
+    private List<String> includeTypes;
+
+    @Parameter(property = "excludeTypes")
+    private List<String> excludeTypes;
+
+    private File datastoreArtifactFile;
+    private Compression reportCompression;
+
     @Override
     public void execute() throws MojoExecutionException {
-        ProjectBuildingRequest buildingRequest = new DefaultProjectBuildingRequest(session.getProjectBuildingRequest());
-        buildingRequest.setProject(project);
-        DependencyNode rootNode;
-        try {
-            rootNode = dependencyGraphBuilder.buildDependencyGraph(buildingRequest, null);
-        } catch (DependencyGraphBuilderException e) {
-            throw new MojoExecutionException("Cannot build project dependency graph", e);
+        ExecutionMetrics metrics = new ExecutionMetrics("csv");
+        metrics.setAttribute("project", project.getId());
+        List<IReportFormat> reportFormats = ReportFormats.resolve(formats);
+        reportCompression = Compression.named(compression);
+        DependencyFilter filter = new DependencyFilter()
+                .scopes(includeScopes, excludeScopes)
+                .groupIds(includeGroupIds, excludeGroupIds)
+                .types(includeTypes, excludeTypes);
+        ReactorDependencyResolver resolver = new ReactorDependencyResolver(dependencyGraphBuilder, session.getProjectBuildingRequest(), resolverThreads, filter, metrics);
+        if (aggregate && !isLastReactorProject()) {
+            getLog().info("Skipping Report for " + project.getArtifactId() + ", the aggregate report is generated by the last project in the reactor");
+            return;
+        }
+
+        IFossDatastore fossDatastore = openDatastore(metrics);
+        String fingerprint = fingerprint(aggregate ? reactorProjects : Collections.singletonList(project), filter, reportFormats, fossDatastore, metrics);
+        if (isUpToDate(fingerprint, reportFormats, metrics)) {
+            return;
+        }
+
+        DependencyGraph graph = dependencyPaths ? new DependencyGraph() : null;
+        if (aggregate) {
+            Map<String, AggregatedDependency> dependencies = resolver.resolveReactor(reactorProjects, graph);
+            List<DependencyRow> rows = new ArrayList<>(dependencies.size());
+            for (AggregatedDependency dependency : dependencies.values()) {
+                rows.add(dependency.getRow());
+            }
+            MavenProject topProject = reactorProjects.isEmpty() ? project : reactorProjects.get(0);
+            metrics.setCount("modules", reactorProjects.size());
+            writeReport(topProject, rows, fossId -> dependencies.get(fossId).getModules(), fossDatastore, graph, reportFormats, metrics);
+        } else {
+            writeReport(project, resolver.resolveProject(project, graph).values(), null, fossDatastore, graph, reportFormats, metrics);
+        }
+        ReportFingerprint.write(outputDirectory, fingerprint);
+        getLog().info("Report exported successfully");
+        writeMetrics(metrics, "generated");
+    }
+
+    /**
+     * Write the report of the resolved dependencies, or the differential report when a baseline is given. The modules
+     * using each dependency are looked up by its id, the lookup is null when the report has no modules column.
+     */
+    private void writeReport(MavenProject topProject, Collection<DependencyRow> rows, Function<String, Collection<String>> modules, IFossDatastore fossDatastore,
+                             DependencyGraph graph, List<IReportFormat> reportFormats, ExecutionMetrics metrics) throws MojoExecutionException {
+        getLog().info("Exporting Report to " + outputDirectory.getAbsolutePath());
+        // Remove the old fingerprint first, so a report that fails part way through is never treated as up to date.
+        ReportFingerprint.write(outputDirectory, null);
+        ReportHeader header = new ReportHeader(topProject.getGroupId(), topProject.getArtifactId(), topProject.getVersion(), modules != null, getAttributeHeadings(fossDatastore, graph));
+        Function<String, Collection<String>> moduleLookup = modules != null ? modules : fossId -> null;
+        if (baseline != null) {
+            writeDiff(header, loadBaseline(metrics).compare(rows, moduleLookup), fossDatastore, graph, metrics);
+        } else {
+            List<String> fossIds = new ArrayList<>(rows.size());
+            for (DependencyRow row : rows) {
+                fossIds.add(row.getId());
+            }
+            Map<String, String[]> attributes = lookupAttributes(fossDatastore, fossIds, graph, metrics);
+            try (ExecutionMetrics.Phase phase = metrics.time("write");
+                 IReportWriter writer = ReportFormats.open(reportFormats, outputDirectory, getLog(), console, reportCompression)) {
+                writer.writeHeader(header);
+                for (DependencyRow row : sort(header, rows, dependency -> dependency, attributes, metrics)) {
+                    writer.writeDependency(row, moduleLookup.apply(row.getId()), attributes.get(row.getId()));
+                }
+            }
+        }
+        metrics.setCount("uniqueArtifacts", rows.size());
+    }
+
+    private ReportBaseline loadBaseline(ExecutionMetrics metrics) throws MojoExecutionException {
+        getLog().info("Reporting changes since the baseline report " + baseline.getAbsolutePath());
+        try (ExecutionMetrics.Phase phase = metrics.time("baselineLoad")) {
+            return ReportBaseline.load(baseline.toPath());
+        }
+    }
+
+    private void writeDiff(ReportHeader header, List<ReportChange> changes, IFossDatastore fossDatastore, DependencyGraph graph, ExecutionMetrics metrics) throws MojoExecutionException {
+        List<String> fossIds = new ArrayList<>(changes.size());
+        for (ReportChange change : changes) {
+            fossIds.add(change.getRow().getId());
+        }
+        Map<String, String[]> attributes = lookupAttributes(fossDatastore, fossIds, graph, metrics);
+        Collection<ReportChange> rows = sort(header, changes, ReportChange::getRow, attributes, metrics);
+        try (ExecutionMetrics.Phase phase = metrics.time("write");
+             DiffReportWriter writer = new DiffReportWriter(outputDirectory, getLog(), console, reportCompression)) {
+            writer.writeHeader(header);
+            for (ReportChange change : rows) {
+                Collection<String> modules = null;
+                if (header.hasModules()) {
+                    modules = change.getModules() != null ? change.getModules() : Collections.emptyList();
+                }
+                writer.writeChange(change.getChange(), change.getPreviousVersion(), change.getRow(), modules, attributes.get(change.getRow().getId()));
+                metrics.addCount(change.getChange().toString(), 1);
+            }
         }
+    }
 
-        IFossDatastore fossDatastore = new InternalFileFossDatastore(getLog());
+    /**
+     * Sort the report rows by the sort column, or leave them in the order they are resolved when no column is set.
+     */
+    private <T> Collection<T> sort(ReportHeader header, Collection<T> rows, Function<T, DependencyRow> row, Map<String, String[]> attributes, ExecutionMetrics metrics) throws MojoExecutionException {
+        if (sortBy == null) {
+            return rows;
+        }
+        ReportSorter sorter = new ReportSorter(sortBy, header.getAttributeHeadings());
+        try (ExecutionMetrics.Phase phase = metrics.time("sort")) {
+            return sorter.sort(rows, row, item -> attributes.get(row.apply(item).getId()));
+        }
+    }
 
-        StringWriter writer = new StringWriter();
-        writer.write(DEFAULT_HEADINGS + arrayToCsv(fossDatastore.getAdditionalAttributeHeadings()));
-        Map<String, String> dependencies = processDependencyTree(rootNode);
-        for (Map.Entry<String, String> dependency : dependencies.entrySet()) {
-            writer.write("\n" + dependency.getValue() + arrayToCsv(fossDatastore.getAdditionalAttributesForFossItem(dependency.getKey())));
+    private IFossDatastore openDatastore(ExecutionMetrics metrics) throws MojoExecutionException {
+        IFossDatastore fossDatastore;
+        try (ExecutionMetrics.Phase phase = metrics.time("datastoreOpen")) {
+            if (datastoreArtifact != null) {
+                fossDatastore = FossDatastoreCache.getPrecompiledDatastore(getLog(), resolveDatastoreArtifact());
+            } else {
+                fossDatastore = FossDatastoreCache.getDatastore(getLog(), datastoreType, datastoreDirectory);
+            }
         }
-        exportReport(writer.toString());
+        metrics.setCount("datastoreRows", fossDatastore.getFossItemCount());
+        return fossDatastore;
     }
 
-    private String arrayToCsv(String[] data) {
-        StringBuilder stringToReturn = new StringBuilder();
-        for (String item : data) {
-            stringToReturn.append(DELIMITER).append(item == null ? "" : item);
+    private File resolveDatastoreArtifact() throws MojoExecutionException {
+        if (datastoreArtifactFile == null) {
+            datastoreArtifactFile = FossDatastoreArtifacts.resolve(getLog(), repositorySystem, repositorySession, remoteRepositories, datastoreArtifact);
         }
-        return stringToReturn.toString();
+        return datastoreArtifactFile;
     }
 
-    private Map<String, String> processDependencyTree(DependencyNode theRootNode) {
-        Map<String, String> dependencies = new HashMap<>();
-        DependencyNodeVisitor visitor = new CsvDependencyNodeVisitor(dependencies);
-        visitor = new BuildingDependencyNodeVisitor(visitor);
-        theRootNode.accept(visitor);
-        return dependencies;
+    private FossDatastoreVersion getDatastoreVersion() throws MojoExecutionException {
+        if (datastoreArtifact != null) {
+            return PrecompiledFossDatastore.getDatastoreVersion(resolveDatastoreArtifact().toPath());
+        }
+        return FossDatastores.getDatastoreVersion(datastoreType, datastoreDirectory);
     }
 
-    private void exportReport(String report) throws MojoExecutionException {
-        getLog().info("Exporting CSV Report to " + outputDirectory.getAbsolutePath());
+    private void writeMetrics(ExecutionMetrics metrics, String outcome) throws MojoExecutionException {
+        metrics.setAttribute("outcome", outcome);
+        metrics.write(outputDirectory, getLog(), metricsSummary);
+    }
 
-        if (console) {
-            getLog().info("CSV Dependency Report\n" + report);
+    private String fingerprint(List<MavenProject> projects, DependencyFilter filter, List<IReportFormat> reportFormats, IFossDatastore fossDatastore, ExecutionMetrics metrics) throws MojoExecutionException {
+        if (!skipUnchanged) {
+            return null;
         }
+        try (ExecutionMetrics.Phase phase = metrics.time("fingerprint")) {
+            return fingerprint(projects, filter, reportFormats, fossDatastore);
+        }
+    }
 
-        if (!outputDirectory.exists()) {
-            boolean result = outputDirectory.mkdirs();
-            if (!result) {
-                throw new MojoExecutionException("Error creating folders for path " + outputDirectory.getAbsolutePath());
+    private String fingerprint(List<MavenProject> projects, DependencyFilter filter, List<IReportFormat> reportFormats, IFossDatastore fossDatastore) throws MojoExecutionException {
+        ReportFingerprint fingerprint = new ReportFingerprint(reactorProjects, pluginVersion)
+                .add("aggregate", String.valueOf(aggregate))
+                .add("filter", filter.toString())
+                .add("dependencyPaths", String.valueOf(dependencyPaths))
+                .add("sortBy", sortBy)
+                .add("compression", reportCompression.getCodecName())
+                .add("baseline", baseline == null ? null : FossDatastoreVersion.of(baseline.toPath()).toString())
+                .addDatastore(getDatastoreVersion(), fossDatastore.getAdditionalAttributeHeadings());
+        for (IReportFormat reportFormat : reportFormats) {
+            fingerprint.add("format", reportFormat.getName());
+        }
+        for (MavenProject projectToAdd : projects) {
+            fingerprint.addProject(projectToAdd);
+        }
+        return fingerprint.toHex();
+    }
+
+    private boolean isUpToDate(String fingerprint, List<IReportFormat> reportFormats, ExecutionMetrics metrics) throws MojoExecutionException {
+        List<String> reportFilenames = new ArrayList<>(reportFormats.size());
+        if (baseline != null) {
+            reportFilenames.add(DiffReportWriter.REPORT_FILENAME + reportCompression.getExtension());
+        } else {
+            for (IReportFormat reportFormat : reportFormats) {
+                reportFilenames.add(reportFormat.getFilename() + reportCompression.getExtension());
             }
         }
+        if (!skipUnchanged || forceRegenerate || console || !ReportFingerprint.matches(outputDirectory, fingerprint, reportFilenames)) {
+            return false;
+        }
+        getLog().info("Report in " + outputDirectory.getAbsolutePath() + " is up to date, dependencies and datastore are unchanged");
+        writeMetrics(metrics, "upToDate");
+        return true;
+    }
+
+    private boolean isLastReactorProject() {
+        return reactorProjects.isEmpty() || project == reactorProjects.get(reactorProjects.size() - 1);
+    }
 
-        File reportFile = new File(outputDirectory, "dependency-report.csv");
-        try (FileWriter w = new FileWriter(reportFile)) {
-            w.write(report);
-        } catch (IOException e) {
-            throw new MojoExecutionException("Error writing report " + reportFile, e);
+    private static String[] getAttributeHeadings(IFossDatastore fossDatastore, DependencyGraph graph) {
+        String[] headings = fossDatastore.getAdditionalAttributeHeadings();
+        return graph == null ? headings : concat(headings, DependencyGraph.HEADINGS);
+    }
+
+    private static String[] concat(String[] first, String[] second) {
+        String[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+
+    /**
+     * Look up the additional attributes of every dependency, followed by the dependency path columns when a graph
+     * has been recorded.
+     */
+    private static Map<String, String[]> lookupAttributes(IFossDatastore fossDatastore, Collection<String> fossIds, DependencyGraph graph, ExecutionMetrics metrics) throws MojoExecutionException {
+        Map<String, String[]> attributes = lookupAttributes(fossDatastore, fossIds, metrics);
+        if (graph != null) {
+            try (ExecutionMetrics.Phase phase = metrics.time("dependencyPaths")) {
+                attributes.replaceAll((fossId, fossAttributes) -> concat(fossAttributes, graph.getColumns(fossId)));
+            }
+            metrics.setCount("graphNodes", graph.size());
         }
+        return attributes;
+    }
 
-        getLog().info("CSV Report exported successfully");
+    private static Map<String, String[]> lookupAttributes(IFossDatastore fossDatastore, Collection<String> fossIds, ExecutionMetrics metrics) throws MojoExecutionException {
+        Map<String, String[]> attributes;
+        try (ExecutionMetrics.Phase phase = metrics.time("datastoreLookup")) {
+            attributes = fossDatastore.getAdditionalAttributesForFossItems(fossIds);
+        }
+        long hits = 0;
+        for (String[] fossAttributes : attributes.values()) {
+            // The datastore returns only nulls for FOSS items it does not hold.
+            for (String attribute : fossAttributes) {
+                if (attribute != null) {
+                    hits++;
+                    break;
+                }
+            }
+        }
+        metrics.addCount("lookupHits", hits);
+        metrics.addCount("lookupMisses", attributes.size() - hits);
+        return attributes;
     }
 }
@@ -0,0 +1,163 @@
+package uk.yetanother.dependency.report.csv;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which dependencies appear in the report by their scope, groupId and type. The filter is applied while the
+ * dependency graph is built and again while it is traversed, so an excluded dependency is never expanded and the
+ * dependencies it brings in transitively are dropped with it. Maven gives a transitive dependency the scope it is used
+ * in, so excluding the {@code test} scope drops every dependency that is only used by tests.
+ *
+ * <p>For each of scope, groupId and type a dependency must match one of the includes, when there are any, and none of
+ * the excludes. GroupId patterns may use {@code *} to match any characters, such as {@code org.springframework*}.
+ */
+public class DependencyFilter implements ArtifactFilter {
+
+    private final Criterion scopes = new Criterion("scope", false);
+    private final Criterion groupIds = new Criterion("groupId", true);
+    private final Criterion types = new Criterion("type", false);
+
+    /**
+     * Restrict the scopes included.
+     *
+     * @param includes the scopes to include, all scopes when empty or null
+     * @param excludes the scopes to exclude, may be null
+     * @return this filter
+     */
+    public DependencyFilter scopes(List<String> includes, List<String> excludes) {
+        scopes.set(includes, excludes);
+        return this;
+    }
+
+    /**
+     * Restrict the groupIds included.
+     *
+     * @param includes the groupId patterns to include, all groupIds when empty or null
+     * @param excludes the groupId patterns to exclude, may be null
+     * @return this filter
+     */
+    public DependencyFilter groupIds(List<String> includes, List<String> excludes) {
+        groupIds.set(includes, excludes);
+        return this;
+    }
+
+    /**
+     * Restrict the types included.
+     *
+     * @param includes the types to include, all types when empty or null
+     * @param excludes the types to exclude, may be null
+     * @return this filter
+     */
+    public DependencyFilter types(List<String> includes, List<String> excludes) {
+        types.set(includes, excludes);
+        return this;
+    }
+
+    /**
+     * Whether the filter excludes anything at all.
+     *
+     * @return true if any includes or excludes are set
+     */
+    public boolean isFiltering() {
+        return scopes.isFiltering() || groupIds.isFiltering() || types.isFiltering();
+    }
+
+    @Override
+    public boolean include(Artifact artifact) {
+        return scopes.matches(artifact.getScope()) && groupIds.matches(artifact.getGroupId()) && types.matches(artifact.getType());
+    }
+
+    /**
+     * Describe the includes and excludes, two filters with the same description include the same dependencies.
+     *
+     * @return the description
+     */
+    @Override
+    public String toString() {
+        return scopes + ";" + groupIds + ";" + types;
+    }
+
+    private static class Criterion {
+
+        private final String name;
+        private final boolean patterns;
+        private List<String> includes = Collections.emptyList();
+        private List<String> excludes = Collections.emptyList();
+        private List<Pattern> includePatterns = Collections.emptyList();
+        private List<Pattern> excludePatterns = Collections.emptyList();
+
+        Criterion(String name, boolean patterns) {
+            this.name = name;
+            this.patterns = patterns;
+        }
+
+        void set(List<String> includeValues, List<String> excludeValues) {
+            includes = clean(includeValues);
+            excludes = clean(excludeValues);
+            includePatterns = compile(includes);
+            excludePatterns = compile(excludes);
+        }
+
+        boolean isFiltering() {
+            return !includes.isEmpty() || !excludes.isEmpty();
+        }
+
+        boolean matches(String value) {
+            // The project itself has no scope, it is never filtered out.
+            if (value == null) {
+                return true;
+            }
+            return (includes.isEmpty() || matchesAny(value, includes, includePatterns)) && !matchesAny(value, excludes, excludePatterns);
+        }
+
+        private boolean matchesAny(String value, List<String> values, List<Pattern> valuePatterns) {
+            if (!patterns) {
+                return values.contains(value);
+            }
+            for (Pattern pattern : valuePatterns) {
+                if (pattern.matcher(value).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private List<Pattern> compile(List<String> values) {
+            if (!patterns) {
+                return Collections.emptyList();
+            }
+            List<Pattern> compiled = new ArrayList<>(values.size());
+            for (String value : values) {
+                List<String> quoted = new ArrayList<>();
+                for (String part : value.split("\\*", -1)) {
+                    quoted.add(Pattern.quote(part));
+                }
+                compiled.add(Pattern.compile(String.join(".*", quoted)));
+            }
+            return compiled;
+        }
+
+        private static List<String> clean(List<String> values) {
+            List<String> cleaned = new ArrayList<>();
+            if (values != null) {
+                for (String value : values) {
+                    if (value != null && !value.trim().isEmpty()) {
+                        cleaned.add(value.trim());
+                    }
+                }
+            }
+            return cleaned;
+        }
+
+        @Override
+        public String toString() {
+            return name + "+" + includes + "-" + excludes;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package uk.yetanother.dependency.report.csv;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records how each artifact is introduced into the dependency graph, so the report can show why a transitive
+ * dependency is present. Every artifact is given an int node id and the graph is held in primitive arrays indexed by
+ * it, with no object per node or edge, so it stays small for graphs with tens of thousands of nodes.
+ *
+ * <p>For each artifact the depth of its shallowest occurrence and the parent it had there are kept, following those
+ * parents back gives the shortest path from a project to the artifact. Every parent an artifact has anywhere in the
+ * graph is also kept as an edge, packed into a single long.
+ */
+public class DependencyGraph {
+
+    /**
+     * The headings of the columns added to the report for each dependency.
+     */
+    public static final String[] HEADINGS = {"depth", "path", "introducedBy"};
+
+    private static final String PATH_SEPARATOR = " > ";
+    private static final String PARENT_SEPARATOR = ";";
+    private static final int NO_PARENT = -1;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final Map<String, Integer> nodeIds = new HashMap<>();
+    private String[] artifactIds = new String[INITIAL_CAPACITY];
+    private int[] depths = new int[INITIAL_CAPACITY];
+    private int[] shortestParents = new int[INITIAL_CAPACITY];
+    private int nodeCount;
+
+    private long[] edges = new long[INITIAL_CAPACITY];
+    private int edgeCount;
+    private boolean edgesSorted = true;
+
+    /**
+     * Record an occurrence of an artifact in the graph.
+     *
+     * @param artifactId the artifact id
+     * @param parent     the node id of the artifact's parent, or -1 for the root of the graph
+     * @param depth      the depth of the occurrence, 0 for the root
+     * @return the node id of the artifact
+     */
+    public int addOccurrence(String artifactId, int parent, int depth) {
+        int node = nodeId(artifactId);
+        if (depth < depths[node]) {
+            depths[node] = depth;
+            shortestParents[node] = parent;
+        }
+        if (parent != NO_PARENT) {
+            addEdge(parent, node);
+        }
+        return node;
+    }
+
+    /**
+     * Merge another graph into this one. Where an artifact is at the same depth in both graphs the path in this graph
+     * is kept, so merging graphs in a fixed order always gives the same paths.
+     *
+     * @param other the graph to merge
+     */
+    public void merge(DependencyGraph other) {
+        int[] mapping = new int[other.nodeCount];
+        for (int node = 0; node < other.nodeCount; node++) {
+            mapping[node] = nodeId(other.artifactIds[node]);
+        }
+        for (int node = 0; node < other.nodeCount; node++) {
+            int mapped = mapping[node];
+            if (other.depths[node] < depths[mapped]) {
+                depths[mapped] = other.depths[node];
+                shortestParents[mapped] = other.shortestParents[node] == NO_PARENT ? NO_PARENT : mapping[other.shortestParents[node]];
+            }
+        }
+        for (int edge = 0; edge < other.edgeCount; edge++) {
+            addEdge(mapping[parentOf(other.edges[edge])], mapping[childOf(other.edges[edge])]);
+        }
+    }
+
+    /**
+     * Get the number of distinct artifacts in the graph.
+     *
+     * @return the number of artifacts
+     */
+    public int size() {
+        return nodeCount;
+    }
+
+    /**
+     * Get the depth of the shallowest occurrence of an artifact.
+     *
+     * @param artifactId the artifact id
+     * @return the depth, 0 for a project, or -1 if the artifact is not in the graph
+     */
+    public int getDepth(String artifactId) {
+        Integer node = nodeIds.get(artifactId);
+        return node == null ? -1 : depths[node];
+    }
+
+    /**
+     * Get the shortest path from a project to an artifact.
+     *
+     * @param artifactId the artifact id
+     * @return the artifact ids from the project to the artifact, empty if the artifact is not in the graph
+     */
+    public List<String> getShortestPath(String artifactId) {
+        Integer node = nodeIds.get(artifactId);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        String[] path = new String[depths[node] + 1];
+        int position = path.length;
+        // Each parent is shallower than its child, so the walk always ends at a root.
+        for (int current = node; current != NO_PARENT && position > 0; current = shortestParents[current]) {
+            path[--position] = artifactIds[current];
+        }
+        return Arrays.asList(path).subList(position, path.length);
+    }
+
+    /**
+     * Get every artifact that directly introduces an artifact anywhere in the graph.
+     *
+     * @param artifactId the artifact id
+     * @return the parent artifact ids, in the order the parent artifacts were first added to the graph, not the order
+     * the edges were added in
+     */
+    public List<String> getParents(String artifactId) {
+        Integer node = nodeIds.get(artifactId);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        sortEdges();
+        int edge = Arrays.binarySearch(edges, 0, edgeCount, pack(node, 0));
+        if (edge < 0) {
+            edge = -edge - 1;
+        }
+        List<String> parents = new ArrayList<>();
+        for (; edge < edgeCount && childOf(edges[edge]) == node; edge++) {
+            parents.add(artifactIds[parentOf(edges[edge])]);
+        }
+        return parents;
+    }
+
+    /**
+     * Get the report columns for an artifact, in the order of {@link #HEADINGS}.
+     *
+     * @param artifactId the artifact id
+     * @return the column values, all null if the artifact is not in the graph
+     */
+    public String[] getColumns(String artifactId) {
+        int depth = getDepth(artifactId);
+        if (depth < 0) {
+            return new String[HEADINGS.length];
+        }
+        return new String[]{String.valueOf(depth), String.join(PATH_SEPARATOR, getShortestPath(artifactId)),
+                String.join(PARENT_SEPARATOR, getParents(artifactId))};
+    }
+
+    private int nodeId(String artifactId) {
+        Integer node = nodeIds.get(artifactId);
+        if (node != null) {
+            return node;
+        }
+        if (nodeCount == artifactIds.length) {
+            int capacity = nodeCount * 2;
+            artifactIds = Arrays.copyOf(artifactIds, capacity);
+            depths = Arrays.copyOf(depths, capacity);
+            shortestParents = Arrays.copyOf(shortestParents, capacity);
+        }
+        artifactIds[nodeCount] = artifactId;
+        depths[nodeCount] = Integer.MAX_VALUE;
+        shortestParents[nodeCount] = NO_PARENT;
+        nodeIds.put(artifactId, nodeCount);
+        return nodeCount++;
+    }
+
+    private void addEdge(int parent, int child) {
+        if (edgeCount == edges.length) {
+            // Repeated subtrees record the same edges again, drop them before growing.
+            sortEdges();
+            if (edgeCount > edges.length / 2) {
+                edges = Arrays.copyOf(edges, edges.length * 2);
+            }
+        }
+        edges[edgeCount++] = pack(child, parent);
+        edgesSorted = false;
+    }
+
+    /**
+     * Sort the edges by child then parent, so the parents of a child are together, and remove repeated edges.
+     */
+    private void sortEdges() {
+        if (edgesSorted) {
+            return;
+        }
+        Arrays.sort(edges, 0, edgeCount);
+        int unique = 0;
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (unique == 0 || edges[edge] != edges[unique - 1]) {
+                edges[unique++] = edges[edge];
+            }
+        }
+        edgeCount = unique;
+        edgesSorted = true;
+    }
+
+    private static long pack(int child, int parent) {
+        return ((long) child << 32) | (parent & 0xFFFFFFFFL);
+    }
+
+    private static int childOf(long edge) {
+        return (int) (edge >>> 32);
+    }
+
+    private static int parentOf(long edge) {
+        return (int) edge;
+    }
+}
@@ -0,0 +1,256 @@
+package uk.yetanother.dependency.report.csv;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.shared.dependency.graph.DependencyGraphBuilder;
+import org.apache.maven.shared.dependency.graph.DependencyGraphBuilderException;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import uk.yetanother.dependency.report.metrics.ExecutionMetrics;
+import uk.yetanother.dependency.report.writer.DependencyRow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Resolves the dependency graphs of one or more Maven projects and flattens them into unique dependencies keyed by
+ * artifact ID. Reactor projects are resolved on a bounded pool of worker threads, the merged result is always returned
+ * in the same order a single threaded run would produce. Dependencies excluded by the {@link DependencyFilter} are left
+ * out of the graph as it is built and are never expanded.
+ */
+public class ReactorDependencyResolver {
+
+    private final DependencyGraphBuilder dependencyGraphBuilder;
+    private final ProjectBuildingRequest sessionBuildingRequest;
+    private final int threads;
+    private final DependencyFilter filter;
+    private final ExecutionMetrics metrics;
+
+    /**
+     * Instantiates a new Reactor dependency resolver.
+     *
+     * @param dependencyGraphBuilder the dependency graph builder
+     * @param sessionBuildingRequest the building request of the session, this is copied for every project resolved
+     * @param threads                the maximum number of projects to resolve concurrently
+     */
+    public ReactorDependencyResolver(DependencyGraphBuilder dependencyGraphBuilder, ProjectBuildingRequest sessionBuildingRequest, int threads) {
+        this(dependencyGraphBuilder, sessionBuildingRequest, threads, new ExecutionMetrics("resolve"));
+    }
+
+    /**
+     * Instantiates a new Reactor dependency resolver that records the time spent building and traversing the graphs.
+     *
+     * @param dependencyGraphBuilder the dependency graph builder
+     * @param sessionBuildingRequest the building request of the session, this is copied for every project resolved
+     * @param threads                the maximum number of projects to resolve concurrently
+     * @param metrics                the metrics to record to
+     */
+    public ReactorDependencyResolver(DependencyGraphBuilder dependencyGraphBuilder, ProjectBuildingRequest sessionBuildingRequest, int threads, ExecutionMetrics metrics) {
+        this(dependencyGraphBuilder, sessionBuildingRequest, threads, new DependencyFilter(), metrics);
+    }
+
+    /**
+     * Instantiates a new Reactor dependency resolver that only resolves the dependencies included by a filter.
+     *
+     * @param dependencyGraphBuilder the dependency graph builder
+     * @param sessionBuildingRequest the building request of the session, this is copied for every project resolved
+     * @param threads                the maximum number of projects to resolve concurrently
+     * @param filter                 the filter deciding which dependencies are included and expanded
+     * @param metrics                the metrics to record to
+     */
+    public ReactorDependencyResolver(DependencyGraphBuilder dependencyGraphBuilder, ProjectBuildingRequest sessionBuildingRequest, int threads, DependencyFilter filter, ExecutionMetrics metrics) {
+        this.dependencyGraphBuilder = dependencyGraphBuilder;
+        this.sessionBuildingRequest = sessionBuildingRequest;
+        this.threads = Math.max(1, threads);
+        this.filter = filter;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Resolve the dependencies of a single project.
+     *
+     * @param project the project to resolve
+     * @return the dependency rows keyed by artifact ID, in the order they were visited
+     * @throws MojoExecutionException if the dependency graph cannot be built
+     */
+    public Map<String, DependencyRow> resolveProject(MavenProject project) throws MojoExecutionException {
+        return resolveProject(project, null);
+    }
+
+    /**
+     * Resolve the dependencies of a single project, recording how each dependency is introduced.
+     *
+     * @param project the project to resolve
+     * @param graph   the graph to record the dependency paths in, may be null
+     * @return the dependency rows keyed by artifact ID, in the order they were visited
+     * @throws MojoExecutionException if the dependency graph cannot be built
+     */
+    public Map<String, DependencyRow> resolveProject(MavenProject project, DependencyGraph graph) throws MojoExecutionException {
+        ProjectBuildingRequest buildingRequest = new DefaultProjectBuildingRequest(sessionBuildingRequest);
+        buildingRequest.setProject(project);
+        DependencyNode rootNode;
+        try (ExecutionMetrics.Phase phase = metrics.time("graphBuild")) {
+            rootNode = dependencyGraphBuilder.buildDependencyGraph(buildingRequest, filter.isFiltering() ? filter : null);
+        } catch (DependencyGraphBuilderException e) {
+            throw new MojoExecutionException("Cannot build project dependency graph for " + project.getId(), e);
+        }
+
+        Map<String, DependencyRow> dependencies = new LinkedHashMap<>();
+        CsvDependencyNodeVisitor csvVisitor = new CsvDependencyNodeVisitor(dependencies, filter, graph);
+        try (ExecutionMetrics.Phase phase = metrics.time("traversal")) {
+            // The graph is visited directly, it is only read so there is no need to build a copy of it first.
+            rootNode.accept(csvVisitor);
+        }
+        metrics.addCount("nodesVisited", csvVisitor.getNodesVisited());
+        metrics.addCount("nodesExcluded", csvVisitor.getNodesExcluded());
+        return dependencies;
+    }
+
+    /**
+     * Resolve the dependencies of every project in the reactor, de-duplicating them across the projects.
+     *
+     * @param projects the reactor projects in build order
+     * @return the unique dependencies keyed by artifact ID, ordered by the first project and position they were seen in
+     * @throws MojoExecutionException if any of the dependency graphs cannot be built
+     */
+    public Map<String, AggregatedDependency> resolveReactor(List<MavenProject> projects) throws MojoExecutionException {
+        return resolveReactor(projects, null);
+    }
+
+    /**
+     * Resolve the dependencies of every project in the reactor, recording how each dependency is introduced. Each
+     * project is recorded in its own graph and the graphs are merged in reactor order, so the paths are the same for
+     * any number of threads.
+     *
+     * @param projects the reactor projects in build order
+     * @param graph    the graph to record the dependency paths in, may be null
+     * @return the unique dependencies keyed by artifact ID, ordered by the first project and position they were seen in
+     * @throws MojoExecutionException if any of the dependency graphs cannot be built
+     */
+    public Map<String, AggregatedDependency> resolveReactor(List<MavenProject> projects, DependencyGraph graph) throws MojoExecutionException {
+        ConcurrentMap<String, AggregatedDependency> merged = new ConcurrentHashMap<>();
+        DependencyGraph[] moduleGraphs = new DependencyGraph[projects.size()];
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, projects.size())));
+        try {
+            List<Future<Void>> results = new ArrayList<>(projects.size());
+            for (int i = 0; i < projects.size(); i++) {
+                final int moduleIndex = i;
+                final MavenProject module = projects.get(i);
+                if (graph != null) {
+                    moduleGraphs[moduleIndex] = new DependencyGraph();
+                }
+                results.add(executor.submit(() -> {
+                    mergeDependencies(merged, moduleIndex, module.getArtifactId(), resolveProject(module, moduleGraphs[moduleIndex]));
+                    return null;
+                }));
+            }
+            for (Future<Void> result : results) {
+                waitFor(result);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (graph != null) {
+            for (DependencyGraph moduleGraph : moduleGraphs) {
+                graph.merge(moduleGraph);
+            }
+        }
+        return sortByFirstSeen(merged.values());
+    }
+
+    private void mergeDependencies(ConcurrentMap<String, AggregatedDependency> merged, int moduleIndex, String module, Map<String, DependencyRow> dependencies) {
+        int position = 0;
+        for (Map.Entry<String, DependencyRow> dependency : dependencies.entrySet()) {
+            final int dependencyPosition = position++;
+            merged.compute(dependency.getKey(), (id, existing) -> {
+                AggregatedDependency aggregated = existing != null ? existing : new AggregatedDependency(id);
+                aggregated.addModule(moduleIndex, dependencyPosition, module, dependency.getValue());
+                return aggregated;
+            });
+        }
+    }
+
+    private void waitFor(Future<Void> result) throws MojoExecutionException {
+        try {
+            result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while resolving reactor dependency graphs", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MojoExecutionException) {
+                throw (MojoExecutionException) e.getCause();
+            }
+            throw new MojoExecutionException("Unable to resolve reactor dependency graphs", e.getCause());
+        }
+    }
+
+    private Map<String, AggregatedDependency> sortByFirstSeen(Collection<AggregatedDependency> dependencies) {
+        List<AggregatedDependency> sorted = new ArrayList<>(dependencies);
+        sorted.sort(Comparator.comparingInt(AggregatedDependency::getFirstModuleIndex)
+                .thenComparingInt(AggregatedDependency::getFirstPosition));
+        Map<String, AggregatedDependency> result = new LinkedHashMap<>();
+        for (AggregatedDependency dependency : sorted) {
+            result.put(dependency.getId(), dependency);
+        }
+        return result;
+    }
+
+    /**
+     * A dependency that has been seen in one or more reactor projects. The row used is the one from the first project
+     * in the reactor order, regardless of which project finished resolving first.
+     */
+    public static class AggregatedDependency {
+
+        private final String id;
+        private final Map<Integer, String> modules = new TreeMap<>();
+        private DependencyRow row;
+        private int firstModuleIndex = Integer.MAX_VALUE;
+        private int firstPosition = Integer.MAX_VALUE;
+
+        AggregatedDependency(String id) {
+            this.id = id;
+        }
+
+        void addModule(int moduleIndex, int position, String module, DependencyRow moduleRow) {
+            modules.put(moduleIndex, module);
+            if (moduleIndex < firstModuleIndex) {
+                firstModuleIndex = moduleIndex;
+                firstPosition = position;
+                row = moduleRow;
+            }
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public DependencyRow getRow() {
+            return row;
+        }
+
+        public Collection<String> getModules() {
+            return modules.values();
+        }
+
+        int getFirstModuleIndex() {
+            return firstModuleIndex;
+        }
+
+        int getFirstPosition() {
+            return firstPosition;
+        }
+    }
+}
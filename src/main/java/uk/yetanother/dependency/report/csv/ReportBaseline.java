@@ -0,0 +1,201 @@
+package uk.yetanother.dependency.report.csv;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import org.apache.maven.plugin.MojoExecutionException;
+import uk.yetanother.dependency.report.compression.Compression;
+import uk.yetanother.dependency.report.writer.DependencyRow;
+import uk.yetanother.dependency.report.writer.DiffReportWriter.Change;
+import uk.yetanother.dependency.report.writer.ReportHeader;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A previously generated CSV report that the current dependencies are compared against. The baseline is held in a hash
+ * map keyed by the artifact without its version, {@code groupId:artifactId:type[:classifier]}, so each current
+ * dependency is compared with one lookup. An aggregate report can hold several versions of one artifact, so the
+ * current dependencies are compared in two passes. The first pass matches every current version that is also in the
+ * baseline, and only then does the second pair each current version left with a baseline version left, in report
+ * order. Any current version that cannot be paired has been added and any baseline version left has been removed.
+ */
+public class ReportBaseline {
+
+    private static final String[] KEY_HEADINGS = {"id", "groupId", "artifactId", "version", "classifier", "type", "scope"};
+
+    private final Map<String, List<BaselineDependency>> dependencies;
+
+    private ReportBaseline(Map<String, List<BaselineDependency>> dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Load a CSV report. The columns are found by their headings, so a report with or without the modules column or
+     * any additional attributes can be used, and a compressed report is decompressed as it is read.
+     *
+     * @param report the report file
+     * @return the baseline
+     * @throws MojoExecutionException if the report cannot be read or is not a dependency report
+     */
+    public static ReportBaseline load(Path report) throws MojoExecutionException {
+        Map<String, List<BaselineDependency>> dependencies = new LinkedHashMap<>();
+        try (CSVReader reader = new CSVReader(new InputStreamReader(Compression.open(report), StandardCharsets.UTF_8))) {
+            String[] headings = reader.readNext();
+            if (headings == null) {
+                throw new MojoExecutionException("The baseline report " + report + " is empty");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < headings.length; i++) {
+                columns.putIfAbsent(headings[i].trim(), i);
+            }
+            int[] keyColumns = new int[KEY_HEADINGS.length];
+            int lastColumn = 0;
+            for (int i = 0; i < KEY_HEADINGS.length; i++) {
+                Integer column = columns.get(KEY_HEADINGS[i]);
+                if (column == null) {
+                    throw new MojoExecutionException("The baseline report " + report + " has no " + KEY_HEADINGS[i] + " column");
+                }
+                keyColumns[i] = column;
+                lastColumn = Math.max(lastColumn, column);
+            }
+            Integer modulesColumn = columns.get(ReportHeader.MODULES_HEADING);
+            if (modulesColumn != null) {
+                lastColumn = Math.max(lastColumn, modulesColumn);
+            }
+
+            String[] line;
+            while ((line = reader.readNext()) != null) {
+                if (line.length <= lastColumn) {
+                    continue;
+                }
+                DependencyRow row = new DependencyRow(line[keyColumns[0]], line[keyColumns[1]], line[keyColumns[2]], line[keyColumns[3]],
+                        emptyToNull(line[keyColumns[4]]), line[keyColumns[5]], emptyToNull(line[keyColumns[6]]));
+                List<String> modules = modulesColumn == null ? null : splitModules(line[modulesColumn]);
+                dependencies.computeIfAbsent(getKey(row), key -> new ArrayList<>(1)).add(new BaselineDependency(row, modules));
+            }
+        } catch (IOException | CsvValidationException e) {
+            throw new MojoExecutionException("Unable to read the baseline report " + report, e);
+        }
+        return new ReportBaseline(dependencies);
+    }
+
+    /**
+     * Compare the current dependencies with the baseline.
+     *
+     * @param current the current dependencies, each artifact version only once
+     * @param modules the reactor modules using a current dependency, looked up by its id, may return null
+     * @return the changes, the added and changed dependencies in the order given followed by the removed
+     * dependencies in baseline order
+     */
+    public List<ReportChange> compare(Collection<DependencyRow> current, Function<String, Collection<String>> modules) {
+        // Exact versions are matched before any are paired up, so a later exact match is never taken by an earlier pair.
+        Map<String, List<BaselineDependency>> unmatched = new LinkedHashMap<>(dependencies.size() * 2);
+        dependencies.forEach((key, versions) -> unmatched.put(key, new ArrayList<>(versions)));
+        List<DependencyRow> changed = new ArrayList<>();
+        for (DependencyRow dependency : current) {
+            List<BaselineDependency> versions = unmatched.get(getKey(dependency));
+            if (versions == null || !removeVersion(versions, dependency.getVersion())) {
+                changed.add(dependency);
+            }
+        }
+
+        List<ReportChange> changes = new ArrayList<>(changed.size());
+        for (DependencyRow dependency : changed) {
+            List<BaselineDependency> versions = unmatched.get(getKey(dependency));
+            if (versions == null || versions.isEmpty()) {
+                changes.add(new ReportChange(Change.ADDED, null, dependency, modules.apply(dependency.getId())));
+            } else {
+                BaselineDependency previous = versions.remove(0);
+                changes.add(new ReportChange(Change.VERSION_CHANGED, previous.row.getVersion(), dependency, modules.apply(dependency.getId())));
+            }
+        }
+        for (List<BaselineDependency> versions : unmatched.values()) {
+            for (BaselineDependency dependency : versions) {
+                changes.add(new ReportChange(Change.REMOVED, dependency.row.getVersion(), dependency.row, dependency.modules));
+            }
+        }
+        return changes;
+    }
+
+    private static boolean removeVersion(List<BaselineDependency> versions, String version) {
+        for (int i = 0; i < versions.size(); i++) {
+            if (versions.get(i).row.getVersion().equals(version)) {
+                versions.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getKey(DependencyRow row) {
+        StringBuilder key = new StringBuilder(row.getGroupId()).append(':').append(row.getArtifactId()).append(':').append(row.getType());
+        if (row.getClassifier() != null) {
+            key.append(':').append(row.getClassifier());
+        }
+        return key.toString();
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static List<String> splitModules(String value) {
+        return value.isEmpty() ? Collections.emptyList() : Arrays.asList(value.split(";"));
+    }
+
+    private static class BaselineDependency {
+
+        private final DependencyRow row;
+        private final List<String> modules;
+
+        BaselineDependency(DependencyRow row, List<String> modules) {
+            this.row = row;
+            this.modules = modules;
+        }
+    }
+
+    /**
+     * A dependency that has changed since the baseline.
+     */
+    public static class ReportChange {
+
+        private final Change change;
+        private final String previousVersion;
+        private final DependencyRow row;
+        private final Collection<String> modules;
+
+        ReportChange(Change change, String previousVersion, DependencyRow row, Collection<String> modules) {
+            this.change = change;
+            this.previousVersion = previousVersion;
+            this.row = row;
+            this.modules = modules;
+        }
+
+        public Change getChange() {
+            return change;
+        }
+
+        public String getPreviousVersion() {
+            return previousVersion;
+        }
+
+        public DependencyRow getRow() {
+            return row;
+        }
+
+        public Collection<String> getModules() {
+            return modules;
+        }
+    }
+}
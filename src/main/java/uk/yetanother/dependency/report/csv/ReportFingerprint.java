@@ -0,0 +1,214 @@
+package uk.yetanother.dependency.report.csv;
+
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import uk.yetanother.dependency.report.datastore.FossDatastoreVersion;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fingerprint of everything that decides the content of a report, stored next to the report so that an unchanged
+ * report does not have to be generated again. The fingerprint is built from the plugin version and the effective
+ * project models rather than the resolved dependency graph, as it has to be cheaper to calculate than resolving the
+ * graph. Projects that declare a SNAPSHOT dependency or a version range outside the reactor are never fingerprinted.
+ * A released dependency can still bring in a SNAPSHOT or a version range transitively, and these can resolve
+ * differently without any model change, so a matching fingerprint is not a guarantee the report is unchanged. This is
+ * why skipping unchanged reports has to be turned on.
+ */
+public class ReportFingerprint {
+
+    /**
+     * The filename the fingerprint is stored under, in the same directory as the report.
+     */
+    public static final String FINGERPRINT_FILENAME = "dependency-report.fingerprint";
+
+    private static final int FORMAT_VERSION = 2;
+
+    private final MessageDigest digest;
+    private final Map<String, MavenProject> reactor = new HashMap<>();
+    private final Set<String> visitedProjects = new HashSet<>();
+    private boolean stable = true;
+
+    /**
+     * Instantiates a new Report fingerprint.
+     *
+     * @param reactorProjects the projects in the reactor, dependencies on these are fingerprinted by their own models
+     * @param pluginVersion   the version of the plugin generating the report, as a new version can change the report
+     * @throws MojoExecutionException if the digest algorithm is not available
+     */
+    public ReportFingerprint(List<MavenProject> reactorProjects, String pluginVersion) throws MojoExecutionException {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new MojoExecutionException("Unable to create report fingerprint", e);
+        }
+        for (MavenProject reactorProject : reactorProjects) {
+            reactor.put(ArtifactUtils.key(reactorProject.getGroupId(), reactorProject.getArtifactId(), reactorProject.getVersion()), reactorProject);
+        }
+        add("format", String.valueOf(FORMAT_VERSION));
+        add("plugin", pluginVersion);
+    }
+
+    /**
+     * Add a report setting that changes the content of the report.
+     *
+     * @param name  the setting name
+     * @param value the setting value
+     * @return this fingerprint
+     */
+    public ReportFingerprint add(String name, String value) {
+        update(name);
+        update(value);
+        return this;
+    }
+
+    /**
+     * Add a project that is included in the report.
+     *
+     * @param project the project
+     * @return this fingerprint
+     */
+    public ReportFingerprint addProject(MavenProject project) {
+        add("project", project.getId());
+        add("packaging", project.getPackaging());
+        addModel(project);
+        return this;
+    }
+
+    /**
+     * Add the state of the datastore used to provide the additional attributes.
+     *
+     * @param datastoreVersion the version of the datastore files
+     * @param headings         the additional attribute headings of the datastore
+     * @return this fingerprint
+     */
+    public ReportFingerprint addDatastore(FossDatastoreVersion datastoreVersion, String[] headings) {
+        add("datastore", datastoreVersion.toString());
+        for (String heading : headings) {
+            add("heading", heading);
+        }
+        return this;
+    }
+
+    /**
+     * Get the fingerprint as a hex string.
+     *
+     * @return the fingerprint, or null if the projects declare dependencies that can change without a model change
+     */
+    public String toHex() {
+        if (!stable) {
+            return null;
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Check whether existing reports were generated with the same fingerprint.
+     *
+     * @param outputDirectory the directory the reports are exported to
+     * @param fingerprint     the fingerprint of the reports about to be generated
+     * @param reportFilenames the filenames of every report generated
+     * @return true if all the reports exist and have the same fingerprint
+     */
+    public static boolean matches(File outputDirectory, String fingerprint, Collection<String> reportFilenames) {
+        if (fingerprint == null) {
+            return false;
+        }
+        for (String reportFilename : reportFilenames) {
+            if (!new File(outputDirectory, reportFilename).exists()) {
+                return false;
+            }
+        }
+        try {
+            Path fingerprintFile = new File(outputDirectory, FINGERPRINT_FILENAME).toPath();
+            return Files.exists(fingerprintFile)
+                    && fingerprint.equals(new String(Files.readAllBytes(fingerprintFile), StandardCharsets.UTF_8).trim());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Store the fingerprint of a report that has just been generated.
+     *
+     * @param outputDirectory the directory the report was exported to
+     * @param fingerprint     the fingerprint of the report, if null any existing fingerprint is removed
+     * @throws MojoExecutionException if the fingerprint cannot be written
+     */
+    public static void write(File outputDirectory, String fingerprint) throws MojoExecutionException {
+        Path fingerprintFile = new File(outputDirectory, FINGERPRINT_FILENAME).toPath();
+        try {
+            if (fingerprint == null) {
+                Files.deleteIfExists(fingerprintFile);
+            } else {
+                Files.write(fingerprintFile, fingerprint.getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing report fingerprint " + fingerprintFile, e);
+        }
+    }
+
+    private void addModel(MavenProject project) {
+        if (!visitedProjects.add(project.getId())) {
+            return;
+        }
+        // The project API on the plugin classpath returns raw lists.
+        for (Object dependency : project.getDependencies()) {
+            addDependency("dependency", (Dependency) dependency);
+        }
+        if (project.getDependencyManagement() != null) {
+            for (Dependency dependency : project.getDependencyManagement().getDependencies()) {
+                addDependency("managed", dependency);
+            }
+        }
+    }
+
+    private void addDependency(String kind, Dependency dependency) {
+        add(kind, dependency.getManagementKey());
+        add("version", dependency.getVersion());
+        add("scope", dependency.getScope());
+        add("optional", String.valueOf(dependency.isOptional()));
+        for (Exclusion exclusion : dependency.getExclusions()) {
+            add("exclusion", exclusion.getGroupId() + ":" + exclusion.getArtifactId());
+        }
+
+        MavenProject reactorProject = reactor.get(ArtifactUtils.key(dependency.getGroupId(), dependency.getArtifactId(), dependency.getVersion()));
+        if (reactorProject != null) {
+            addModel(reactorProject);
+        } else if (isUnstable(dependency.getVersion())) {
+            stable = false;
+        }
+    }
+
+    private static boolean isUnstable(String version) {
+        return version == null || ArtifactUtils.isSnapshot(version) || version.startsWith("[") || version.startsWith("(");
+    }
+
+    private void update(String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+        } else {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 1);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package uk.yetanother.dependency.report.csv;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import uk.yetanother.dependency.report.writer.DependencyRow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Sorts the rows of a report by a key column so the report order does not depend on the order dependencies are
+ * declared or resolved in. The resolved dependencies and their attributes are already held in memory by the time the
+ * report is written, so the rows are sorted where they are, only a key is built for each row.
+ *
+ * <p>Rows with the same key keep the order they were given in, so the sorted report is always the same.
+ */
+public class ReportSorter {
+
+    /**
+     * Sort by the dependency id, {@code groupId:artifactId:type[:classifier]:version}.
+     */
+    public static final String SORT_BY_ID = "id";
+    /**
+     * Sort by the groupId, then by the dependency id.
+     */
+    public static final String SORT_BY_GROUP_ID = "groupId";
+
+    private static final char KEY_SEPARATOR = '\0';
+
+    private final String sortBy;
+    private final int attributeColumn;
+
+    /**
+     * Instantiates a new Report sorter.
+     *
+     * @param sortBy            {@value #SORT_BY_ID}, {@value #SORT_BY_GROUP_ID} or one of the attribute headings
+     * @param attributeHeadings the attribute headings of the report
+     * @throws MojoExecutionException if the sort column is not in the report
+     */
+    public ReportSorter(String sortBy, String[] attributeHeadings) throws MojoExecutionException {
+        this.sortBy = sortBy;
+        if (SORT_BY_ID.equals(sortBy) || SORT_BY_GROUP_ID.equals(sortBy)) {
+            attributeColumn = -1;
+        } else {
+            attributeColumn = Arrays.asList(attributeHeadings).indexOf(sortBy);
+            if (attributeColumn < 0) {
+                throw new MojoExecutionException(String.format("The report cannot be sorted by '%s', expected %s, %s or one of the attribute headings %s",
+                        sortBy, SORT_BY_ID, SORT_BY_GROUP_ID, Arrays.toString(attributeHeadings)));
+            }
+        }
+    }
+
+    /**
+     * Sort the rows of a report.
+     *
+     * @param rows       the rows, such as dependencies or changes
+     * @param row        the basic columns of a row
+     * @param attributes the additional attributes of a row, may return null
+     * @param <T>        the type of the rows
+     * @return the rows in sorted order
+     */
+    public <T> List<T> sort(Collection<T> rows, Function<T, DependencyRow> row, Function<T, String[]> attributes) {
+        // Each key is built once, rather than on every comparison.
+        List<SortEntry<T>> entries = new ArrayList<>(rows.size());
+        for (T item : rows) {
+            entries.add(new SortEntry<>(getKey(row.apply(item), attributes.apply(item)), item));
+        }
+        entries.sort(Comparator.comparing(entry -> entry.key));
+
+        List<T> sorted = new ArrayList<>(entries.size());
+        for (SortEntry<T> entry : entries) {
+            sorted.add(entry.item);
+        }
+        return sorted;
+    }
+
+    private String getKey(DependencyRow row, String[] attributes) {
+        if (SORT_BY_ID.equals(sortBy)) {
+            return row.getId();
+        }
+        String value = SORT_BY_GROUP_ID.equals(sortBy) ? row.getGroupId() : attributeValue(attributes);
+        // The separator sorts before any other character, so rows are ordered by the value first and then by the id.
+        return value + KEY_SEPARATOR + row.getId();
+    }
+
+    private String attributeValue(String[] attributes) {
+        if (attributes == null || attributeColumn >= attributes.length || attributes[attributeColumn] == null) {
+            return "";
+        }
+        return attributes[attributeColumn];
+    }
+
+    private static class SortEntry<T> {
+
+        private final String key;
+        private final T item;
+
+        SortEntry(String key, T item) {
+            this.key = key;
+            this.item = item;
+        }
+    }
+}
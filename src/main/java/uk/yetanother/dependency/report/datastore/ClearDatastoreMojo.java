@@ -4,6 +4,10 @@ import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import uk.yetanother.dependency.report.metrics.ExecutionMetrics;
+
+import java.io.File;
 
 /**
  * Mojo to have the clear-database goal. This removes any additional FOSS attribute data used by the plugin.
@@ -11,10 +15,34 @@ import org.apache.maven.plugins.annotations.Mojo;
 @Mojo(name = "clear-datastore", defaultPhase = LifecyclePhase.INITIALIZE)
 public class ClearDatastoreMojo extends AbstractMojo {
 
+    @Parameter(property = "metricsDirectory")
+    private File metricsDirectory;
+
+    @Parameter(defaultValue = "false", property = "metricsSummary")
+    private boolean metricsSummary;
+
+    @Parameter(property = "datastoreDirectory")
+    private File datastoreDirectory;
+
+    @Parameter(defaultValue = "file", property = "datastoreType")
+    private String datastoreType;
+
     @Override
     public void execute() throws MojoExecutionException {
-        IFossDatastore fossDatastore = new InternalFileFossDatastore(getLog());
-        fossDatastore.clearDatastore();
+        try {
+            ExecutionMetrics metrics = new ExecutionMetrics("clear-datastore");
+            IFossDatastore fossDatastore;
+            try (ExecutionMetrics.Phase phase = metrics.time("datastoreOpen")) {
+                fossDatastore = FossDatastores.open(getLog(), datastoreType, datastoreDirectory);
+            }
+            metrics.setCount("datastoreRows", fossDatastore.getFossItemCount());
+            try (ExecutionMetrics.Phase phase = metrics.time("datastoreClear")) {
+                fossDatastore.clearDatastore();
+            }
+            metrics.write(metricsDirectory, getLog(), metricsSummary);
+        } finally {
+            FossDatastoreCache.invalidate();
+        }
     }
 
 }
@@ -0,0 +1,49 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import uk.yetanother.dependency.report.metrics.ExecutionMetrics;
+
+import java.io.File;
+
+/**
+ * Mojo to have the compact-datastore goal. This merges the updates made by update-datastore back into the main
+ * datastore, so they no longer have to be applied every time the datastore is loaded.
+ */
+@Mojo(name = "compact-datastore", defaultPhase = LifecyclePhase.INITIALIZE)
+public class CompactDatastoreMojo extends AbstractMojo {
+
+    @Parameter(property = "metricsDirectory")
+    private File metricsDirectory;
+
+    @Parameter(defaultValue = "false", property = "metricsSummary")
+    private boolean metricsSummary;
+
+    @Parameter(property = "datastoreDirectory")
+    private File datastoreDirectory;
+
+    @Parameter(defaultValue = "file", property = "datastoreType")
+    private String datastoreType;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        try {
+            ExecutionMetrics metrics = new ExecutionMetrics("compact-datastore");
+            IFossDatastore fossDatastore;
+            try (ExecutionMetrics.Phase phase = metrics.time("datastoreOpen")) {
+                fossDatastore = FossDatastores.open(getLog(), datastoreType, datastoreDirectory);
+            }
+            try (ExecutionMetrics.Phase phase = metrics.time("datastoreCompact")) {
+                fossDatastore.compactDatastore();
+            }
+            metrics.setCount("datastoreRows", fossDatastore.getFossItemCount());
+            metrics.write(metricsDirectory, getLog(), metricsSummary);
+        } finally {
+            FossDatastoreCache.invalidate();
+        }
+    }
+
+}
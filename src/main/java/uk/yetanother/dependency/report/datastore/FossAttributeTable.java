@@ -0,0 +1,178 @@
+package uk.yetanother.dependency.report.datastore;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * The attributes of FOSS items held in memory with each column dictionary encoded. Attribute columns such as a licence
+ * hold only a few distinct values across every row, so each distinct value is held once per column and the rows hold
+ * only an int matrix of value ids. The matrix can be held outside the Java heap. Attributes are decoded into a new
+ * array each time they are read.
+ *
+ * <p>The column count is taken from the first row stored. Rows with a different number of attributes are rare and are
+ * held as they are, so that reading them back returns exactly the attributes stored.
+ */
+final class FossAttributeTable {
+
+    private static final int NULL_VALUE = -1;
+    private static final int INITIAL_ROW_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = (Integer.MAX_VALUE - 8) / Integer.BYTES;
+
+    private final boolean offHeap;
+    private final Map<String, Integer> rows = new HashMap<>();
+    private final Map<String, String[]> irregularRows = new HashMap<>();
+
+    private int columns = -1;
+    private ColumnDictionary[] dictionaries;
+    private IntBuffer values;
+    private int rowCount;
+
+    /**
+     * Instantiates a new empty table.
+     *
+     * @param offHeap whether the matrix of value ids is held outside the Java heap
+     */
+    FossAttributeTable(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * Store the attributes of a FOSS item, replacing any held for it already.
+     *
+     * @param fossId     the FOSS item id
+     * @param attributes the attributes
+     * @return true if the FOSS item was not held before
+     */
+    boolean put(String fossId, String[] attributes) {
+        if (columns < 0) {
+            initialise(attributes.length);
+        }
+
+        Integer row = rows.get(fossId);
+        if (attributes.length != columns) {
+            if (row != null) {
+                // The matrix row is left unused, irregular rows are too rare for the space to matter.
+                rows.remove(fossId);
+            }
+            return irregularRows.put(fossId, attributes.clone()) == null && row == null;
+        }
+
+        boolean added = row == null && irregularRows.remove(fossId) == null;
+        if (row == null) {
+            row = addRow();
+            rows.put(fossId, row);
+        }
+        int offset = row * columns;
+        for (int column = 0; column < columns; column++) {
+            values.put(offset + column, dictionaries[column].encode(attributes[column]));
+        }
+        return added;
+    }
+
+    /**
+     * Get the attributes of a FOSS item.
+     *
+     * @param fossId the FOSS item id
+     * @return a new array of the attributes, or null if the FOSS item is not held
+     */
+    String[] get(String fossId) {
+        Integer row = rows.get(fossId);
+        if (row == null) {
+            String[] irregular = irregularRows.get(fossId);
+            return irregular == null ? null : irregular.clone();
+        }
+        return decode(row);
+    }
+
+    boolean contains(String fossId) {
+        return rows.containsKey(fossId) || irregularRows.containsKey(fossId);
+    }
+
+    int size() {
+        return rows.size() + irregularRows.size();
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Pass every FOSS item and its decoded attributes to the consumer, in no particular order.
+     *
+     * @param consumer the consumer
+     */
+    void forEach(BiConsumer<String, String[]> consumer) {
+        for (Map.Entry<String, Integer> row : rows.entrySet()) {
+            consumer.accept(row.getKey(), decode(row.getValue()));
+        }
+        for (Map.Entry<String, String[]> irregular : irregularRows.entrySet()) {
+            consumer.accept(irregular.getKey(), irregular.getValue().clone());
+        }
+    }
+
+    private void initialise(int columnCount) {
+        columns = columnCount;
+        dictionaries = new ColumnDictionary[columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            dictionaries[column] = new ColumnDictionary();
+        }
+        values = allocate(INITIAL_ROW_CAPACITY * Math.max(columnCount, 1));
+    }
+
+    private int addRow() {
+        if ((long) (rowCount + 1) * columns > values.capacity()) {
+            long capacity = Math.min((long) values.capacity() * 2, MAX_CAPACITY);
+            if (capacity < (long) (rowCount + 1) * columns) {
+                throw new IllegalStateException("The Foss Datastore holds too many attributes to be held in memory");
+            }
+            IntBuffer grown = allocate((int) capacity);
+            IntBuffer existing = values.duplicate();
+            existing.clear();
+            grown.put(existing);
+            grown.clear();
+            values = grown;
+        }
+        return rowCount++;
+    }
+
+    private String[] decode(int row) {
+        String[] attributes = new String[columns];
+        int offset = row * columns;
+        for (int column = 0; column < columns; column++) {
+            attributes[column] = dictionaries[column].decode(values.get(offset + column));
+        }
+        return attributes;
+    }
+
+    private IntBuffer allocate(int capacity) {
+        return offHeap ? ByteBuffer.allocateDirect(capacity * Integer.BYTES).asIntBuffer() : IntBuffer.allocate(capacity);
+    }
+
+    private static class ColumnDictionary {
+
+        private final Map<String, Integer> valueIds = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            if (value == null) {
+                return NULL_VALUE;
+            }
+            Integer valueId = valueIds.get(value);
+            if (valueId == null) {
+                valueId = values.size();
+                values.add(value);
+                valueIds.put(value, valueId);
+            }
+            return valueId;
+        }
+
+        String decode(int valueId) {
+            return valueId == NULL_VALUE ? null : values.get(valueId);
+        }
+    }
+}
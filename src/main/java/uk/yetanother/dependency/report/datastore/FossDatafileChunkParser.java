@@ -0,0 +1,210 @@
+package uk.yetanother.dependency.report.datastore;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses a CSV datafile on a fork-join pool. The file is cut into chunks of about the configured size, each ending at
+ * the end of a row, and the chunks are parsed in parallel while the rows are handed back in file order. The rows are
+ * exactly those a sequential read gives, so where a FOSS item appears more than once the last row still wins.
+ *
+ * <p>A row can span several lines when a quoted field holds a line break, so the chunk ends are found by tracking the
+ * quotes from the start of each chunk, the same way the CSV parser does. Only a few chunks are read ahead, two for
+ * each thread of the pool but never more than {@value #MAX_READ_AHEAD} bytes in all, so the file never has to fit in
+ * memory however many cores the machine has. A compressed file is decompressed as its chunks are read, while the parsing of the
+ * decompressed chunks still runs in parallel.
+ */
+final class FossDatafileChunkParser implements FossRowSource, AutoCloseable {
+
+    static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    static final int MAX_READ_AHEAD = 64 * 1024 * 1024;
+
+    private static final byte QUOTE = '"';
+    private static final byte ESCAPE = '\\';
+    private static final byte SEPARATOR = ',';
+    private static final byte NEW_LINE = '\n';
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private final ReadableByteChannel channel;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int chunksAhead;
+    private final Deque<ForkJoinTask<List<String[]>>> parsing = new ArrayDeque<>();
+
+    private byte[] remainder = NO_BYTES;
+    private boolean endOfFile;
+    private Iterator<String[]> rows = Collections.emptyIterator();
+
+    /**
+     * Open a datafile for parsing.
+     *
+     * @param file      the datafile, plain or compressed with any {@link Compression} codec
+     * @param pool      the pool the chunks are parsed on
+     * @param chunkSize the number of bytes read for each chunk, a chunk is larger when a single row is larger
+     * @throws IOException if the file cannot be opened
+     */
+    FossDatafileChunkParser(Path file, ForkJoinPool pool, int chunkSize) throws IOException {
+        Compression compression = Compression.detect(file);
+        this.channel = compression == Compression.NONE ? FileChannel.open(file, StandardOpenOption.READ) : Channels.newChannel(Compression.open(file));
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.chunksAhead = Math.max(2, Math.min(pool.getParallelism() * 2, MAX_READ_AHEAD / chunkSize));
+    }
+
+    int getChunksAhead() {
+        return chunksAhead;
+    }
+
+    @Override
+    public String[] readRow() throws IOException {
+        while (!rows.hasNext()) {
+            while (parsing.size() < chunksAhead) {
+                byte[] chunk = readChunk();
+                if (chunk == null) {
+                    break;
+                }
+                parsing.add(pool.submit(() -> parse(chunk)));
+            }
+            ForkJoinTask<List<String[]>> next = parsing.poll();
+            if (next == null) {
+                return null;
+            }
+            try {
+                rows = next.join().iterator();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        return rows.next();
+    }
+
+    @Override
+    public void close() {
+        parsing.forEach(task -> task.cancel(false));
+        parsing.clear();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Only read from, nothing is lost.
+        }
+    }
+
+    /**
+     * Read the next chunk of whole rows, carrying any partial row at the end over to the next chunk.
+     */
+    private byte[] readChunk() throws IOException {
+        if (endOfFile && remainder.length == 0) {
+            return null;
+        }
+        byte[] buffer = Arrays.copyOf(remainder, remainder.length + chunkSize);
+        int length = remainder.length;
+        int scanned = 0;
+        int lastRowEnd = -1;
+        ChunkScanner scanner = new ChunkScanner();
+        while (true) {
+            if (!endOfFile) {
+                if (buffer.length - length < chunkSize) {
+                    buffer = Arrays.copyOf(buffer, buffer.length + chunkSize);
+                }
+                ByteBuffer target = ByteBuffer.wrap(buffer, length, buffer.length - length);
+                while (target.hasRemaining() && !endOfFile) {
+                    endOfFile = channel.read(target) < 0;
+                }
+                length = target.position();
+            }
+            for (; scanned < length; scanned++) {
+                if (scanner.isRowEnd(buffer[scanned])) {
+                    lastRowEnd = scanned;
+                }
+            }
+            if (lastRowEnd >= 0 || endOfFile) {
+                break;
+            }
+        }
+
+        int chunkEnd = endOfFile ? length : lastRowEnd + 1;
+        remainder = Arrays.copyOfRange(buffer, chunkEnd, length);
+        return chunkEnd == 0 ? null : Arrays.copyOf(buffer, chunkEnd);
+    }
+
+    private static List<String[]> parse(byte[] chunk) {
+        List<String[]> chunkRows = new ArrayList<>();
+        try (CSVReader reader = new CSVReader(new InputStreamReader(new ByteArrayInputStream(chunk), StandardCharsets.UTF_8))) {
+            String[] row;
+            while ((row = reader.readNext()) != null) {
+                chunkRows.add(row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (CsvValidationException e) {
+            throw new UncheckedIOException(new IOException("Unable to read datastore data", e));
+        }
+        return chunkRows;
+    }
+
+    /**
+     * Follows the quotes through a chunk to find the line breaks that end a row rather than sit within a quoted field.
+     * Quotes and escapes are treated as the CSV parser treats them: every quote opens or closes a quoted section and a
+     * backslash within a field escapes a following quote or backslash. A doubled quote closes and reopens the section,
+     * which leaves it open as the parser does.
+     */
+    private static class ChunkScanner {
+
+        private boolean inQuotes;
+        private boolean inField;
+        private boolean escaping;
+
+        boolean isRowEnd(byte b) {
+            if (escaping) {
+                escaping = false;
+                if (b == QUOTE || b == ESCAPE) {
+                    return false;
+                }
+            }
+            switch (b) {
+                case QUOTE:
+                    inQuotes = !inQuotes;
+                    inField = true;
+                    return false;
+                case ESCAPE:
+                    escaping = inQuotes || inField;
+                    inField = true;
+                    return false;
+                case SEPARATOR:
+                    inField = inQuotes;
+                    return false;
+                case NEW_LINE:
+                    if (inQuotes) {
+                        return false;
+                    }
+                    inField = false;
+                    return true;
+                default:
+                    inField = true;
+                    return false;
+            }
+        }
+    }
+}
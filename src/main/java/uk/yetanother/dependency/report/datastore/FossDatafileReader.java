@@ -0,0 +1,103 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Streams a CSV datafile, or the datastore itself, one row at a time so that the file never has to fit in memory.
+ * The headings are read from the first row as soon as the file is opened, so they can be validated before any of the
+ * data is processed. The rows are parsed in parallel by a {@link FossDatafileChunkParser} on the common fork-join
+ * pool, but are still read in file order.
+ */
+final class FossDatafileReader implements FossRowSource, AutoCloseable {
+
+    private final FossDatafileChunkParser parser;
+    private final String[] headings;
+    private long rowCount;
+
+    /**
+     * Open a datafile and read its headings.
+     *
+     * @param file the datafile
+     * @throws MojoExecutionException if the file cannot be read
+     */
+    FossDatafileReader(Path file) throws MojoExecutionException {
+        this(file, ForkJoinPool.commonPool(), FossDatafileChunkParser.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Open a datafile and read its headings, parsing it on the given pool.
+     *
+     * @param file      the datafile
+     * @param pool      the pool the file is parsed on
+     * @param chunkSize the number of bytes parsed by each task
+     * @throws MojoExecutionException if the file cannot be read
+     */
+    FossDatafileReader(Path file, ForkJoinPool pool, int chunkSize) throws MojoExecutionException {
+        FossDatafileChunkParser chunkParser = null;
+        try {
+            chunkParser = new FossDatafileChunkParser(file, pool, chunkSize);
+            headings = chunkParser.readRow();
+        } catch (IOException e) {
+            if (chunkParser != null) {
+                chunkParser.close();
+            }
+            throw new MojoExecutionException("Unable to read datastore data", e);
+        }
+        parser = chunkParser;
+    }
+
+    /**
+     * Whether the file has a headings row.
+     *
+     * @return true if the file is not empty
+     */
+    boolean hasHeadings() {
+        return headings != null;
+    }
+
+    /**
+     * Get the complete headings row, including the id column.
+     *
+     * @return the headings row, or null if the file is empty
+     */
+    String[] getHeadingsRow() {
+        return headings;
+    }
+
+    /**
+     * Get the additional attribute headings, which are all the headings after the id column.
+     *
+     * @return the attribute headings, empty if the file is empty
+     */
+    String[] getAttributeHeadings() {
+        return headings == null ? new String[0] : Arrays.copyOfRange(headings, 1, headings.length);
+    }
+
+    /**
+     * Get the number of rows read so far, not counting the headings.
+     *
+     * @return the number of rows read
+     */
+    long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public String[] readRow() throws IOException {
+        String[] row = parser.readRow();
+        if (row != null) {
+            rowCount++;
+        }
+        return row;
+    }
+
+    @Override
+    public void close() {
+        parser.close();
+    }
+}
@@ -0,0 +1,69 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Resolves precompiled datastore snapshots deployed as Maven artifacts. The snapshot is downloaded into the local
+ * repository the first time it is used and is read from there by every later build, so the report maps it directly
+ * from the local repository.
+ */
+public final class FossDatastoreArtifacts {
+
+    private FossDatastoreArtifacts() {
+    }
+
+    /**
+     * Parse the coordinates of a precompiled snapshot, {@code groupId:artifactId:version}, or with an extension and
+     * classifier as {@code groupId:artifactId:extension[:classifier]:version}. The extension defaults to
+     * {@value PrecompiledFossDatastore#SNAPSHOT_EXTENSION}.
+     *
+     * @param coordinates the coordinates
+     * @return the artifact
+     * @throws MojoExecutionException if the coordinates are not valid
+     */
+    public static Artifact parse(String coordinates) throws MojoExecutionException {
+        String trimmed = coordinates.trim();
+        String[] parts = trimmed.split(":");
+        try {
+            if (parts.length == 3) {
+                return new DefaultArtifact(parts[0], parts[1], PrecompiledFossDatastore.SNAPSHOT_EXTENSION, parts[2]);
+            }
+            return new DefaultArtifact(trimmed);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(String.format("The datastore artifact '%s' is not valid, expected groupId:artifactId:version", coordinates), e);
+        }
+    }
+
+    /**
+     * Resolve a precompiled snapshot into the local repository.
+     *
+     * @param logger             the logger
+     * @param repositorySystem   the repository system
+     * @param session            the repository session of the build
+     * @param remoteRepositories the remote repositories of the project
+     * @param coordinates        the coordinates of the snapshot, see {@link #parse(String)}
+     * @return the snapshot file in the local repository
+     * @throws MojoExecutionException if the snapshot cannot be resolved
+     */
+    public static File resolve(Log logger, RepositorySystem repositorySystem, RepositorySystemSession session, List<RemoteRepository> remoteRepositories, String coordinates) throws MojoExecutionException {
+        Artifact artifact = parse(coordinates);
+        try {
+            Artifact resolved = repositorySystem.resolveArtifact(session, new ArtifactRequest(artifact, remoteRepositories, null)).getArtifact();
+            logger.debug("Resolved Foss Datastore artifact " + resolved + " to " + resolved.getFile());
+            return resolved.getFile();
+        } catch (ArtifactResolutionException e) {
+            throw new MojoExecutionException("Unable to resolve the datastore artifact " + artifact, e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+
+/**
+ * JVM wide cache of the loaded FOSS datastore. Maven keeps the plugin class realm for the whole build, so every module
+ * in a reactor shares the datastore loaded by the first one rather than opening it again. The cached datastore is
+ * checked against the {@link FossDatastoreVersion} of the datastore files on every request, and concurrent requests
+ * from parallel builder threads wait for a single load rather than each loading their own copy.
+ *
+ * <p>Datastores returned by the cache are shared and must only be read. Goals that change the datastore should work on
+ * their own instance and call {@link #invalidate()} once they are finished.
+ */
+public final class FossDatastoreCache {
+
+    private static final Object LOCK = new Object();
+
+    private static FossDatastoreVersion cachedVersion;
+    private static IFossDatastore cachedDatastore;
+
+    private FossDatastoreCache() {
+    }
+
+    /**
+     * Get the shared datastore, loading it if it has not been loaded yet or the datastore file has changed since.
+     *
+     * @param logger the logger used if the datastore has to be loaded
+     * @return the shared datastore
+     * @throws MojoExecutionException if the datastore cannot be loaded
+     */
+    public static IFossDatastore getDatastore(Log logger) throws MojoExecutionException {
+        return getDatastore(logger, FossDatastores.FILE_TYPE, null);
+    }
+
+    /**
+     * Get the shared datastore of the given type and directory, loading it if it has not been loaded yet or the
+     * datastore has changed since.
+     *
+     * @param logger             the logger used if the datastore has to be loaded
+     * @param datastoreType      the type of datastore, see {@link FossDatastores}
+     * @param datastoreDirectory the configured datastore directory, or null to use the datastore next to the plugin
+     * @return the shared datastore
+     * @throws MojoExecutionException if the datastore cannot be loaded
+     */
+    public static IFossDatastore getDatastore(Log logger, String datastoreType, File datastoreDirectory) throws MojoExecutionException {
+        synchronized (LOCK) {
+            FossDatastoreVersion version = FossDatastores.getDatastoreVersion(datastoreType, datastoreDirectory);
+            if (cachedDatastore != null && version.equals(cachedVersion)) {
+                logger.debug("Using cached Foss Datastore");
+                return cachedDatastore;
+            }
+
+            cachedDatastore = null;
+            IFossDatastore datastore = FossDatastores.open(logger, datastoreType, datastoreDirectory);
+            cachedVersion = version;
+            cachedDatastore = datastore;
+            return datastore;
+        }
+    }
+
+    /**
+     * Get the shared datastore mapped from a precompiled snapshot, mapping it if it has not been mapped yet or the
+     * snapshot has changed since.
+     *
+     * @param logger       the logger used if the snapshot has to be mapped
+     * @param snapshotFile the precompiled snapshot
+     * @return the shared datastore
+     * @throws MojoExecutionException if the snapshot cannot be mapped
+     */
+    public static IFossDatastore getPrecompiledDatastore(Log logger, File snapshotFile) throws MojoExecutionException {
+        synchronized (LOCK) {
+            FossDatastoreVersion version = PrecompiledFossDatastore.getDatastoreVersion(snapshotFile.toPath());
+            if (cachedDatastore != null && version.equals(cachedVersion)) {
+                logger.debug("Using cached Foss Datastore");
+                return cachedDatastore;
+            }
+
+            cachedDatastore = null;
+            IFossDatastore datastore = new PrecompiledFossDatastore(logger, snapshotFile.toPath());
+            cachedVersion = version;
+            cachedDatastore = datastore;
+            return datastore;
+        }
+    }
+
+    /**
+     * Discard the cached datastore so that the next request loads it again.
+     */
+    public static void invalidate() {
+        synchronized (LOCK) {
+            cachedDatastore = null;
+            cachedVersion = null;
+        }
+    }
+}
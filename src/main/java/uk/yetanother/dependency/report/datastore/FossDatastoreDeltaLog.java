@@ -0,0 +1,137 @@
+package uk.yetanother.dependency.report.datastore;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import com.opencsv.exceptions.CsvValidationException;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The append only log of updates made to a datastore since it was last created or compacted. Each update is written,
+ * without headings, as a new numbered segment file next to the datastore. Segments are written atomically and never
+ * changed afterwards, so an interrupted update leaves no trace. Rows are applied on top of the base datastore in
+ * segment order, so a later row for an id replaces an earlier one.
+ */
+final class FossDatastoreDeltaLog {
+
+    private static final String SEGMENT_INFIX = ".delta.";
+    private static final String SEGMENT_NUMBER_FORMAT = "%06d";
+
+    private FossDatastoreDeltaLog() {
+    }
+
+    /**
+     * Get the delta log segments that belong to a datastore file, in the order they were written.
+     *
+     * @param datastoreLocation the base datastore file
+     * @return the segment files
+     * @throws MojoExecutionException if the datastore directory cannot be read
+     */
+    static List<Path> getSegments(Path datastoreLocation) throws MojoExecutionException {
+        List<Path> segments = new ArrayList<>();
+        Path directory = datastoreLocation.toAbsolutePath().getParent();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        String prefix = datastoreLocation.getFileName() + SEGMENT_INFIX;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (Path file : files) {
+                if (getSegmentNumber(file, prefix) >= 0) {
+                    segments.add(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to read datastore updates", e);
+        }
+        segments.sort(Comparator.comparingLong(segment -> getSegmentNumber(segment, prefix)));
+        return segments;
+    }
+
+    /**
+     * Stream every row held in the delta log, in the order the rows were written.
+     *
+     * @param datastoreLocation the base datastore file
+     * @param rowConsumer       receives each row
+     * @throws MojoExecutionException if the delta log cannot be read
+     */
+    static void read(Path datastoreLocation, Consumer<String[]> rowConsumer) throws MojoExecutionException {
+        for (Path segment : getSegments(datastoreLocation)) {
+            try (Reader reader = Files.newBufferedReader(segment); CSVReader csvReader = new CSVReader(reader)) {
+                String[] row;
+                while ((row = csvReader.readNext()) != null) {
+                    rowConsumer.accept(row);
+                }
+            } catch (IOException | CsvValidationException e) {
+                throw new MojoExecutionException("Unable to read datastore updates", e);
+            }
+        }
+    }
+
+    /**
+     * Append the rows as a new segment, streaming them straight into the segment file. No segment is written if there
+     * are no rows.
+     *
+     * @param datastoreLocation the base datastore file
+     * @param rows              the rows to append
+     * @return the number of rows appended
+     * @throws MojoExecutionException if the rows cannot be read or the segment cannot be written
+     */
+    static long append(Path datastoreLocation, FossRowSource rows) throws MojoExecutionException {
+        String prefix = datastoreLocation.getFileName() + SEGMENT_INFIX;
+        long[] count = {0};
+        try {
+            String[] firstRow = rows.readRow();
+            if (firstRow == null) {
+                return 0;
+            }
+            List<Path> segments = getSegments(datastoreLocation);
+            long nextNumber = segments.isEmpty() ? 1 : getSegmentNumber(segments.get(segments.size() - 1), prefix) + 1;
+            Path segment = datastoreLocation.resolveSibling(prefix + String.format(SEGMENT_NUMBER_FORMAT, nextNumber));
+            FossDatastoreFiles.writeAtomically(segment, file -> {
+                try (Writer writer = Files.newBufferedWriter(file); CSVWriter csvWriter = new CSVWriter(writer)) {
+                    String[] row = firstRow;
+                    do {
+                        csvWriter.writeNext(row);
+                        count[0]++;
+                    } while ((row = rows.readRow()) != null);
+                }
+            });
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to write to the datastore", e);
+        }
+        return count[0];
+    }
+
+    static void delete(Path datastoreLocation) throws MojoExecutionException {
+        try {
+            for (Path segment : getSegments(datastoreLocation)) {
+                Files.deleteIfExists(segment);
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to delete datastore updates", e);
+        }
+    }
+
+    private static long getSegmentNumber(Path segment, String prefix) {
+        String number = segment.getFileName().toString().substring(prefix.length());
+        if (number.isEmpty()) {
+            return -1;
+        }
+        for (int i = 0; i < number.length(); i++) {
+            if (!Character.isDigit(number.charAt(i))) {
+                return -1;
+            }
+        }
+        return Long.parseLong(number);
+    }
+}
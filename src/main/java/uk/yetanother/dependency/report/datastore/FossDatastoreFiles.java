@@ -0,0 +1,126 @@
+package uk.yetanother.dependency.report.datastore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Writes datastore files so that a build killed part way through never leaves a partly written file behind. The
+ * content is written to a temporary file in the same directory, forced to disk and then moved over the target in a
+ * single step, so readers only ever see the complete old file or the complete new one.
+ */
+final class FossDatastoreFiles {
+
+    private FossDatastoreFiles() {
+    }
+
+    /**
+     * Writes the content of a file.
+     */
+    interface ContentWriter {
+
+        /**
+         * Write the complete content to the given file.
+         *
+         * @param file the temporary file to write to
+         * @throws IOException if the content cannot be written
+         */
+        void write(Path file) throws IOException;
+    }
+
+    /**
+     * Write a file atomically, replacing any existing file.
+     *
+     * @param target        the file to write
+     * @param contentWriter writes the content to the temporary file
+     * @throws IOException if the file cannot be written, in which case the target is left unchanged
+     */
+    static void writeAtomically(Path target, ContentWriter contentWriter) throws IOException {
+        Path tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            contentWriter.write(tempFile);
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        forceDirectory(target.getParent());
+    }
+
+    /**
+     * Write a file named after the SHA-256 hash of its content. The file is never replaced once written, if a file with
+     * the same content already exists the new copy is discarded.
+     *
+     * @param directory     the directory to write the file in
+     * @param prefix        the start of the filename, before the hash
+     * @param suffix        the end of the filename, after the hash
+     * @param contentWriter writes the content to the temporary file
+     * @return the file holding the content
+     * @throws IOException if the file cannot be written
+     */
+    static Path writeContentAddressed(Path directory, String prefix, String suffix, ContentWriter contentWriter) throws IOException {
+        Path tempFile = Files.createTempFile(directory, prefix, ".tmp");
+        try {
+            contentWriter.write(tempFile);
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Path target = directory.resolve(prefix + sha256(tempFile) + suffix);
+            if (!Files.exists(target)) {
+                try {
+                    Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, target);
+                }
+                forceDirectory(directory);
+            }
+            return target;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 is not available", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        StringBuilder hash = new StringBuilder();
+        for (byte value : digest.digest()) {
+            hash.append(String.format("%02x", value));
+        }
+        return hash.toString();
+    }
+
+    private static void forceDirectory(Path directory) {
+        // Makes the move itself durable. Not every platform can open a directory, the move has still happened if not.
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Ignored, see above.
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock held while the datastore files are read or changed, so concurrent plugin executions, whether in the same
+ * Maven JVM or in separate builds sharing a CI agent, never see or make a half finished change. Changes take an
+ * exclusive lock, loads take a shared lock so separate builds can still load at the same time. The lock is re-entrant
+ * for the thread holding it, nested acquisitions reuse the outer lock.
+ */
+final class FossDatastoreLock implements AutoCloseable {
+
+    private static final String LOCK_SUFFIX = ".lock";
+
+    // File locks belong to the whole JVM and cannot overlap, so threads within the JVM queue on this lock first.
+    private static final ReentrantLock JVM_LOCK = new ReentrantLock();
+
+    private final FileChannel channel;
+    private final FileLock fileLock;
+
+    private FossDatastoreLock(FileChannel channel, FileLock fileLock) {
+        this.channel = channel;
+        this.fileLock = fileLock;
+    }
+
+    /**
+     * Acquire the shared lock used while loading the datastore.
+     *
+     * @param datastoreLocation the datastore file
+     * @return the lock, to be closed once loading has finished
+     * @throws MojoExecutionException if the lock cannot be acquired
+     */
+    static FossDatastoreLock shared(Path datastoreLocation) throws MojoExecutionException {
+        return acquire(datastoreLocation, true);
+    }
+
+    /**
+     * Acquire the exclusive lock used while changing the datastore.
+     *
+     * @param datastoreLocation the datastore file
+     * @return the lock, to be closed once the change has finished
+     * @throws MojoExecutionException if the lock cannot be acquired
+     */
+    static FossDatastoreLock exclusive(Path datastoreLocation) throws MojoExecutionException {
+        return acquire(datastoreLocation, false);
+    }
+
+    private static FossDatastoreLock acquire(Path datastoreLocation, boolean shared) throws MojoExecutionException {
+        JVM_LOCK.lock();
+        if (JVM_LOCK.getHoldCount() > 1) {
+            return new FossDatastoreLock(null, null);
+        }
+
+        Path lockLocation = datastoreLocation.resolveSibling(datastoreLocation.getFileName() + LOCK_SUFFIX);
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockLocation, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new FossDatastoreLock(channel, channel.lock(0L, Long.MAX_VALUE, shared));
+        } catch (IOException e) {
+            closeQuietly(channel);
+            JVM_LOCK.unlock();
+            throw new MojoExecutionException("Unable to lock datastore " + lockLocation, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (fileLock != null) {
+                fileLock.release();
+            }
+        } catch (IOException e) {
+            // Closing the channel below releases the lock regardless.
+        } finally {
+            closeQuietly(channel);
+            JVM_LOCK.unlock();
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing more can be done, the lock is released when the JVM exits.
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The version of the datastore files on disk, taken from the size and modification time of each file. Two versions
+ * are equal when none of the files have been changed, created or removed in between.
+ */
+public final class FossDatastoreVersion {
+
+    private final String version;
+
+    private FossDatastoreVersion(String version) {
+        this.version = version;
+    }
+
+    /**
+     * Get the current version of the given files.
+     *
+     * @param files the files making up the datastore
+     * @return the version
+     * @throws MojoExecutionException if the file details cannot be read
+     */
+    public static FossDatastoreVersion of(Path... files) throws MojoExecutionException {
+        return of(Arrays.asList(files));
+    }
+
+    /**
+     * Get the current version of the given files.
+     *
+     * @param files the files making up the datastore
+     * @return the version
+     * @throws MojoExecutionException if the file details cannot be read
+     */
+    public static FossDatastoreVersion of(List<Path> files) throws MojoExecutionException {
+        StringBuilder builder = new StringBuilder();
+        try {
+            for (Path file : files) {
+                builder.append(file).append('=');
+                if (Files.exists(file)) {
+                    builder.append(Files.size(file)).append('@').append(Files.getLastModifiedTime(file).toMillis());
+                } else {
+                    builder.append('-');
+                }
+                builder.append(';');
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to read datastore details", e);
+        }
+        return new FossDatastoreVersion(builder.toString());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof FossDatastoreVersion && version.equals(((FossDatastoreVersion) other).version);
+    }
+
+    @Override
+    public int hashCode() {
+        return version.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return version;
+    }
+}
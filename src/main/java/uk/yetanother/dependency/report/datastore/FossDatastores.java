@@ -0,0 +1,99 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Chooses the FOSS datastore implementation for a goal from its datastoreType and datastoreDirectory parameters.
+ * <ul>
+ * <li>{@value #FILE_TYPE}, the default, holds the datastore next to the plugin JAR using
+ * {@link IndexedFileFossDatastore}, or as snapshots in the datastore directory using {@link SnapshotFossDatastore}.</li>
+ * <li>{@value #SQL_TYPE} holds the datastore in an embedded database using {@link SqlFossDatastore}, in the datastore
+ * directory or next to the plugin JAR.</li>
+ * </ul>
+ */
+public final class FossDatastores {
+
+    public static final String FILE_TYPE = "file";
+    public static final String SQL_TYPE = "sql";
+
+    private FossDatastores() {
+    }
+
+    /**
+     * Open the datastore.
+     *
+     * @param logger             the logger
+     * @param datastoreType      the type of datastore, {@value #FILE_TYPE} or {@value #SQL_TYPE}
+     * @param datastoreDirectory the configured datastore directory, or null to use the datastore next to the plugin
+     * @return the datastore
+     * @throws MojoExecutionException if the type is not known or the datastore cannot be opened
+     */
+    public static IFossDatastore open(Log logger, String datastoreType, File datastoreDirectory) throws MojoExecutionException {
+        return open(logger, datastoreType, datastoreDirectory, null);
+    }
+
+    /**
+     * Open the datastore, writing its CSV file with the given codec. Only the {@value #FILE_TYPE} datastore next to
+     * the plugin holds a CSV file, the others hold memory mapped or database files that are never compressed.
+     *
+     * @param logger               the logger
+     * @param datastoreType        the type of datastore, {@value #FILE_TYPE} or {@value #SQL_TYPE}
+     * @param datastoreDirectory   the configured datastore directory, or null to use the datastore next to the plugin
+     * @param datastoreCompression the codec the CSV file is written with, or null to keep the codec it already has
+     * @return the datastore
+     * @throws MojoExecutionException if the type is not known or the datastore cannot be opened
+     */
+    public static IFossDatastore open(Log logger, String datastoreType, File datastoreDirectory, Compression datastoreCompression) throws MojoExecutionException {
+        boolean sqlType = isSqlType(datastoreType);
+        if (datastoreCompression != null && datastoreCompression != Compression.NONE && (sqlType || datastoreDirectory != null)) {
+            logger.warn("datastoreCompression only applies to the file datastore next to the plugin, the datastore is not compressed");
+        }
+        if (sqlType) {
+            return new SqlFossDatastore(logger, getDirectory(datastoreDirectory));
+        }
+        if (datastoreDirectory == null) {
+            return new IndexedFileFossDatastore(logger, datastoreCompression);
+        }
+        return new SnapshotFossDatastore(logger, datastoreDirectory.toPath());
+    }
+
+    /**
+     * Get the current version of the datastore, this changes whenever the datastore is created, updated, compacted or
+     * cleared.
+     *
+     * @param datastoreType      the type of datastore, {@value #FILE_TYPE} or {@value #SQL_TYPE}
+     * @param datastoreDirectory the configured datastore directory, or null to use the datastore next to the plugin
+     * @return the version
+     * @throws MojoExecutionException if the type is not known or the datastore details cannot be read
+     */
+    public static FossDatastoreVersion getDatastoreVersion(String datastoreType, File datastoreDirectory) throws MojoExecutionException {
+        if (isSqlType(datastoreType)) {
+            return SqlFossDatastore.getDatastoreVersion(getDirectory(datastoreDirectory));
+        }
+        if (datastoreDirectory == null) {
+            return InternalFileFossDatastore.getDatastoreVersion();
+        }
+        return SnapshotFossDatastore.getDatastoreVersion(datastoreDirectory.toPath());
+    }
+
+    private static boolean isSqlType(String datastoreType) throws MojoExecutionException {
+        String type = datastoreType == null ? FILE_TYPE : datastoreType.trim().toLowerCase(Locale.ROOT);
+        if (SQL_TYPE.equals(type)) {
+            return true;
+        }
+        if (FILE_TYPE.equals(type)) {
+            return false;
+        }
+        throw new MojoExecutionException(String.format("Unknown datastore type '%s', the types available are %s and %s", datastoreType, FILE_TYPE, SQL_TYPE));
+    }
+
+    private static Path getDirectory(File datastoreDirectory) throws MojoExecutionException {
+        return datastoreDirectory == null ? InternalFileFossDatastore.getDatastoreLocation().getParent() : datastoreDirectory.toPath();
+    }
+}
@@ -0,0 +1,514 @@
+package uk.yetanother.dependency.report.datastore;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A memory mapped binary index of datastore rows. Mapping the index only reads its headings, rows are decoded when
+ * they are looked up. The index records the size and modification time of the file it was built from, so an index of
+ * a file that has since changed can be detected.
+ *
+ * <p>A single mapping cannot be larger than 2 GiB, so the index is mapped as a run of segments of
+ * 2<sup>segmentShift</sup> bytes and every offset is a long. No record or offset crosses the end of a segment, a record
+ * that would is moved to the start of the next segment and the gap left is zero filled, so each read stays within the
+ * one mapped segment.
+ *
+ * <p>Layout, all numbers big endian:
+ * <pre>
+ * int magic, int version, int segmentShift, long sourceSize, long sourceLastModified, int rowCount, long tableOffset,
+ * int ruleCount, int headingCount, string[headingCount] headings,
+ * record[rowCount] records (string id, int attributeCount, string[attributeCount] attributes),
+ * long[rowCount] record offsets sorted by the UTF-8 bytes of the id, starting on a multiple of 8,
+ * long[ruleCount] record offsets of the rows that are {@link FossRuleIndex} rules
+ * </pre>
+ * Strings are stored as an int byte length, or -1 for null, followed by the UTF-8 bytes. The rule offsets let the rules
+ * be loaded when the index is mapped without reading every record.
+ */
+final class FossIndexFile {
+
+    static final int DEFAULT_SEGMENT_SHIFT = 30;
+    private static final int MIN_SEGMENT_SHIFT = 8;
+    private static final int MAGIC = 0x46535849;
+    private static final int VERSION = 3;
+    private static final int ROW_COUNT_POSITION = 28;
+    private static final int HEADINGS_POSITION = 44;
+    private static final int PADDING_SIZE = 64 * 1024;
+
+    private final MappedByteBuffer[] segments;
+    private final int segmentShift;
+    private final long segmentMask;
+    private final long sourceSize;
+    private final long sourceLastModified;
+    private final int rowCount;
+    private final long tableOffset;
+    private final int ruleCount;
+    private final String[] headings;
+
+    private FossIndexFile(MappedByteBuffer[] segments, int segmentShift, long sourceSize, long sourceLastModified, int rowCount, long tableOffset, int ruleCount, String[] headings) {
+        this.segments = segments;
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1L << segmentShift) - 1;
+        this.sourceSize = sourceSize;
+        this.sourceLastModified = sourceLastModified;
+        this.rowCount = rowCount;
+        this.tableOffset = tableOffset;
+        this.ruleCount = ruleCount;
+        this.headings = headings;
+    }
+
+    /**
+     * Map an existing index.
+     *
+     * @param file the index file
+     * @return the index, or null if the file does not exist or is not a valid index
+     * @throws IOException if the file cannot be read
+     */
+    static FossIndexFile map(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        MappedByteBuffer[] segments;
+        int segmentShift;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADINGS_POSITION) {
+                return null;
+            }
+            ByteBuffer start = ByteBuffer.allocate(3 * Integer.BYTES);
+            while (start.hasRemaining()) {
+                if (channel.read(start, start.position()) < 0) {
+                    return null;
+                }
+            }
+            segmentShift = start.getInt(8);
+            if (start.getInt(0) != MAGIC || start.getInt(4) != VERSION || segmentShift < MIN_SEGMENT_SHIFT || segmentShift > DEFAULT_SEGMENT_SHIFT) {
+                return null;
+            }
+
+            long segmentSize = 1L << segmentShift;
+            segments = new MappedByteBuffer[(int) ((size + segmentSize - 1) >>> segmentShift)];
+            for (int i = 0; i < segments.length; i++) {
+                long position = (long) i << segmentShift;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segmentSize, size - position));
+            }
+        }
+
+        ByteBuffer view = segments[0].duplicate();
+        view.position(3 * Integer.BYTES);
+        long sourceSize = view.getLong();
+        long sourceLastModified = view.getLong();
+        int rowCount = view.getInt();
+        long tableOffset = view.getLong();
+        int ruleCount = view.getInt();
+        String[] headings = new String[view.getInt()];
+        for (int i = 0; i < headings.length; i++) {
+            headings[i] = readString(view);
+        }
+        return new FossIndexFile(segments, segmentShift, sourceSize, sourceLastModified, rowCount, tableOffset, ruleCount, headings);
+    }
+
+    /**
+     * Write a new index of the rows, mapped in segments of the default size.
+     *
+     * @param file               the index file to write
+     * @param headings           the additional attribute headings
+     * @param rows               the rows, each the FOSS item id followed by its attributes
+     * @param sourceSize         the size of the file the rows were read from
+     * @param sourceLastModified the modification time of the file the rows were read from
+     * @throws IOException if the rows cannot be read or the index cannot be written
+     * @see #write(Path, String[], FossRowSource, long, long, int)
+     */
+    static void write(Path file, String[] headings, FossRowSource rows, long sourceSize, long sourceLastModified) throws IOException {
+        write(file, headings, rows, sourceSize, sourceLastModified, DEFAULT_SEGMENT_SHIFT);
+    }
+
+    /**
+     * Write a new index of the rows. A repeated id replaces the earlier row, the same as loading the rows into a map.
+     *
+     * @param file               the index file to write
+     * @param headings           the additional attribute headings
+     * @param rows               the rows, each the FOSS item id followed by its attributes
+     * @param sourceSize         the size of the file the rows were read from
+     * @param sourceLastModified the modification time of the file the rows were read from
+     * @param segmentShift       the size of each mapped segment as a power of two
+     * @throws IOException if the rows cannot be read or the index cannot be written
+     */
+    static void write(Path file, String[] headings, FossRowSource rows, long sourceSize, long sourceLastModified, int segmentShift) throws IOException {
+        if (segmentShift < MIN_SEGMENT_SHIFT || segmentShift > DEFAULT_SEGMENT_SHIFT) {
+            throw new IllegalArgumentException("The segment shift must be between " + MIN_SEGMENT_SHIFT + " and " + DEFAULT_SEGMENT_SHIFT);
+        }
+        long segmentSize = 1L << segmentShift;
+        Map<String, Long> recordOffsets = new HashMap<>();
+        long indexTableOffset;
+        int indexRuleCount = 0;
+        try (IndexOutput out = new IndexOutput(file, segmentSize)) {
+            DataOutputStream header = out.startRecord();
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(segmentShift);
+            header.writeLong(sourceSize);
+            header.writeLong(sourceLastModified);
+            header.writeInt(0);
+            header.writeLong(0L);
+            header.writeInt(0);
+            header.writeInt(headings.length);
+            for (String heading : headings) {
+                writeString(header, heading);
+            }
+            if (out.endRecord() != 0) {
+                throw new IOException("The Foss Datastore headings do not fit in the first segment of the index");
+            }
+
+            String[] line;
+            while ((line = rows.readRow()) != null) {
+                DataOutputStream recordOut = out.startRecord();
+                writeString(recordOut, line[0]);
+                recordOut.writeInt(line.length - 1);
+                for (int i = 1; i < line.length; i++) {
+                    writeString(recordOut, line[i]);
+                }
+                recordOffsets.put(line[0], out.endRecord());
+            }
+
+            List<IndexEntry> entries = new ArrayList<>(recordOffsets.size());
+            for (Map.Entry<String, Long> recordOffset : recordOffsets.entrySet()) {
+                entries.add(new IndexEntry(recordOffset.getKey().getBytes(StandardCharsets.UTF_8), recordOffset.getValue()));
+            }
+            entries.sort((left, right) -> compareUnsigned(left.id, right.id));
+
+            // Starting the table on a multiple of 8 keeps every offset within one segment.
+            indexTableOffset = out.pad(-out.getPosition() & (Long.BYTES - 1));
+            for (IndexEntry entry : entries) {
+                out.writeLong(entry.recordOffset);
+            }
+            for (Map.Entry<String, Long> recordOffset : recordOffsets.entrySet()) {
+                if (FossRuleIndex.isRule(recordOffset.getKey())) {
+                    out.writeLong(recordOffset.getValue());
+                    indexRuleCount++;
+                }
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer counts = ByteBuffer.allocate(Integer.BYTES + Long.BYTES + Integer.BYTES);
+            counts.putInt(recordOffsets.size()).putLong(indexTableOffset).putInt(indexRuleCount);
+            counts.flip();
+            channel.write(counts, ROW_COUNT_POSITION);
+        }
+    }
+
+    /**
+     * Whether the index was built from a file with the given size and modification time.
+     *
+     * @param size         the size of the file
+     * @param lastModified the modification time of the file
+     * @return true if the index matches the file
+     */
+    boolean isBuiltFrom(long size, long lastModified) {
+        return sourceSize == size && sourceLastModified == lastModified;
+    }
+
+    String[] getHeadings() {
+        return headings;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Look up the attributes of a FOSS item.
+     *
+     * @param fossId the FOSS item id
+     * @return the attributes, or null if the index does not hold the item
+     */
+    String[] find(String fossId) {
+        long recordOffset = findRecord(fossId.getBytes(StandardCharsets.UTF_8));
+        if (recordOffset < 0) {
+            return null;
+        }
+
+        ByteBuffer view = viewAt(recordOffset);
+        readString(view);
+        return readAttributes(view);
+    }
+
+    /**
+     * Look up the attributes of many FOSS items in one pass. The ids are sorted into the order of the index and each
+     * search starts from where the previous one finished, so the index is read from start to end once rather than
+     * searched from the top for every id.
+     *
+     * @param fossIds the FOSS item ids
+     * @return the attributes of the FOSS items the index holds, keyed by id, items it does not hold are left out
+     */
+    Map<String, String[]> findAll(Collection<String> fossIds) {
+        List<Lookup> lookups = new ArrayList<>(fossIds.size());
+        for (String fossId : fossIds) {
+            lookups.add(new Lookup(fossId));
+        }
+        lookups.sort((left, right) -> compareUnsigned(left.id, right.id));
+
+        Map<String, String[]> found = new HashMap<>(fossIds.size() * 2);
+        int low = 0;
+        for (Lookup lookup : lookups) {
+            // Gallop forward from the previous position, then search the range the id must be in.
+            int step = 1;
+            while (low + step - 1 < rowCount && compareId(recordOffsetAt(low + step - 1), lookup.id) < 0) {
+                step <<= 1;
+            }
+            int high = Math.min(low + step - 1, rowCount - 1);
+            low += step >>> 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = compareId(recordOffsetAt(middle), lookup.id);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    // The record starts with the id just matched, skip straight to the attributes.
+                    found.put(lookup.fossId, readAttributes(viewAt(recordOffsetAt(middle) + Integer.BYTES + lookup.id.length)));
+                    low = middle + 1;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    boolean contains(String fossId) {
+        return findRecord(fossId.getBytes(StandardCharsets.UTF_8)) >= 0;
+    }
+
+    /**
+     * Read every row of the index in id order, each row being the FOSS item id followed by its attributes.
+     *
+     * @return the rows
+     */
+    FossRowSource rows() {
+        return readRecords(tableOffset, rowCount);
+    }
+
+    /**
+     * Load the rows of the index that are {@link FossRuleIndex} rules, only the rule records are read.
+     *
+     * @return the rules
+     * @throws IOException if the rules cannot be read
+     */
+    FossRuleIndex loadRules() throws IOException {
+        FossRuleIndex rules = new FossRuleIndex();
+        FossRowSource ruleRows = readRecords(tableOffset + (long) rowCount * Long.BYTES, ruleCount);
+        String[] line;
+        while ((line = ruleRows.readRow()) != null) {
+            rules.put(line[0], Arrays.copyOfRange(line, 1, line.length));
+        }
+        return rules;
+    }
+
+    private FossRowSource readRecords(long offsetsPosition, int count) {
+        int[] next = {0};
+        return () -> {
+            if (next[0] >= count) {
+                return null;
+            }
+            ByteBuffer view = viewAt(getLong(offsetsPosition + (long) next[0]++ * Long.BYTES));
+            String id = readString(view);
+            String[] attributes = readAttributes(view);
+            String[] row = new String[attributes.length + 1];
+            row[0] = id;
+            System.arraycopy(attributes, 0, row, 1, attributes.length);
+            return row;
+        };
+    }
+
+    private ByteBuffer viewAt(long offset) {
+        ByteBuffer view = segments[(int) (offset >>> segmentShift)].duplicate();
+        view.position((int) (offset & segmentMask));
+        return view;
+    }
+
+    private long getLong(long offset) {
+        return segments[(int) (offset >>> segmentShift)].getLong((int) (offset & segmentMask));
+    }
+
+    private long recordOffsetAt(int position) {
+        return getLong(tableOffset + (long) position * Long.BYTES);
+    }
+
+    private long findRecord(byte[] id) {
+        int low = 0;
+        int high = rowCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long recordOffset = recordOffsetAt(middle);
+            int comparison = compareId(recordOffset, id);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return recordOffset;
+            }
+        }
+        return -1;
+    }
+
+    private int compareId(long recordOffset, byte[] id) {
+        MappedByteBuffer segment = segments[(int) (recordOffset >>> segmentShift)];
+        int position = (int) (recordOffset & segmentMask);
+        int length = segment.getInt(position);
+        int start = position + Integer.BYTES;
+        int common = Math.min(length, id.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = (segment.get(start + i) & 0xFF) - (id[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return length - id.length;
+    }
+
+    private static String[] readAttributes(ByteBuffer view) {
+        String[] attributes = new String[view.getInt()];
+        for (int i = 0; i < attributes.length; i++) {
+            attributes[i] = readString(view);
+        }
+        return attributes;
+    }
+
+    private static int compareUnsigned(byte[] left, byte[] right) {
+        int common = Math.min(left.length, right.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = (left[i] & 0xFF) - (right[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return left.length - right.length;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer view) {
+        int length = view.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the index keeping a long position, moving any record that would cross the end of a segment to the start
+     * of the next one.
+     */
+    private static class IndexOutput implements AutoCloseable {
+
+        private final DataOutputStream out;
+        private final long segmentSize;
+        private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        private final DataOutputStream recordOut = new DataOutputStream(recordBytes);
+        private long position;
+
+        IndexOutput(Path file, long segmentSize) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+            this.segmentSize = segmentSize;
+        }
+
+        long getPosition() {
+            return position;
+        }
+
+        DataOutputStream startRecord() {
+            recordBytes.reset();
+            return recordOut;
+        }
+
+        /**
+         * Write the record started by {@link #startRecord()}.
+         *
+         * @return the offset the record was written at
+         * @throws IOException if the record is larger than a segment or cannot be written
+         */
+        long endRecord() throws IOException {
+            int size = recordBytes.size();
+            if (size > segmentSize) {
+                throw new IOException("A row of the Foss Datastore is too large to be indexed");
+            }
+            long used = position & (segmentSize - 1);
+            if (used + size > segmentSize) {
+                pad(segmentSize - used);
+            }
+            long offset = position;
+            recordBytes.writeTo(out);
+            position += size;
+            return offset;
+        }
+
+        void writeLong(long value) throws IOException {
+            out.writeLong(value);
+            position += Long.BYTES;
+        }
+
+        long pad(long length) throws IOException {
+            byte[] zeros = new byte[(int) Math.min(length, PADDING_SIZE)];
+            for (long remaining = length; remaining > 0; remaining -= zeros.length) {
+                out.write(zeros, 0, (int) Math.min(remaining, zeros.length));
+            }
+            position += length;
+            return position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static class IndexEntry {
+
+        private final byte[] id;
+        private final long recordOffset;
+
+        IndexEntry(byte[] id, long recordOffset) {
+            this.id = id;
+            this.recordOffset = recordOffset;
+        }
+    }
+
+    private static class Lookup {
+
+        private final String fossId;
+        private final byte[] id;
+
+        Lookup(String fossId) {
+            this.fossId = fossId;
+            this.id = fossId.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
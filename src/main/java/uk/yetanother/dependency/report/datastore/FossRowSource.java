@@ -0,0 +1,17 @@
+package uk.yetanother.dependency.report.datastore;
+
+import java.io.IOException;
+
+/**
+ * A source of datastore rows that are read one at a time, each row being the FOSS item id followed by its attributes.
+ */
+interface FossRowSource {
+
+    /**
+     * Read the next row.
+     *
+     * @return the next row, or null once there are no more rows
+     * @throws IOException if the row cannot be read
+     */
+    String[] readRow() throws IOException;
+}
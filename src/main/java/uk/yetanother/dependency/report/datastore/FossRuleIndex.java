@@ -0,0 +1,238 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.Restriction;
+import org.apache.maven.artifact.versioning.VersionRange;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Datastore rows that apply to many FOSS items rather than a single one. A row is a rule when its id has fewer parts
+ * than a FOSS item id, which is always {@code groupId:artifactId:type[:classifier]:version}:
+ * <ul>
+ * <li>{@code groupId} applies to every artifact in the group.</li>
+ * <li>{@code groupId.*} applies to every artifact in the group and any group below it.</li>
+ * <li>{@code groupId:artifactId} applies to every version of the artifact.</li>
+ * <li>{@code groupId:artifactId:range} applies to the versions of the artifact within a Maven version range such as
+ * {@code [1.0,2.0)}, a single version matches only that version.</li>
+ * </ul>
+ * When several rules match, the most specific applies: a version range over the whole artifact, the whole artifact over
+ * its group, and a group over the groups above it. If several version ranges match, the one with the highest lower
+ * bound applies. Rows for a single FOSS item always take precedence over rules, the datastores look those up first.
+ *
+ * <p>Group rules are held in a trie of the dot separated group segments and artifact rules in a map, so finding the
+ * rule for a FOSS item takes one map lookup and a walk of the group segments.
+ */
+final class FossRuleIndex {
+
+    private static final String GROUP_WILDCARD = ".*";
+
+    private final GroupNode groups = new GroupNode();
+    private final Map<String, ArtifactRules> artifacts = new HashMap<>();
+    private int size;
+
+    /**
+     * Whether a datastore row id is a rule rather than the id of a single FOSS item.
+     *
+     * @param id the row id
+     * @return true if the id is a rule
+     */
+    static boolean isRule(String id) {
+        int colons = 0;
+        for (int i = 0; i < id.length(); i++) {
+            if (id.charAt(i) == ':' && ++colons > 2) {
+                return false;
+            }
+        }
+        return !id.isEmpty();
+    }
+
+    /**
+     * Add a rule, replacing any rule with the same id.
+     *
+     * @param ruleId     the rule id, see {@link #isRule(String)}
+     * @param attributes the attributes of the FOSS items the rule matches
+     * @return false if the id is not a valid rule, in which case it is ignored
+     */
+    boolean put(String ruleId, String[] attributes) {
+        String[] parts = ruleId.split(":", -1);
+        boolean added;
+        if (parts.length == 1) {
+            added = putGroup(parts[0], attributes);
+        } else if (parts.length == 2) {
+            added = artifacts.computeIfAbsent(ruleId, key -> new ArtifactRules()).putAll(attributes);
+        } else {
+            VersionRule versionRule = VersionRule.parse(ruleId, parts[2], attributes);
+            if (versionRule == null) {
+                return false;
+            }
+            added = artifacts.computeIfAbsent(parts[0] + ':' + parts[1], key -> new ArtifactRules()).putRange(versionRule);
+        }
+        if (added) {
+            size++;
+        }
+        return true;
+    }
+
+    /**
+     * Find the attributes of the most specific rule matching a FOSS item.
+     *
+     * @param fossId the FOSS item id
+     * @return the attributes, or null if no rule matches
+     */
+    String[] find(String fossId) {
+        if (size == 0) {
+            return null;
+        }
+        String[] attributes = findRule(fossId);
+        return attributes != null ? attributes.clone() : null;
+    }
+
+    private String[] findRule(String fossId) {
+        int groupEnd = fossId.indexOf(':');
+        if (groupEnd <= 0) {
+            return null;
+        }
+        int artifactEnd = fossId.indexOf(':', groupEnd + 1);
+        if (artifactEnd > 0 && !artifacts.isEmpty()) {
+            ArtifactRules artifactRules = artifacts.get(fossId.substring(0, artifactEnd));
+            if (artifactRules != null) {
+                String[] attributes = artifactRules.find(fossId.substring(fossId.lastIndexOf(':') + 1));
+                if (attributes != null) {
+                    return attributes;
+                }
+            }
+        }
+        return groups.find(fossId, groupEnd);
+    }
+
+    int size() {
+        return size;
+    }
+
+    private boolean putGroup(String group, String[] attributes) {
+        boolean wildcard = group.endsWith(GROUP_WILDCARD);
+        GroupNode node = groups;
+        for (String segment : (wildcard ? group.substring(0, group.length() - GROUP_WILDCARD.length()) : group).split("\\.")) {
+            node = node.children.computeIfAbsent(segment, key -> new GroupNode());
+        }
+        String[] previous;
+        if (wildcard) {
+            previous = node.wildcardAttributes;
+            node.wildcardAttributes = attributes;
+        } else {
+            previous = node.groupAttributes;
+            node.groupAttributes = attributes;
+        }
+        return previous == null;
+    }
+
+    private static class GroupNode {
+
+        private final Map<String, GroupNode> children = new HashMap<>(4);
+        private String[] groupAttributes;
+        private String[] wildcardAttributes;
+
+        String[] find(String fossId, int groupEnd) {
+            GroupNode node = this;
+            String[] deepestWildcard = null;
+            int start = 0;
+            while (start <= groupEnd) {
+                int end = fossId.indexOf('.', start);
+                if (end < 0 || end > groupEnd) {
+                    end = groupEnd;
+                }
+                node = node.children.get(fossId.substring(start, end));
+                if (node == null) {
+                    return deepestWildcard;
+                }
+                if (node.wildcardAttributes != null) {
+                    deepestWildcard = node.wildcardAttributes;
+                }
+                start = end + 1;
+            }
+            return node.groupAttributes != null ? node.groupAttributes : deepestWildcard;
+        }
+    }
+
+    private static class ArtifactRules {
+
+        private final List<VersionRule> ranges = new ArrayList<>(1);
+        private String[] allVersionsAttributes;
+
+        boolean putAll(String[] attributes) {
+            boolean added = allVersionsAttributes == null;
+            allVersionsAttributes = attributes;
+            return added;
+        }
+
+        boolean putRange(VersionRule versionRule) {
+            boolean replaced = ranges.removeIf(existing -> existing.ruleId.equals(versionRule.ruleId));
+            int position = 0;
+            while (position < ranges.size() && ranges.get(position).compareLowerBound(versionRule) >= 0) {
+                position++;
+            }
+            ranges.add(position, versionRule);
+            return !replaced;
+        }
+
+        String[] find(String version) {
+            if (!ranges.isEmpty()) {
+                ArtifactVersion artifactVersion = new DefaultArtifactVersion(version);
+                for (VersionRule range : ranges) {
+                    if (range.range.containsVersion(artifactVersion)) {
+                        return range.attributes;
+                    }
+                }
+            }
+            return allVersionsAttributes;
+        }
+    }
+
+    private static class VersionRule {
+
+        private final String ruleId;
+        private final VersionRange range;
+        private final ArtifactVersion lowerBound;
+        private final String[] attributes;
+
+        private VersionRule(String ruleId, VersionRange range, ArtifactVersion lowerBound, String[] attributes) {
+            this.ruleId = ruleId;
+            this.range = range;
+            this.lowerBound = lowerBound;
+            this.attributes = attributes;
+        }
+
+        static VersionRule parse(String ruleId, String versionSpec, String[] attributes) {
+            String spec = versionSpec.startsWith("[") || versionSpec.startsWith("(") ? versionSpec : "[" + versionSpec + "]";
+            try {
+                VersionRange range = VersionRange.createFromVersionSpec(spec);
+                ArtifactVersion lowerBound = null;
+                for (Restriction restriction : range.getRestrictions()) {
+                    if (restriction.getLowerBound() == null) {
+                        lowerBound = null;
+                        break;
+                    }
+                    if (lowerBound == null || restriction.getLowerBound().compareTo(lowerBound) < 0) {
+                        lowerBound = restriction.getLowerBound();
+                    }
+                }
+                return new VersionRule(ruleId, range, lowerBound, attributes);
+            } catch (InvalidVersionSpecificationException e) {
+                return null;
+            }
+        }
+
+        int compareLowerBound(VersionRule other) {
+            if (lowerBound == null || other.lowerBound == null) {
+                return lowerBound == null ? (other.lowerBound == null ? 0 : -1) : 1;
+            }
+            return lowerBound.compareTo(other.lowerBound);
+        }
+    }
+}
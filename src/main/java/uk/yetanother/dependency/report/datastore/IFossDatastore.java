@@ -3,6 +3,9 @@ package uk.yetanother.dependency.report.datastore;
 import org.apache.maven.plugin.MojoExecutionException;
 
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * The interface FOSS datastore. This allows for the actual storage medium to be abstracted away and changed
@@ -23,8 +26,26 @@ public interface IFossDatastore {
      * @param fossId the FOSS item id
      * @return the string [ ] returns the additional attributes in the same order as the additional headings or
      * an array of null strings if the datastore does not have any more details for this FOSS item.
+     * @throws MojoExecutionException if the datastore cannot be read
      */
-    String[] getAdditionalAttributesForFossItem(String fossId);
+    String[] getAdditionalAttributesForFossItem(String fossId) throws MojoExecutionException;
+
+    /**
+     * Get additional attributes for many FOSS items at once. Datastores backed by an ordered index look all the ids up
+     * in a single pass over the index rather than searching it once for each id.
+     *
+     * @param fossIds the FOSS item ids
+     * @return the additional attributes of every FOSS item keyed by its id, each in the same form as returned by
+     * {@link #getAdditionalAttributesForFossItem(String)}
+     * @throws MojoExecutionException if the datastore cannot be read
+     */
+    default Map<String, String[]> getAdditionalAttributesForFossItems(Collection<String> fossIds) throws MojoExecutionException {
+        Map<String, String[]> attributes = new HashMap<>(fossIds.size() * 2);
+        for (String fossId : fossIds) {
+            attributes.put(fossId, getAdditionalAttributesForFossItem(fossId));
+        }
+        return attributes;
+    }
 
     /**
      * Creates the datastore using the data in the provided datafile. If a datastore already exists it will be replaced.
@@ -41,6 +62,13 @@ public interface IFossDatastore {
      */
     void updateDatastore(Path fileToLoad, boolean overrideExisting) throws MojoExecutionException;
 
+    /**
+     * Compacts the datastore, folding any updates held separately from the main datastore back into it. Datastores
+     * that apply updates in place do not need to do anything.
+     */
+    default void compactDatastore() throws MojoExecutionException {
+    }
+
     /**
      * Clears the datastore, completely removing any additional data the plugin held.
      *
@@ -55,4 +83,11 @@ public interface IFossDatastore {
      */
     boolean isDatastoreEmpty();
 
+    /**
+     * Get the number of FOSS items held in the datastore, including items added by updates.
+     *
+     * @return the number of FOSS items
+     */
+    long getFossItemCount();
+
 }
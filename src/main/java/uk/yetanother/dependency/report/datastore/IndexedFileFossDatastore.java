@@ -0,0 +1,239 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The FOSS Datastore implementation that reads additional attributes through a memory mapped binary index of the CSV
+ * datastore. Opening the datastore only maps the index, rows are decoded when they are looked up. The CSV file held by
+ * {@link InternalFileFossDatastore} remains the master copy, the index is rebuilt from it automatically whenever it is
+ * missing or the CSV file has changed since it was built. Updates are appended to the datastore's delta log and held
+ * in memory on top of the index, so the index only has to be rebuilt once the datastore is compacted.
+ *
+ * <p>The index is held in the {@link FossIndexFile} format. The index is never compressed, so it can still be memory
+ * mapped when the CSV file is.
+ */
+public class IndexedFileFossDatastore implements IFossDatastore {
+
+    static final String INDEX_FILENAME = "fossAdditionalAttributes.idx";
+
+    private static final String[] NO_HEADINGS = new String[0];
+
+    private final Log logger;
+    private final Path datastoreLocation;
+    private final Path indexLocation;
+    private final Compression compression;
+    private FossAttributeTable updates = new FossAttributeTable(false);
+    private FossRuleIndex rules = new FossRuleIndex();
+
+    private FossIndexFile index;
+    private String[] headings = NO_HEADINGS;
+    private int addedItemCount;
+    private FossDatastoreVersion loadedVersion;
+
+    /**
+     * Instantiates a new Indexed file FOSS datastore. If the index is missing or out of date it is rebuilt from the CSV
+     * datastore first, otherwise opening only maps the existing index.
+     *
+     * @param logger the logger
+     */
+    public IndexedFileFossDatastore(Log logger) throws MojoExecutionException {
+        this(logger, null);
+    }
+
+    /**
+     * Instantiates a new Indexed file FOSS datastore whose CSV file is written with the given codec.
+     *
+     * @param logger      the logger
+     * @param compression the codec the CSV file is written with, or null to keep the codec it already has
+     */
+    public IndexedFileFossDatastore(Log logger, Compression compression) throws MojoExecutionException {
+        datastoreLocation = InternalFileFossDatastore.getDatastoreLocation();
+        this.logger = logger;
+        this.compression = compression;
+        this.indexLocation = datastoreLocation.resolveSibling(INDEX_FILENAME);
+        logger.info("Foss Datastore index located at " + indexLocation);
+        open();
+    }
+
+    @Override
+    public String[] getAdditionalAttributeHeadings() {
+        return headings;
+    }
+
+    @Override
+    public String[] getAdditionalAttributesForFossItem(String fossId) {
+        String[] updated = updates.get(fossId);
+        if (updated != null) {
+            return updated;
+        }
+
+        String[] attributes = index == null ? null : index.find(fossId);
+        if (attributes == null) {
+            attributes = rules.find(fossId);
+        }
+        return attributes != null ? attributes : new String[headings.length];
+    }
+
+    @Override
+    public Map<String, String[]> getAdditionalAttributesForFossItems(Collection<String> fossIds) {
+        Map<String, String[]> attributes = index == null ? new HashMap<>() : index.findAll(fossIds);
+        for (String fossId : fossIds) {
+            String[] updated = updates.get(fossId);
+            if (updated != null) {
+                attributes.put(fossId, updated);
+            } else if (!attributes.containsKey(fossId)) {
+                String[] ruleAttributes = rules.find(fossId);
+                attributes.put(fossId, ruleAttributes != null ? ruleAttributes : new String[headings.length]);
+            }
+        }
+        return attributes;
+    }
+
+    @Override
+    public void createDatastore(Path fileToLoad) throws MojoExecutionException {
+        try (FossDatastoreLock lock = FossDatastoreLock.exclusive(datastoreLocation)) {
+            // The index is rebuilt from the new datastore file, so the rows do not need to be held while it is written.
+            InternalFileFossDatastore.createDatastoreFile(fileToLoad, datastoreLocation, compression, line -> { });
+            close();
+            open();
+        }
+    }
+
+    @Override
+    public void updateDatastore(Path fileToLoad, boolean overrideExisting) throws MojoExecutionException {
+        try (FossDatastoreLock lock = FossDatastoreLock.exclusive(datastoreLocation)) {
+            // Another execution may have changed the datastore since it was opened, the checks below must see its rows.
+            if (!InternalFileFossDatastore.getDatastoreVersion().equals(loadedVersion)) {
+                close();
+                open();
+            }
+
+            // If the datastore is empty just redirect to the create process.
+            if (isDatastoreEmpty()) {
+                createDatastore(fileToLoad);
+                return;
+            }
+
+            InternalFileFossDatastore.appendDatafile(logger, fileToLoad, datastoreLocation, headings, overrideExisting, this::containsFossItem, this::applyUpdate);
+            loadedVersion = InternalFileFossDatastore.getDatastoreVersion();
+        }
+    }
+
+    @Override
+    public void compactDatastore() throws MojoExecutionException {
+        try (FossDatastoreLock lock = FossDatastoreLock.exclusive(datastoreLocation)) {
+            // Compacting loads the whole datastore, so its attributes are held off the heap Maven is using.
+            new InternalFileFossDatastore(logger, true, compression).compactDatastore();
+            close();
+            open();
+        }
+    }
+
+    @Override
+    public boolean clearDatastore() throws MojoExecutionException {
+        close();
+        try (FossDatastoreLock lock = FossDatastoreLock.exclusive(datastoreLocation)) {
+            FossDatastoreDeltaLog.delete(datastoreLocation);
+            Files.deleteIfExists(indexLocation);
+            boolean result = Files.deleteIfExists(datastoreLocation);
+            loadedVersion = InternalFileFossDatastore.getDatastoreVersion();
+            return result;
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to delete datastore", e);
+        }
+    }
+
+    @Override
+    public boolean isDatastoreEmpty() {
+        return getRowCount() == 0 && updates.isEmpty();
+    }
+
+    @Override
+    public long getFossItemCount() {
+        return (long) getRowCount() + addedItemCount;
+    }
+
+    private boolean containsFossItem(String fossId) {
+        return updates.contains(fossId) || (index != null && index.contains(fossId));
+    }
+
+    private int getRowCount() {
+        return index == null ? 0 : index.getRowCount();
+    }
+
+    private void applyUpdate(String[] line) {
+        String[] attributes = Arrays.copyOfRange(line, 1, line.length);
+        if (updates.put(line[0], attributes)
+                && (index == null || !index.contains(line[0]))) {
+            addedItemCount++;
+        }
+        if (FossRuleIndex.isRule(line[0])) {
+            rules.put(line[0], attributes);
+        }
+    }
+
+    private void close() {
+        index = null;
+        updates = new FossAttributeTable(false);
+        rules = new FossRuleIndex();
+        headings = NO_HEADINGS;
+        addedItemCount = 0;
+    }
+
+    private void open() throws MojoExecutionException {
+        try (FossDatastoreLock lock = FossDatastoreLock.shared(datastoreLocation)) {
+            loadedVersion = InternalFileFossDatastore.getDatastoreVersion();
+            if (!Files.exists(datastoreLocation)) {
+                Files.deleteIfExists(indexLocation);
+                return;
+            }
+            long csvSize = Files.size(datastoreLocation);
+            long csvLastModified = Files.getLastModifiedTime(datastoreLocation).toMillis();
+            if (!mapIndex(csvSize, csvLastModified)) {
+                logger.info("Building Foss Datastore index at " + indexLocation);
+                buildIndex(csvSize, csvLastModified);
+                if (!mapIndex(csvSize, csvLastModified)) {
+                    throw new IOException("Index " + indexLocation + " is not valid after being rebuilt");
+                }
+            }
+            if (getRowCount() > 0) {
+                FossDatastoreDeltaLog.read(datastoreLocation, this::applyUpdate);
+            }
+        } catch (IOException e) {
+            close();
+            throw new MojoExecutionException("Unable to read datastore index", e);
+        }
+    }
+
+    private boolean mapIndex(long csvSize, long csvLastModified) throws IOException {
+        FossIndexFile mapped = FossIndexFile.map(indexLocation);
+        if (mapped == null || !mapped.isBuiltFrom(csvSize, csvLastModified)) {
+            return false;
+        }
+
+        index = mapped;
+        headings = mapped.getRowCount() > 0 ? mapped.getHeadings() : NO_HEADINGS;
+        rules = mapped.loadRules();
+        return true;
+    }
+
+    private void buildIndex(long csvSize, long csvLastModified) throws IOException {
+        FossDatastoreFiles.writeAtomically(indexLocation, file -> {
+            try (FossDatafileReader reader = new FossDatafileReader(datastoreLocation)) {
+                FossIndexFile.write(file, reader.getAttributeHeadings(), reader, csvSize, csvLastModified);
+            } catch (MojoExecutionException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        });
+    }
+}
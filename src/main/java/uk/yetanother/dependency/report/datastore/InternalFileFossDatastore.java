@@ -1,34 +1,50 @@
 package uk.yetanother.dependency.report.datastore;
 
-import com.opencsv.CSVReader;
 import com.opencsv.CSVWriter;
-import com.opencsv.exceptions.CsvException;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
+import uk.yetanother.dependency.report.compression.Compression;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
- * The FOSS Datastore implementation that holds the data as a CSV file within the filesystem.
+ * The FOSS Datastore implementation that holds the data as a CSV file within the filesystem. Updates are appended to a
+ * delta log next to the CSV file and merged with it when the datastore is loaded, until the datastore is compacted.
+ * Files are always replaced atomically and changes are made under an exclusive lock, so an interrupted or concurrent
+ * execution cannot leave the datastore corrupted.
+ *
+ * <p>The loaded attributes are held in a {@link FossAttributeTable}, so repeated attribute values are only held once.
+ * Rows whose id is a {@link FossRuleIndex} rule also apply to every FOSS item they match that has no row of its own.
+ *
+ * <p>The CSV file can be compressed with any {@link Compression} codec. It keeps its name, the codec is detected when
+ * it is read and a rewrite keeps the codec the file already has unless another is configured.
  */
 public class InternalFileFossDatastore implements IFossDatastore {
 
     private static final String ID_COL_NAME = "id";
 
     private final Log logger;
-    private final Map<String, String[]> fossAttributes = new HashMap<>();
+    private final boolean offHeapAttributes;
+    private final Compression compression;
+    private FossAttributeTable fossAttributes;
+    private FossRuleIndex fossRules = new FossRuleIndex();
     private final Path datastoreLocation;
     private String[] headings = new String[0];
+    private FossDatastoreVersion loadedVersion;
 
     /**
      * Instantiates a new Internal file FOSS datastore.
@@ -36,12 +52,48 @@ public class InternalFileFossDatastore implements IFossDatastore {
      * @param logger the logger
      */
     public InternalFileFossDatastore(Log logger) throws MojoExecutionException {
+        this(logger, false);
+    }
+
+    /**
+     * Instantiates a new Internal file FOSS datastore.
+     *
+     * @param logger            the logger
+     * @param offHeapAttributes whether the encoded attributes are held outside the Java heap
+     */
+    public InternalFileFossDatastore(Log logger, boolean offHeapAttributes) throws MojoExecutionException {
+        this(logger, offHeapAttributes, null);
+    }
+
+    /**
+     * Instantiates a new Internal file FOSS datastore.
+     *
+     * @param logger            the logger
+     * @param offHeapAttributes whether the encoded attributes are held outside the Java heap
+     * @param compression       the codec the CSV file is written with, or null to keep the codec it already has
+     */
+    public InternalFileFossDatastore(Log logger, boolean offHeapAttributes, Compression compression) throws MojoExecutionException {
         datastoreLocation = getDatastoreLocation();
         logger.info("Foss Datastore located at " + datastoreLocation);
         this.logger = logger;
-        if (Files.exists(datastoreLocation)) {
-            processFossData(loadDatastore(datastoreLocation));
-        }
+        this.offHeapAttributes = offHeapAttributes;
+        this.compression = compression;
+        this.fossAttributes = new FossAttributeTable(offHeapAttributes);
+        open();
+    }
+
+    /**
+     * Get the current version of the datastore files, this changes whenever the datastore is created, updated,
+     * compacted or cleared.
+     *
+     * @return the datastore version
+     */
+    public static FossDatastoreVersion getDatastoreVersion() throws MojoExecutionException {
+        Path location = getDatastoreLocation();
+        List<Path> files = new ArrayList<>();
+        files.add(location);
+        files.addAll(FossDatastoreDeltaLog.getSegments(location));
+        return FossDatastoreVersion.of(files);
     }
 
     public static Path getDatastoreLocation() throws MojoExecutionException {
@@ -56,32 +108,158 @@ public class InternalFileFossDatastore implements IFossDatastore {
         }
     }
 
-    private List<String[]> loadDatastore(Path filePath) throws MojoExecutionException {
-        try (Reader reader = Files.newBufferedReader(filePath); CSVReader csvReader = new CSVReader(reader)) {
-            return csvReader.readAll();
-        } catch (IOException | CsvException e) {
+    private void open() throws MojoExecutionException {
+        try (FossDatastoreLock lock = FossDatastoreLock.shared(datastoreLocation)) {
+            loadedVersion = getDatastoreVersion();
+            if (Files.exists(datastoreLocation)) {
+                loadDatastore();
+                if (!fossAttributes.isEmpty()) {
+                    FossDatastoreDeltaLog.read(datastoreLocation, this::applyFossData);
+                }
+            }
+        }
+    }
+
+    private void close() {
+        headings = new String[0];
+        fossAttributes = new FossAttributeTable(offHeapAttributes);
+        fossRules = new FossRuleIndex();
+    }
+
+    /**
+     * Reload the datastore if another execution has changed it since it was loaded. Must be called while holding the
+     * exclusive lock, so the datastore cannot change again before the caller has finished with it.
+     */
+    private void reloadIfChanged() throws MojoExecutionException {
+        if (!getDatastoreVersion().equals(loadedVersion)) {
+            close();
+            open();
+        }
+    }
+
+    private void loadDatastore() throws MojoExecutionException {
+        try (FossDatafileReader datastore = new FossDatafileReader(datastoreLocation)) {
+            String[] line;
+            while ((line = datastore.readRow()) != null) {
+                applyFossData(line);
+            }
+            if (!fossAttributes.isEmpty()) {
+                headings = datastore.getAttributeHeadings();
+            }
+        } catch (IOException e) {
             throw new MojoExecutionException("Unable to read datastore data", e);
         }
     }
 
-    private void saveDatastore(List<String[]> stringArray, Path path) throws MojoExecutionException {
+    private void saveDatastore(Path path) throws MojoExecutionException {
         try {
-            CSVWriter writer = new CSVWriter(new FileWriter(path.toString()));
-            writer.writeAll(stringArray);
-            writer.close();
+            Compression codec = getWriteCompression(path, compression);
+            FossDatastoreFiles.writeAtomically(path, file -> {
+                try (Writer writer = openWriter(file, codec); CSVWriter csvWriter = new CSVWriter(writer)) {
+                    csvWriter.writeNext(ArrayUtils.addAll(new String[]{ID_COL_NAME}, headings));
+                    fossAttributes.forEach((fossId, attributes) -> csvWriter.writeNext(ArrayUtils.addAll(new String[]{fossId}, attributes)));
+                }
+            });
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to write to the datastore", e);
+        }
+    }
+
+    /**
+     * Replace the datastore file with the contents of a datafile, streaming the rows straight from the datafile into
+     * the new datastore file. Any updates held in the delta log are removed.
+     *
+     * @param fileToLoad        the datafile
+     * @param datastoreLocation the datastore file to replace
+     * @param compression       the codec the datastore file is written with, or null to keep the codec it has
+     * @param rowConsumer       receives each row as it is written
+     * @return the additional attribute headings of the datafile
+     * @throws MojoExecutionException if the datafile holds no data or the datastore cannot be written
+     */
+    static String[] createDatastoreFile(Path fileToLoad, Path datastoreLocation, Compression compression, Consumer<String[]> rowConsumer) throws MojoExecutionException {
+        try (FossDatafileReader datafile = new FossDatafileReader(fileToLoad)) {
+            String[] firstRow = datafile.hasHeadings() ? datafile.readRow() : null;
+            if (firstRow == null) {
+                throw noDataFound(fileToLoad);
+            }
+            try (FossDatastoreLock lock = FossDatastoreLock.exclusive(datastoreLocation)) {
+                // The updates belong to the datastore being replaced. They are removed first, as a crash before the new
+                // datastore is in place must not leave them to be applied on top of it.
+                FossDatastoreDeltaLog.delete(datastoreLocation);
+                Compression codec = getWriteCompression(datastoreLocation, compression);
+                FossDatastoreFiles.writeAtomically(datastoreLocation, file -> {
+                    try (Writer writer = openWriter(file, codec); CSVWriter csvWriter = new CSVWriter(writer)) {
+                        csvWriter.writeNext(datafile.getHeadingsRow());
+                        String[] line = firstRow;
+                        do {
+                            csvWriter.writeNext(line);
+                            rowConsumer.accept(line);
+                        } while ((line = datafile.readRow()) != null);
+                    }
+                });
+            }
+            return datafile.getAttributeHeadings();
         } catch (IOException e) {
             throw new MojoExecutionException("Unable to write to the datastore", e);
         }
     }
 
-    private void processFossData(List<String[]> lines) {
-        if (lines != null && lines.size() > 1) {
-            headings = Arrays.copyOfRange(lines.get(0), 1, lines.get(0).length);
-            lines.remove(0);
-            for (String[] line : lines) {
-                fossAttributes.put(line[0], Arrays.copyOfRange(line, 1, line.length));
+    /**
+     * Append the rows of a datafile to the delta log of a datastore, streaming them straight from the datafile into
+     * the new segment.
+     *
+     * @param logger            the logger
+     * @param fileToLoad        the datafile
+     * @param datastoreLocation the datastore file
+     * @param headings          the additional attribute headings of the datastore, the datafile must match them
+     * @param overrideExisting  whether rows replace FOSS items already held
+     * @param existingFossItem  tests whether a FOSS item is already held
+     * @param rowConsumer       receives each row appended
+     * @throws MojoExecutionException if the datafile holds no data, does not match or cannot be appended
+     */
+    static void appendDatafile(Log logger, Path fileToLoad, Path datastoreLocation, String[] headings, boolean overrideExisting,
+                               Predicate<String> existingFossItem, Consumer<String[]> rowConsumer) throws MojoExecutionException {
+        try (FossDatafileReader datafile = new FossDatafileReader(fileToLoad)) {
+            if (!datafile.hasHeadings()) {
+                throw noDataFound(fileToLoad);
+            }
+            if (!checkHeadingsMatch(logger, headings, datafile.getAttributeHeadings())) {
+                throw new MojoExecutionException("The headings in the updated datafile are not compatible with the existing datastore");
+            }
+
+            FossRowSource changedLines = overrideExisting ? datafile : filterNewFossItems(datafile, existingFossItem);
+            // Only the changed rows are written, the base datastore is left untouched until it is compacted.
+            try (FossDatastoreLock lock = FossDatastoreLock.exclusive(datastoreLocation)) {
+                FossDatastoreDeltaLog.append(datastoreLocation, () -> {
+                    String[] line = changedLines.readRow();
+                    if (line != null) {
+                        rowConsumer.accept(line);
+                    }
+                    return line;
+                });
             }
+            if (datafile.getRowCount() == 0) {
+                throw noDataFound(fileToLoad);
+            }
+        }
+    }
+
+    /**
+     * Get the codec a datastore file is written with, the configured codec or otherwise the codec it already has.
+     */
+    private static Compression getWriteCompression(Path datastoreLocation, Compression compression) throws IOException {
+        return compression != null ? compression : Compression.detect(datastoreLocation);
+    }
+
+    private static Writer openWriter(Path file, Compression compression) throws IOException {
+        if (compression == Compression.NONE) {
+            return Files.newBufferedWriter(file);
         }
+        return new BufferedWriter(new OutputStreamWriter(compression.compress(Files.newOutputStream(file)), StandardCharsets.UTF_8));
+    }
+
+    static MojoExecutionException noDataFound(Path fileToLoad) {
+        return new MojoExecutionException(String.format("Either no data found in the provided datafile or the file could not be read. (%s)", fileToLoad.toString()));
     }
 
     @Override
@@ -91,64 +269,79 @@ public class InternalFileFossDatastore implements IFossDatastore {
 
     @Override
     public String[] getAdditionalAttributesForFossItem(String fossId) {
-        return fossAttributes.getOrDefault(fossId, new String[headings.length]);
+        String[] attributes = fossAttributes.get(fossId);
+        if (attributes == null) {
+            attributes = fossRules.find(fossId);
+        }
+        return attributes != null ? attributes : new String[headings.length];
     }
 
     @Override
     public void createDatastore(Path fileToLoad) throws MojoExecutionException {
-        List<String[]> lines = loadDatastore(fileToLoad);
-        if (lines.size() > 1) {
-            clearDatastore();
-            saveDatastore(lines, datastoreLocation);
-            processFossData(lines);
-        } else {
-            throw new MojoExecutionException(String.format("Either no data found in the provided datafile or the file could not be read. (%s)", fileToLoad.toString()));
+        FossAttributeTable createdAttributes = new FossAttributeTable(offHeapAttributes);
+        FossRuleIndex createdRules = new FossRuleIndex();
+        try (FossDatastoreLock lock = FossDatastoreLock.exclusive(datastoreLocation)) {
+            String[] createdHeadings = createDatastoreFile(fileToLoad, datastoreLocation, compression,
+                    line -> applyFossData(createdAttributes, createdRules, line));
+            fossAttributes = createdAttributes;
+            fossRules = createdRules;
+            headings = createdHeadings;
+            loadedVersion = getDatastoreVersion();
         }
     }
 
     @Override
     public void updateDatastore(Path fileToLoad, boolean overrideExisting) throws MojoExecutionException {
-        // If the datastore is empty just redirect to the create process.
-        if (isDatastoreEmpty()) {
-            createDatastore(fileToLoad);
-            return;
-        }
-
-        List<String[]> lines = loadDatastore(fileToLoad);
-        if (lines.size() > 1) {
-            if (checkHeadingsMatch(headings, Arrays.copyOfRange(lines.get(0), 1, lines.get(0).length))) {
-                lines.remove(0);
-                updateDatastoreData(lines, overrideExisting);
-
-                List<String[]> newDataLines = new ArrayList<>();
-                newDataLines.add(ArrayUtils.addAll(new String[]{ID_COL_NAME}, headings));
-                for (Map.Entry<String, String[]> fossAttribute : fossAttributes.entrySet()) {
-                    newDataLines.add(ArrayUtils.addAll(new String[]{fossAttribute.getKey()}, fossAttribute.getValue()));
-                }
-                clearDatastore();
+        try (FossDatastoreLock lock = FossDatastoreLock.exclusive(datastoreLocation)) {
+            // Another execution may have changed the datastore since it was loaded, the checks below must see its rows.
+            reloadIfChanged();
 
-                // Save new data and reload all data to refresh class
-                saveDatastore(newDataLines, datastoreLocation);
-                processFossData(loadDatastore(datastoreLocation));
-            } else{
-                throw new MojoExecutionException("The headings in the updated datafile are not compatible with the existing datastore");
+            // If the datastore is empty just redirect to the create process.
+            if (isDatastoreEmpty()) {
+                createDatastore(fileToLoad);
+                return;
             }
-        } else {
-            throw new MojoExecutionException(String.format("Either no data found in the provided datafile or the file could not be read. (%s)", fileToLoad.toString()));
+
+            appendDatafile(logger, fileToLoad, datastoreLocation, headings, overrideExisting, fossAttributes::contains, this::applyFossData);
+            loadedVersion = getDatastoreVersion();
         }
     }
 
-    private void updateDatastoreData(List<String[]> lines, boolean overrideExisting) {
-        if (overrideExisting) {
-            for (String[] line : lines) {
-                fossAttributes.put(line[0], Arrays.copyOfRange(line, 1, line.length));
+    /**
+     * Compacts the datastore, rewriting the CSV file with all the updates held in the delta log merged in and removing
+     * the delta log.
+     */
+    @Override
+    public void compactDatastore() throws MojoExecutionException {
+        try (FossDatastoreLock lock = FossDatastoreLock.exclusive(datastoreLocation)) {
+            if (FossDatastoreDeltaLog.getSegments(datastoreLocation).isEmpty()) {
+                return;
+            }
+            // The compacted datastore is written from the loaded rows, so they must include every update made since.
+            reloadIfChanged();
+            if (!isDatastoreEmpty()) {
+                saveDatastore(datastoreLocation);
             }
-        } else {
-            mergeFossAttributes(lines);
+            // Applying the updates again on top of the compacted datastore gives the same result, so a crash before
+            // they are all deleted is harmless.
+            FossDatastoreDeltaLog.delete(datastoreLocation);
+            loadedVersion = getDatastoreVersion();
+        }
+    }
+
+    private void applyFossData(String[] line) {
+        applyFossData(fossAttributes, fossRules, line);
+    }
+
+    private static void applyFossData(FossAttributeTable attributes, FossRuleIndex rules, String[] line) {
+        String[] lineAttributes = Arrays.copyOfRange(line, 1, line.length);
+        attributes.put(line[0], lineAttributes);
+        if (FossRuleIndex.isRule(line[0])) {
+            rules.put(line[0], lineAttributes);
         }
     }
 
-    private boolean checkHeadingsMatch(String[] storedHeadings, String[] datafileHeadings) {
+    static boolean checkHeadingsMatch(Log logger, String[] storedHeadings, String[] datafileHeadings) {
         if (storedHeadings.length != datafileHeadings.length) {
             logger.error(String.format("The datastore currently has the headings '%s' that does not match with the provided datafiles '%s'", Arrays.toString(storedHeadings), Arrays.toString(datafileHeadings)));
             return false;
@@ -162,24 +355,31 @@ public class InternalFileFossDatastore implements IFossDatastore {
         return true;
     }
 
-    private void mergeFossAttributes(List<String[]> lines) {
-        for (String[] line : lines) {
-            if (!fossAttributes.containsKey(line[0])) {
-                fossAttributes.put(line[0], Arrays.copyOfRange(line, 1, line.length));
+    static FossRowSource filterNewFossItems(FossRowSource lines, Predicate<String> existingFossItem) {
+        // Keep the first row for each id not already held, so existing and earlier rows are never replaced.
+        Set<String> seen = new HashSet<>();
+        return () -> {
+            String[] line;
+            while ((line = lines.readRow()) != null) {
+                if (!existingFossItem.test(line[0]) && seen.add(line[0])) {
+                    return line;
+                }
             }
-        }
+            return null;
+        };
     }
 
     @Override
     public boolean clearDatastore() throws MojoExecutionException {
         boolean result;
-        try {
+        try (FossDatastoreLock lock = FossDatastoreLock.exclusive(datastoreLocation)) {
+            FossDatastoreDeltaLog.delete(datastoreLocation);
             result = Files.deleteIfExists(datastoreLocation);
+            loadedVersion = getDatastoreVersion();
         } catch (IOException e) {
             throw new MojoExecutionException("Unable to delete datastore", e);
         }
-        headings = new String[0];
-        fossAttributes.clear();
+        close();
         return result;
     }
 
@@ -187,4 +387,9 @@ public class InternalFileFossDatastore implements IFossDatastore {
     public boolean isDatastoreEmpty() {
         return fossAttributes.isEmpty();
     }
+
+    @Override
+    public long getFossItemCount() {
+        return fossAttributes.size();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+import uk.yetanother.dependency.report.metrics.ExecutionMetrics;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Mojo to have the package-datastore goal. This given a valid datafile builds a precompiled datastore snapshot and
+ * attaches it to the project, so that it is installed and deployed with the project and the csv goal of other builds
+ * can resolve it by its coordinates rather than every machine creating its own datastore.
+ */
+@Mojo(name = "package-datastore", defaultPhase = LifecyclePhase.PACKAGE)
+public class PackageDatastoreMojo extends AbstractMojo {
+
+    @Parameter(defaultValue = "${project}", required = true, readonly = true)
+    private MavenProject project;
+
+    @Component
+    private MavenProjectHelper projectHelper;
+
+    @Parameter(defaultValue = "${project.build.directory}", property = "outputDirectory", required = true)
+    private File outputDirectory;
+
+    @Parameter(property = "classifier")
+    private String classifier;
+
+    @Parameter(defaultValue = "${project.build.directory}", property = "metricsDirectory")
+    private File metricsDirectory;
+
+    @Parameter(defaultValue = "false", property = "metricsSummary")
+    private boolean metricsSummary;
+
+    @Parameter(property = "datafile", required = true)
+    private String datafile;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        Path datafilePath = Paths.get(datafile);
+        if (!Files.exists(datafilePath)) {
+            throw new MojoExecutionException(String.format("The file provided %s cannot be located", datafile));
+        }
+
+        ExecutionMetrics metrics = new ExecutionMetrics("package-datastore");
+        String filename = project.getBuild().getFinalName() + (classifier == null ? "" : "-" + classifier) + "." + PrecompiledFossDatastore.SNAPSHOT_EXTENSION;
+        File snapshotFile = new File(outputDirectory, filename);
+        long rows;
+        try (ExecutionMetrics.Phase phase = metrics.time("datastoreCreate")) {
+            rows = PrecompiledFossDatastore.build(datafilePath, snapshotFile.toPath());
+        }
+        projectHelper.attachArtifact(project, PrecompiledFossDatastore.SNAPSHOT_EXTENSION, classifier, snapshotFile);
+        getLog().info("Foss Datastore snapshot of " + rows + " items packaged as " + snapshotFile.getAbsolutePath());
+        metrics.setCount("datastoreRows", rows);
+        metrics.write(metricsDirectory, getLog(), metricsSummary);
+    }
+}
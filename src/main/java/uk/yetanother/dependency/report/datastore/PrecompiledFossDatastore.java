@@ -0,0 +1,153 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A read only FOSS Datastore memory mapped from a precompiled snapshot, a single file in the {@link FossIndexFile}
+ * format built by the package-datastore goal and usually resolved as a Maven artifact from the local repository.
+ * Opening the datastore maps the file and reads only its headings and rules, nothing is parsed or copied.
+ *
+ * <p>The snapshot is immutable, to change the data a new version of the snapshot is packaged and deployed, so the
+ * goals that change a datastore fail on this one.
+ */
+public class PrecompiledFossDatastore implements IFossDatastore {
+
+    /**
+     * The file extension, and Maven artifact type, of a precompiled snapshot.
+     */
+    public static final String SNAPSHOT_EXTENSION = "fossidx";
+
+    private final Path snapshotFile;
+    private final FossIndexFile snapshot;
+    private final FossRuleIndex rules;
+    private final String[] headings;
+
+    /**
+     * Instantiates a new Precompiled FOSS datastore, mapping the snapshot.
+     *
+     * @param logger       the logger
+     * @param snapshotFile the precompiled snapshot
+     * @throws MojoExecutionException if the snapshot is missing or not valid
+     */
+    public PrecompiledFossDatastore(Log logger, Path snapshotFile) throws MojoExecutionException {
+        this.snapshotFile = snapshotFile.toAbsolutePath();
+        logger.info("Foss Datastore precompiled snapshot located at " + this.snapshotFile);
+        try {
+            snapshot = FossIndexFile.map(this.snapshotFile);
+            if (snapshot == null) {
+                throw new MojoExecutionException("The precompiled datastore " + this.snapshotFile + " is missing or not a valid snapshot");
+            }
+            rules = snapshot.loadRules();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to read precompiled datastore " + this.snapshotFile, e);
+        }
+        headings = snapshot.getHeadings();
+    }
+
+    /**
+     * Build a precompiled snapshot from a datafile.
+     *
+     * @param datafile     the datafile to load
+     * @param snapshotFile the snapshot to write, replacing any existing file
+     * @return the number of FOSS items in the snapshot, which is fewer than the rows when ids are repeated
+     * @throws MojoExecutionException if the datafile has no data or the snapshot cannot be written
+     */
+    public static long build(Path datafile, Path snapshotFile) throws MojoExecutionException {
+        Path target = snapshotFile.toAbsolutePath();
+        try (FossDatafileReader reader = new FossDatafileReader(datafile)) {
+            String[] firstRow = reader.hasHeadings() ? reader.readRow() : null;
+            if (firstRow == null) {
+                throw InternalFileFossDatastore.noDataFound(datafile);
+            }
+            String[][] nextRow = {firstRow};
+            Files.createDirectories(target.getParent());
+            FossDatastoreFiles.writeAtomically(target, file -> FossIndexFile.write(file, reader.getAttributeHeadings(), () -> {
+                String[] line = nextRow[0];
+                nextRow[0] = line != null ? reader.readRow() : null;
+                return line;
+            }, 0L, 0L));
+            FossIndexFile written = FossIndexFile.map(target);
+            return written == null ? 0 : written.getRowCount();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to write precompiled datastore " + target, e);
+        }
+    }
+
+    /**
+     * Get the current version of a precompiled snapshot.
+     *
+     * @param snapshotFile the precompiled snapshot
+     * @return the version
+     * @throws MojoExecutionException if the file details cannot be read
+     */
+    public static FossDatastoreVersion getDatastoreVersion(Path snapshotFile) throws MojoExecutionException {
+        return FossDatastoreVersion.of(snapshotFile.toAbsolutePath());
+    }
+
+    @Override
+    public String[] getAdditionalAttributeHeadings() {
+        return headings;
+    }
+
+    @Override
+    public String[] getAdditionalAttributesForFossItem(String fossId) {
+        String[] attributes = snapshot.find(fossId);
+        if (attributes == null) {
+            attributes = rules.find(fossId);
+        }
+        return attributes != null ? attributes : new String[headings.length];
+    }
+
+    @Override
+    public Map<String, String[]> getAdditionalAttributesForFossItems(Collection<String> fossIds) {
+        Map<String, String[]> attributes = snapshot.findAll(fossIds);
+        for (String fossId : fossIds) {
+            if (!attributes.containsKey(fossId)) {
+                String[] ruleAttributes = rules.find(fossId);
+                attributes.put(fossId, ruleAttributes != null ? ruleAttributes : new String[headings.length]);
+            }
+        }
+        return attributes;
+    }
+
+    @Override
+    public void createDatastore(Path fileToLoad) throws MojoExecutionException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateDatastore(Path fileToLoad, boolean overrideExisting) throws MojoExecutionException {
+        throw readOnly();
+    }
+
+    @Override
+    public void compactDatastore() throws MojoExecutionException {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean clearDatastore() throws MojoExecutionException {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean isDatastoreEmpty() {
+        return getFossItemCount() == 0;
+    }
+
+    @Override
+    public long getFossItemCount() {
+        return snapshot.getRowCount();
+    }
+
+    private MojoExecutionException readOnly() {
+        return new MojoExecutionException("The precompiled datastore " + snapshotFile + " is read only, package and deploy a new version instead");
+    }
+}
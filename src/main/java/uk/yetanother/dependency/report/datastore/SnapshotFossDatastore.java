@@ -0,0 +1,306 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The FOSS Datastore implementation held in a configurable directory, such as a volume shared between CI agents. The
+ * directory holds immutable snapshots in the {@link FossIndexFile} format, each named after the SHA-256 hash of its
+ * content, and a {@value #POINTER_FILENAME} file naming the current snapshot.
+ *
+ * <p>Opening the datastore reads the pointer and memory maps the snapshot it names, nothing is parsed, copied or
+ * locked, so any number of builds can read the directory at once, even when it is mounted read only. Creating or
+ * updating the datastore writes a complete new snapshot and then replaces the pointer in a single step, so readers see
+ * either the old snapshot or the new one. Writers take an exclusive lock in the directory so that only one change is
+ * made at a time, and an update is built on the snapshot that is latest once the lock is held.
+ *
+ * <p>A reader may have read the pointer but not yet mapped the snapshot, and readers on other hosts of a network
+ * file system are not seen at all, so a replaced snapshot is kept for a grace period after it stops being the latest
+ * before compacting deletes it.
+ */
+public class SnapshotFossDatastore implements IFossDatastore {
+
+    static final String POINTER_FILENAME = "LATEST";
+    static final String SNAPSHOT_PREFIX = "fossAdditionalAttributes-";
+    static final String SNAPSHOT_SUFFIX = ".idx";
+
+    static final long DEFAULT_GRACE_PERIOD = TimeUnit.MINUTES.toMillis(30);
+
+    private static final String[] NO_HEADINGS = new String[0];
+
+    private final Log logger;
+    private final Path datastoreDirectory;
+    private final Path pointerLocation;
+    private final long gracePeriod;
+
+    private Path snapshotFile;
+    private FossIndexFile snapshot;
+    private FossRuleIndex rules = new FossRuleIndex();
+    private String[] headings = NO_HEADINGS;
+
+    /**
+     * Instantiates a new Snapshot FOSS datastore, mapping the snapshot the directory currently points at.
+     *
+     * @param logger             the logger
+     * @param datastoreDirectory the directory holding the snapshots
+     */
+    public SnapshotFossDatastore(Log logger, Path datastoreDirectory) throws MojoExecutionException {
+        this(logger, datastoreDirectory, DEFAULT_GRACE_PERIOD);
+    }
+
+    /**
+     * Instantiates a new Snapshot FOSS datastore, mapping the snapshot the directory currently points at.
+     *
+     * @param logger             the logger
+     * @param datastoreDirectory the directory holding the snapshots
+     * @param gracePeriod        milliseconds a replaced snapshot is kept after it stops being the latest
+     */
+    SnapshotFossDatastore(Log logger, Path datastoreDirectory, long gracePeriod) throws MojoExecutionException {
+        this.logger = logger;
+        this.gracePeriod = gracePeriod;
+        this.datastoreDirectory = datastoreDirectory.toAbsolutePath();
+        this.pointerLocation = this.datastoreDirectory.resolve(POINTER_FILENAME);
+        logger.info("Foss Datastore snapshots located at " + this.datastoreDirectory);
+        open();
+    }
+
+    /**
+     * Get the current version of the datastore in a directory, this changes whenever the pointer is moved to another
+     * snapshot.
+     *
+     * @param datastoreDirectory the directory holding the snapshots
+     * @return the version
+     * @throws MojoExecutionException if the pointer cannot be read
+     */
+    public static FossDatastoreVersion getDatastoreVersion(Path datastoreDirectory) throws MojoExecutionException {
+        Path pointer = datastoreDirectory.toAbsolutePath().resolve(POINTER_FILENAME);
+        try {
+            Path latest = readPointer(pointer);
+            // Snapshots are named after their content, so the snapshot path alone identifies the data.
+            return latest == null ? FossDatastoreVersion.of(pointer) : FossDatastoreVersion.of(latest);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to read datastore details", e);
+        }
+    }
+
+    @Override
+    public String[] getAdditionalAttributeHeadings() {
+        return headings;
+    }
+
+    @Override
+    public String[] getAdditionalAttributesForFossItem(String fossId) {
+        String[] attributes = snapshot == null ? null : snapshot.find(fossId);
+        if (attributes == null) {
+            attributes = rules.find(fossId);
+        }
+        return attributes != null ? attributes : new String[headings.length];
+    }
+
+    @Override
+    public Map<String, String[]> getAdditionalAttributesForFossItems(Collection<String> fossIds) {
+        Map<String, String[]> attributes = snapshot == null ? new HashMap<>() : snapshot.findAll(fossIds);
+        for (String fossId : fossIds) {
+            if (!attributes.containsKey(fossId)) {
+                String[] ruleAttributes = rules.find(fossId);
+                attributes.put(fossId, ruleAttributes != null ? ruleAttributes : new String[headings.length]);
+            }
+        }
+        return attributes;
+    }
+
+    @Override
+    public void createDatastore(Path fileToLoad) throws MojoExecutionException {
+        try (FossDatafileReader datafile = new FossDatafileReader(fileToLoad)) {
+            String[] firstRow = datafile.hasHeadings() ? datafile.readRow() : null;
+            if (firstRow == null) {
+                throw InternalFileFossDatastore.noDataFound(fileToLoad);
+            }
+            String[][] nextRow = {firstRow};
+            publish(datafile.getAttributeHeadings(), () -> {
+                String[] line = nextRow[0];
+                nextRow[0] = line != null ? datafile.readRow() : null;
+                return line;
+            });
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to read datastore data", e);
+        }
+    }
+
+    @Override
+    public void updateDatastore(Path fileToLoad, boolean overrideExisting) throws MojoExecutionException {
+        try (FossDatastoreLock lock = FossDatastoreLock.exclusive(pointerLocation)) {
+            // Another writer may have moved the pointer since this datastore was opened, build on its snapshot instead.
+            if (isReplaced()) {
+                close();
+                open();
+            }
+
+            // If the datastore is empty just redirect to the create process.
+            if (isDatastoreEmpty()) {
+                createDatastore(fileToLoad);
+                return;
+            }
+
+            try (FossDatafileReader datafile = new FossDatafileReader(fileToLoad)) {
+                if (!datafile.hasHeadings()) {
+                    throw InternalFileFossDatastore.noDataFound(fileToLoad);
+                }
+                if (!InternalFileFossDatastore.checkHeadingsMatch(logger, headings, datafile.getAttributeHeadings())) {
+                    throw new MojoExecutionException("The headings in the updated datafile are not compatible with the existing datastore");
+                }
+
+                // The new snapshot holds the current rows followed by the datafile rows, later rows replace earlier ones.
+                FossIndexFile current = snapshot;
+                FossRowSource existingRows = current.rows();
+                FossRowSource changedRows = overrideExisting ? datafile : InternalFileFossDatastore.filterNewFossItems(datafile, current::contains);
+                publish(headings, () -> {
+                    String[] line = existingRows.readRow();
+                    return line != null ? line : changedRows.readRow();
+                });
+                if (datafile.getRowCount() == 0) {
+                    throw InternalFileFossDatastore.noDataFound(fileToLoad);
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to read datastore pointer", e);
+        }
+    }
+
+    /**
+     * Compacts the datastore by deleting the snapshots the pointer has not named for longer than the grace period.
+     * Snapshots replaced more recently are kept, as builds may still be about to map them. A snapshot that cannot be
+     * deleted, such as one still mapped on Windows, is left for a later compaction.
+     */
+    @Override
+    public void compactDatastore() throws MojoExecutionException {
+        try (FossDatastoreLock lock = FossDatastoreLock.exclusive(pointerLocation)) {
+            Path latest = readPointer(pointerLocation);
+            long replacedBefore = System.currentTimeMillis() - gracePeriod;
+            for (Path candidate : getSnapshots()) {
+                // A snapshot is touched when it is replaced, so its modification time is when it stopped being latest.
+                if (candidate.equals(latest) || Files.getLastModifiedTime(candidate).toMillis() > replacedBefore) {
+                    continue;
+                }
+                logger.debug("Deleting unused Foss Datastore snapshot " + candidate);
+                try {
+                    Files.deleteIfExists(candidate);
+                } catch (IOException e) {
+                    logger.warn("Unable to delete unused Foss Datastore snapshot " + candidate + ", it is left for a later compaction: " + e);
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to compact datastore", e);
+        }
+    }
+
+    @Override
+    public boolean clearDatastore() throws MojoExecutionException {
+        close();
+        try (FossDatastoreLock lock = FossDatastoreLock.exclusive(pointerLocation)) {
+            // The pointer goes first, so a failure part way through leaves an empty datastore rather than a broken one.
+            boolean result = Files.deleteIfExists(pointerLocation);
+            for (Path candidate : getSnapshots()) {
+                Files.deleteIfExists(candidate);
+            }
+            return result;
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to delete datastore", e);
+        }
+    }
+
+    @Override
+    public boolean isDatastoreEmpty() {
+        return getFossItemCount() == 0;
+    }
+
+    @Override
+    public long getFossItemCount() {
+        return snapshot == null ? 0 : snapshot.getRowCount();
+    }
+
+    private void publish(String[] snapshotHeadings, FossRowSource rows) throws MojoExecutionException {
+        try {
+            Files.createDirectories(datastoreDirectory);
+            try (FossDatastoreLock lock = FossDatastoreLock.exclusive(pointerLocation)) {
+                Path replaced = readPointer(pointerLocation);
+                Path published = FossDatastoreFiles.writeContentAddressed(datastoreDirectory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX,
+                        file -> FossIndexFile.write(file, snapshotHeadings, rows, 0L, 0L));
+                FossDatastoreFiles.writeAtomically(pointerLocation,
+                        file -> Files.write(file, published.getFileName().toString().getBytes(StandardCharsets.UTF_8)));
+                if (replaced != null && !replaced.equals(published) && Files.exists(replaced)) {
+                    // Start the grace period of the replaced snapshot, compaction keeps it until the period is over.
+                    Files.setLastModifiedTime(replaced, FileTime.fromMillis(System.currentTimeMillis()));
+                }
+                logger.info("Foss Datastore snapshot " + published.getFileName() + " is now the latest");
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to write to the datastore", e);
+        }
+        close();
+        open();
+    }
+
+    private boolean isReplaced() throws IOException {
+        Path latest = readPointer(pointerLocation);
+        return latest == null ? snapshotFile != null : !latest.equals(snapshotFile);
+    }
+
+    private void close() {
+        snapshotFile = null;
+        snapshot = null;
+        headings = NO_HEADINGS;
+        rules = new FossRuleIndex();
+    }
+
+    private void open() throws MojoExecutionException {
+        try {
+            Path latest = readPointer(pointerLocation);
+            if (latest == null) {
+                return;
+            }
+            FossIndexFile mapped = FossIndexFile.map(latest);
+            if (mapped == null) {
+                throw new IOException("Snapshot " + latest + " is missing or not valid");
+            }
+            snapshotFile = latest;
+            snapshot = mapped;
+            rules = mapped.loadRules();
+            headings = mapped.getRowCount() > 0 ? mapped.getHeadings() : NO_HEADINGS;
+        } catch (IOException e) {
+            close();
+            throw new MojoExecutionException("Unable to read datastore snapshot", e);
+        }
+    }
+
+    private List<Path> getSnapshots() throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        if (Files.isDirectory(datastoreDirectory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(datastoreDirectory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+                files.forEach(snapshots::add);
+            }
+        }
+        return snapshots;
+    }
+
+    private static Path readPointer(Path pointer) throws IOException {
+        if (!Files.exists(pointer)) {
+            return null;
+        }
+        String snapshotName = new String(Files.readAllBytes(pointer), StandardCharsets.UTF_8).trim();
+        return snapshotName.isEmpty() ? null : pointer.resolveSibling(snapshotName);
+    }
+}
@@ -0,0 +1,449 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The FOSS Datastore implementation held in an embedded H2 database file, running within the Maven JVM. Each FOSS item
+ * is a row keyed by its id, with a column for each additional attribute, so only the rows looked up are read into the
+ * heap. Updates are applied row by row within a single transaction, so an update that fails part way through leaves
+ * the datastore unchanged.
+ *
+ * <p>H2 commits table changes as soon as they are made, so creating the datastore loads the rows into staging tables
+ * and only renames them into place once every row is written. A create that fails part way through leaves the
+ * previous datastore in place, and one interrupted while renaming is finished the next time the database is opened.
+ *
+ * <p>A connection is only held for the length of each operation, so the database file is not locked between them.
+ * The database is opened in H2's automatic mixed mode, so a build that opens it while another build holds it connects
+ * through the first build rather than failing.
+ *
+ * <p>Rows with more attributes than the datastore has headings are truncated and rows with fewer are padded with nulls.
+ * A version file next to the database is rewritten after every change, so the cache and report fingerprint can tell
+ * that the datastore has changed without opening the database.
+ */
+public class SqlFossDatastore implements IFossDatastore {
+
+    static final String DATABASE_NAME = "fossAdditionalAttributes";
+    static final String DATABASE_SUFFIX = ".mv.db";
+    static final String VERSION_SUFFIX = ".sql.version";
+
+    private static final String[] NO_HEADINGS = new String[0];
+    private static final int BATCH_SIZE = 1000;
+    private static final String ITEM_TABLE = "FOSS_ITEM";
+    private static final String HEADING_TABLE = "FOSS_HEADING";
+    private static final String STAGING_SUFFIX = "_STAGING";
+
+    private final Log logger;
+    private final Path databaseLocation;
+    private final Path versionLocation;
+
+    private String[] headings = NO_HEADINGS;
+    private FossRuleIndex rules = new FossRuleIndex();
+    private long fossItemCount;
+
+    /**
+     * Instantiates a new SQL FOSS datastore, opening the database in the given directory or creating it if it does
+     * not exist yet.
+     *
+     * @param logger             the logger
+     * @param datastoreDirectory the directory holding the database
+     */
+    public SqlFossDatastore(Log logger, Path datastoreDirectory) throws MojoExecutionException {
+        this.logger = logger;
+        this.databaseLocation = datastoreDirectory.toAbsolutePath().resolve(DATABASE_NAME);
+        this.versionLocation = datastoreDirectory.toAbsolutePath().resolve(DATABASE_NAME + VERSION_SUFFIX);
+        logger.info("Foss Datastore database located at " + databaseLocation + DATABASE_SUFFIX);
+        open();
+    }
+
+    /**
+     * Get the current version of the database in a directory, this changes whenever the datastore is created, updated,
+     * compacted or cleared.
+     *
+     * @param datastoreDirectory the directory holding the database
+     * @return the version
+     * @throws MojoExecutionException if the version cannot be read
+     */
+    public static FossDatastoreVersion getDatastoreVersion(Path datastoreDirectory) throws MojoExecutionException {
+        return FossDatastoreVersion.of(datastoreDirectory.toAbsolutePath().resolve(DATABASE_NAME + VERSION_SUFFIX));
+    }
+
+    @Override
+    public String[] getAdditionalAttributeHeadings() {
+        return headings;
+    }
+
+    @Override
+    public String[] getAdditionalAttributesForFossItem(String fossId) throws MojoExecutionException {
+        return getAdditionalAttributesForFossItems(Arrays.asList(fossId)).get(fossId);
+    }
+
+    @Override
+    public synchronized Map<String, String[]> getAdditionalAttributesForFossItems(Collection<String> fossIds) throws MojoExecutionException {
+        Map<String, String[]> attributes = new HashMap<>(fossIds.size() * 2);
+        if (fossItemCount > 0) {
+            try (Connection connection = openConnection();
+                 PreparedStatement select = connection.prepareStatement("SELECT * FROM " + ITEM_TABLE + " WHERE ID = ANY(?)")) {
+                List<String> batch = new ArrayList<>(BATCH_SIZE);
+                for (String fossId : fossIds) {
+                    batch.add(fossId);
+                    if (batch.size() == BATCH_SIZE) {
+                        selectBatch(select, batch, attributes);
+                    }
+                }
+                selectBatch(select, batch, attributes);
+            } catch (SQLException e) {
+                throw new MojoExecutionException("Unable to read the Foss Datastore database", e);
+            }
+        }
+
+        for (String fossId : fossIds) {
+            if (!attributes.containsKey(fossId)) {
+                String[] ruleAttributes = rules.find(fossId);
+                attributes.put(fossId, ruleAttributes != null ? ruleAttributes : new String[headings.length]);
+            }
+        }
+        return attributes;
+    }
+
+    @Override
+    public synchronized void createDatastore(Path fileToLoad) throws MojoExecutionException {
+        try (FossDatafileReader datafile = new FossDatafileReader(fileToLoad)) {
+            String[] firstRow = datafile.hasHeadings() ? datafile.readRow() : null;
+            if (firstRow == null) {
+                throw InternalFileFossDatastore.noDataFound(fileToLoad);
+            }
+            String[] datafileHeadings = datafile.getAttributeHeadings();
+            try (FossDatastoreLock lock = FossDatastoreLock.exclusive(versionLocation);
+                 Connection connection = openConnection()) {
+                finishSwap(connection);
+                try {
+                    try (Statement statement = connection.createStatement()) {
+                        dropStagingTables(statement);
+                        statement.execute("CREATE TABLE " + HEADING_TABLE + STAGING_SUFFIX + " (POSITION INT PRIMARY KEY, HEADING VARCHAR NOT NULL)");
+                        statement.execute(createItemTable(ITEM_TABLE + STAGING_SUFFIX, datafileHeadings.length));
+                    }
+                    try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + HEADING_TABLE + STAGING_SUFFIX + " VALUES (?, ?)")) {
+                        for (int i = 0; i < datafileHeadings.length; i++) {
+                            insert.setInt(1, i);
+                            insert.setString(2, datafileHeadings[i]);
+                            insert.addBatch();
+                        }
+                        insert.executeBatch();
+                    }
+                    String[][] nextRow = {firstRow};
+                    writeRows(connection, mergeItem(ITEM_TABLE + STAGING_SUFFIX, datafileHeadings.length), datafileHeadings.length, false, () -> {
+                        String[] line = nextRow[0];
+                        nextRow[0] = line != null ? datafile.readRow() : null;
+                        return line;
+                    });
+                    connection.commit();
+                } catch (IOException | SQLException e) {
+                    rollback(connection);
+                    try (Statement statement = connection.createStatement()) {
+                        dropStagingTables(statement);
+                    }
+                    throw e;
+                }
+                // Every row is written, only now is the existing datastore replaced.
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("DROP TABLE IF EXISTS " + ITEM_TABLE);
+                }
+                finishSwap(connection);
+                writeVersion();
+                reload(connection);
+            }
+        } catch (IOException | SQLException e) {
+            throw new MojoExecutionException("Unable to write to the datastore", e);
+        }
+    }
+
+    @Override
+    public synchronized void updateDatastore(Path fileToLoad, boolean overrideExisting) throws MojoExecutionException {
+        try (FossDatastoreLock lock = FossDatastoreLock.exclusive(versionLocation)) {
+            try (Connection connection = openConnection()) {
+                // Another execution may have changed the datastore since it was opened, the checks below must see its rows.
+                finishSwap(connection);
+                reload(connection);
+            }
+
+            // If the datastore is empty just redirect to the create process.
+            if (isDatastoreEmpty()) {
+                createDatastore(fileToLoad);
+                return;
+            }
+
+            try (FossDatafileReader datafile = new FossDatafileReader(fileToLoad)) {
+                if (!datafile.hasHeadings()) {
+                    throw InternalFileFossDatastore.noDataFound(fileToLoad);
+                }
+                if (!InternalFileFossDatastore.checkHeadingsMatch(logger, headings, datafile.getAttributeHeadings())) {
+                    throw new MojoExecutionException("The headings in the updated datafile are not compatible with the existing datastore");
+                }
+
+                try (Connection connection = openConnection()) {
+                    try {
+                        // Rows inserted earlier in the batch are visible to the later ones, so the first new row for an id is kept.
+                        String statement = overrideExisting ? mergeItem(ITEM_TABLE, headings.length) : insertNewItem(headings.length);
+                        writeRows(connection, statement, headings.length, !overrideExisting, datafile);
+                        if (datafile.getRowCount() == 0) {
+                            throw InternalFileFossDatastore.noDataFound(fileToLoad);
+                        }
+                        connection.commit();
+                    } catch (IOException | SQLException | MojoExecutionException e) {
+                        rollback(connection);
+                        throw e;
+                    }
+                    writeVersion();
+                    reload(connection);
+                }
+            }
+        } catch (IOException | SQLException e) {
+            throw new MojoExecutionException("Unable to write to the datastore", e);
+        }
+    }
+
+    /**
+     * Compacts the database file, releasing the space left by rows that have been replaced.
+     */
+    @Override
+    public synchronized void compactDatastore() throws MojoExecutionException {
+        try (FossDatastoreLock lock = FossDatastoreLock.exclusive(versionLocation)) {
+            if (isDatastoreEmpty()) {
+                return;
+            }
+            try (Connection connection = openConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("SHUTDOWN COMPACT");
+            }
+            writeVersion();
+        } catch (IOException | SQLException e) {
+            throw new MojoExecutionException("Unable to compact datastore", e);
+        }
+        open();
+    }
+
+    @Override
+    public synchronized boolean clearDatastore() throws MojoExecutionException {
+        try (FossDatastoreLock lock = FossDatastoreLock.exclusive(versionLocation)) {
+            boolean result = Files.exists(databaseLocation.resolveSibling(DATABASE_NAME + DATABASE_SUFFIX));
+            if (result) {
+                try (Connection connection = openConnection();
+                     Statement statement = connection.createStatement()) {
+                    statement.execute("DROP ALL OBJECTS DELETE FILES");
+                }
+            }
+            Files.deleteIfExists(versionLocation);
+            headings = NO_HEADINGS;
+            rules = new FossRuleIndex();
+            fossItemCount = 0;
+            return result;
+        } catch (IOException | SQLException e) {
+            throw new MojoExecutionException("Unable to delete datastore", e);
+        }
+    }
+
+    @Override
+    public boolean isDatastoreEmpty() {
+        return fossItemCount == 0;
+    }
+
+    @Override
+    public long getFossItemCount() {
+        return fossItemCount;
+    }
+
+    private void open() throws MojoExecutionException {
+        if (!Files.exists(databaseLocation.resolveSibling(DATABASE_NAME + DATABASE_SUFFIX))) {
+            return;
+        }
+        try (Connection connection = openConnection()) {
+            if (hasTable(connection, ITEM_TABLE + STAGING_SUFFIX) && !hasTable(connection, ITEM_TABLE)) {
+                try (FossDatastoreLock lock = FossDatastoreLock.exclusive(versionLocation)) {
+                    finishSwap(connection);
+                }
+            }
+            reload(connection);
+        } catch (SQLException e) {
+            throw new MojoExecutionException("Unable to read datastore database", e);
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
+        try {
+            Files.createDirectories(databaseLocation.getParent());
+        } catch (IOException e) {
+            throw new SQLException("Unable to create the datastore directory", e);
+        }
+        Connection connection = DriverManager.getConnection("jdbc:h2:file:" + databaseLocation + ";AUTO_SERVER=TRUE", "sa", "");
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    /**
+     * Rename the staging tables into place once the existing item table has been dropped. The renames are committed
+     * one at a time, so this also finishes a swap that was interrupted part way through.
+     */
+    private static void finishSwap(Connection connection) throws SQLException {
+        if (hasTable(connection, ITEM_TABLE) || !hasTable(connection, ITEM_TABLE + STAGING_SUFFIX)) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            if (hasTable(connection, HEADING_TABLE + STAGING_SUFFIX)) {
+                statement.execute("DROP TABLE IF EXISTS " + HEADING_TABLE);
+                statement.execute("ALTER TABLE " + HEADING_TABLE + STAGING_SUFFIX + " RENAME TO " + HEADING_TABLE);
+            }
+            statement.execute("ALTER TABLE " + ITEM_TABLE + STAGING_SUFFIX + " RENAME TO " + ITEM_TABLE);
+        }
+    }
+
+    private static void dropStagingTables(Statement statement) throws SQLException {
+        statement.execute("DROP TABLE IF EXISTS " + ITEM_TABLE + STAGING_SUFFIX);
+        statement.execute("DROP TABLE IF EXISTS " + HEADING_TABLE + STAGING_SUFFIX);
+    }
+
+    private static boolean hasTable(Connection connection, String table) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = ?")) {
+            select.setString(1, table);
+            try (ResultSet tables = select.executeQuery()) {
+                tables.next();
+                return tables.getInt(1) > 0;
+            }
+        }
+    }
+
+    private void reload(Connection connection) throws SQLException {
+        String[] loadedHeadings = NO_HEADINGS;
+        FossRuleIndex loadedRules = new FossRuleIndex();
+        long loadedCount = 0;
+        if (hasTable(connection, ITEM_TABLE)) {
+            try (Statement statement = connection.createStatement()) {
+                try (ResultSet count = statement.executeQuery("SELECT COUNT(*) FROM " + ITEM_TABLE)) {
+                    count.next();
+                    loadedCount = count.getLong(1);
+                }
+                List<String> headingList = new ArrayList<>();
+                try (ResultSet headingRows = statement.executeQuery("SELECT HEADING FROM " + HEADING_TABLE + " ORDER BY POSITION")) {
+                    while (headingRows.next()) {
+                        headingList.add(headingRows.getString(1));
+                    }
+                }
+                loadedHeadings = headingList.toArray(new String[0]);
+                // Every FOSS item id has at least three colons, so only rule rows are read.
+                try (ResultSet ruleRows = statement.executeQuery("SELECT * FROM " + ITEM_TABLE + " WHERE ID NOT LIKE '%:%:%:%'")) {
+                    while (ruleRows.next()) {
+                        String id = ruleRows.getString(1);
+                        if (FossRuleIndex.isRule(id)) {
+                            loadedRules.put(id, readAttributes(ruleRows, loadedHeadings.length));
+                        }
+                    }
+                }
+            }
+        }
+        connection.commit();
+        headings = loadedCount > 0 ? loadedHeadings : NO_HEADINGS;
+        rules = loadedRules;
+        fossItemCount = loadedCount;
+    }
+
+    private void writeRows(Connection connection, String sql, int columns, boolean repeatId, FossRowSource rows) throws IOException, SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int batched = 0;
+            String[] line;
+            while ((line = rows.readRow()) != null) {
+                statement.setString(1, line[0]);
+                for (int column = 1; column <= columns; column++) {
+                    statement.setString(column + 1, column < line.length ? line[column] : null);
+                }
+                if (repeatId) {
+                    statement.setString(columns + 2, line[0]);
+                }
+                statement.addBatch();
+                if (++batched == BATCH_SIZE) {
+                    statement.executeBatch();
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                statement.executeBatch();
+            }
+        }
+    }
+
+    private void rollback(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.warn("Unable to roll back the Foss Datastore database", e);
+        }
+    }
+
+    private void writeVersion() throws IOException {
+        // The content only has to differ from the previous version, so that the file size or time is sure to change.
+        String version = System.currentTimeMillis() + ":" + System.nanoTime();
+        FossDatastoreFiles.writeAtomically(versionLocation, file -> Files.write(file, version.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void selectBatch(PreparedStatement select, List<String> batch, Map<String, String[]> attributes) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        select.setObject(1, batch.toArray(new String[0]));
+        try (ResultSet rows = select.executeQuery()) {
+            while (rows.next()) {
+                attributes.put(rows.getString(1), readAttributes(rows, headings.length));
+            }
+        }
+        batch.clear();
+    }
+
+    private static String[] readAttributes(ResultSet row, int columns) throws SQLException {
+        String[] attributes = new String[columns];
+        for (int column = 0; column < columns; column++) {
+            attributes[column] = row.getString(column + 2);
+        }
+        return attributes;
+    }
+
+    private static String createItemTable(String table, int columns) {
+        StringBuilder sql = new StringBuilder("CREATE TABLE " + table + " (ID VARCHAR PRIMARY KEY");
+        for (int column = 1; column <= columns; column++) {
+            sql.append(", A").append(column).append(" VARCHAR");
+        }
+        return sql.append(')').toString();
+    }
+
+    private static String mergeItem(String table, int columns) {
+        return "MERGE INTO " + table + " KEY (ID) VALUES (?" + parameters(columns, "?") + ")";
+    }
+
+    private static String insertNewItem(int columns) {
+        return "INSERT INTO " + ITEM_TABLE + " SELECT CAST(? AS VARCHAR)" + parameters(columns, "CAST(? AS VARCHAR)")
+                + " WHERE NOT EXISTS (SELECT 1 FROM " + ITEM_TABLE + " WHERE ID = ?)";
+    }
+
+    private static String parameters(int columns, String parameter) {
+        StringBuilder parameters = new StringBuilder();
+        for (int column = 0; column < columns; column++) {
+            parameters.append(", ").append(parameter);
+        }
+        return parameters.toString();
+    }
+}
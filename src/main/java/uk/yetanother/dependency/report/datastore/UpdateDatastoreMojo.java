@@ -5,7 +5,10 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import uk.yetanother.dependency.report.compression.Compression;
+import uk.yetanother.dependency.report.metrics.ExecutionMetrics;
 
+import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -17,6 +20,21 @@ import java.nio.file.Paths;
 @Mojo(name = "update-datastore", defaultPhase = LifecyclePhase.INITIALIZE)
 public class UpdateDatastoreMojo extends AbstractMojo {
 
+    @Parameter(property = "metricsDirectory")
+    private File metricsDirectory;
+
+    @Parameter(defaultValue = "false", property = "metricsSummary")
+    private boolean metricsSummary;
+
+    @Parameter(property = "datastoreDirectory")
+    private File datastoreDirectory;
+
+    @Parameter(defaultValue = "file", property = "datastoreType")
+    private String datastoreType;
+
+    @Parameter(property = "datastoreCompression")
+    private String datastoreCompression;
+
     @Parameter(property = "datafile", required = true)
     private String datafile;
 
@@ -25,10 +43,25 @@ public class UpdateDatastoreMojo extends AbstractMojo {
 
     @Override
     public void execute() throws MojoExecutionException {
-        IFossDatastore fossDatastore = new InternalFileFossDatastore(getLog());
         Path datafilePath = Paths.get(datafile);
         if (Files.exists(datafilePath)) {
-            fossDatastore.updateDatastore(datafilePath, overrideExisting);
+            try {
+                ExecutionMetrics metrics = new ExecutionMetrics("update-datastore");
+                IFossDatastore fossDatastore;
+                try (ExecutionMetrics.Phase phase = metrics.time("datastoreOpen")) {
+                    fossDatastore = FossDatastores.open(getLog(), datastoreType, datastoreDirectory,
+                            datastoreCompression == null ? null : Compression.named(datastoreCompression));
+                }
+                long itemsBefore = fossDatastore.getFossItemCount();
+                try (ExecutionMetrics.Phase phase = metrics.time("datastoreUpdate")) {
+                    fossDatastore.updateDatastore(datafilePath, overrideExisting);
+                }
+                metrics.setCount("datastoreRows", fossDatastore.getFossItemCount());
+                metrics.setCount("addedItems", fossDatastore.getFossItemCount() - itemsBefore);
+                metrics.write(metricsDirectory, getLog(), metricsSummary);
+            } finally {
+                FossDatastoreCache.invalidate();
+            }
         } else {
             throw new MojoExecutionException(String.format("The file provided %s cannot be located", datafile));
         }
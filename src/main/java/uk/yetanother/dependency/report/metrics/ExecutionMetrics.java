@@ -0,0 +1,220 @@
+package uk.yetanother.dependency.report.metrics;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import uk.yetanother.dependency.report.writer.JsonStrings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Phase timings and counts recorded while a goal executes, written as a JSON file so they can be tracked across
+ * builds. Phases are timed by wrapping them in a {@link Phase}, time spent in the same phase is added together,
+ * including time spent concurrently on several threads. All methods are safe to call from multiple threads.
+ */
+public class ExecutionMetrics {
+
+    private static final String FILENAME_PREFIX = "dependency-report-";
+    private static final String FILENAME_SUFFIX = "-metrics.json";
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    private final String goal;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, String> attributes = new LinkedHashMap<>();
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+
+    /**
+     * Instantiates new Execution metrics, the total time is measured from now.
+     *
+     * @param goal the goal being executed
+     */
+    public ExecutionMetrics(String goal) {
+        this.goal = goal;
+    }
+
+    /**
+     * Get the filename the metrics of a goal are written to.
+     *
+     * @param goal the goal
+     * @return the metrics filename
+     */
+    public static String getFilename(String goal) {
+        return FILENAME_PREFIX + goal + FILENAME_SUFFIX;
+    }
+
+    /**
+     * Start timing a phase, the time is recorded when the returned phase is closed.
+     *
+     * @param phase the phase name
+     * @return the running phase
+     */
+    public Phase time(String phase) {
+        return new Phase(phase);
+    }
+
+    /**
+     * Add time spent in a phase.
+     *
+     * @param phase the phase name
+     * @param nanos the time spent in nanoseconds
+     */
+    public synchronized void addTime(String phase, long nanos) {
+        phaseNanos.merge(phase, nanos, Long::sum);
+    }
+
+    /**
+     * Add to a count.
+     *
+     * @param name  the count name
+     * @param value the amount to add
+     */
+    public synchronized void addCount(String name, long value) {
+        counts.merge(name, value, Long::sum);
+    }
+
+    /**
+     * Set a count, replacing any existing value.
+     *
+     * @param name  the count name
+     * @param value the value
+     */
+    public synchronized void setCount(String name, long value) {
+        counts.put(name, value);
+    }
+
+    /**
+     * Set a descriptive attribute of the execution, such as its outcome.
+     *
+     * @param name  the attribute name
+     * @param value the value
+     */
+    public synchronized void setAttribute(String name, String value) {
+        attributes.put(name, value);
+    }
+
+    /**
+     * Get the time recorded for a phase.
+     *
+     * @param phase the phase name
+     * @return the time in nanoseconds, 0 if the phase was not recorded
+     */
+    public synchronized long getTime(String phase) {
+        return phaseNanos.getOrDefault(phase, 0L);
+    }
+
+    /**
+     * Get a count.
+     *
+     * @param name the count name
+     * @return the count, 0 if it was not recorded
+     */
+    public synchronized long getCount(String name) {
+        return counts.getOrDefault(name, 0L);
+    }
+
+    /**
+     * Format the metrics as a JSON object, times are given in milliseconds.
+     *
+     * @return the JSON
+     */
+    public synchronized String toJson() {
+        StringBuilder json = new StringBuilder(512);
+        json.append("{\n  \"goal\": ");
+        JsonStrings.append(json, goal);
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            json.append(",\n  ");
+            JsonStrings.append(json, attribute.getKey());
+            json.append(": ");
+            JsonStrings.append(json, attribute.getValue());
+        }
+        json.append(",\n  \"totalMillis\": ").append(formatMillis(System.nanoTime() - startNanos));
+        json.append(",\n  \"phaseMillis\": {");
+        appendEntries(json, phaseNanos, true);
+        json.append("},\n  \"counts\": {");
+        appendEntries(json, counts, false);
+        json.append("}\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Format the metrics as a single line summary.
+     *
+     * @return the summary
+     */
+    public synchronized String summary() {
+        StringBuilder summary = new StringBuilder("Metrics for ").append(goal).append(": total ")
+                .append(formatMillis(System.nanoTime() - startNanos)).append(" ms");
+        for (Map.Entry<String, Long> phase : phaseNanos.entrySet()) {
+            summary.append(", ").append(phase.getKey()).append(' ').append(formatMillis(phase.getValue())).append(" ms");
+        }
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            summary.append(", ").append(count.getKey()).append(' ').append(count.getValue());
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Write the metrics file to a directory, creating the directory if required, and log the summary if asked to.
+     *
+     * @param directory  the directory to write the metrics file to, if null no file is written
+     * @param logger     the logger
+     * @param logSummary whether the summary should also be logged
+     * @throws MojoExecutionException if the metrics file cannot be written
+     */
+    public void write(File directory, Log logger, boolean logSummary) throws MojoExecutionException {
+        if (logSummary) {
+            logger.info(summary());
+        }
+        if (directory == null) {
+            return;
+        }
+        File metricsFile = new File(directory, getFilename(goal));
+        try {
+            Files.createDirectories(directory.toPath());
+            Files.write(metricsFile.toPath(), toJson().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing metrics " + metricsFile, e);
+        }
+    }
+
+    private static void appendEntries(StringBuilder json, Map<String, Long> entries, boolean nanos) {
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : entries.entrySet()) {
+            json.append(first ? "\n    " : ",\n    ");
+            JsonStrings.append(json, entry.getKey());
+            json.append(": ").append(nanos ? formatMillis(entry.getValue()) : String.valueOf(entry.getValue()));
+            first = false;
+        }
+        if (!first) {
+            json.append("\n  ");
+        }
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / NANOS_PER_MILLI);
+    }
+
+    /**
+     * A phase being timed, closing it adds the elapsed time to the phase.
+     */
+    public final class Phase implements AutoCloseable {
+
+        private final String name;
+        private final long phaseStartNanos = System.nanoTime();
+
+        private Phase(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void close() {
+            addTime(name, System.nanoTime() - phaseStartNanos);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.File;
+
+/**
+ * The {@code binary} report format, a compact encoding described by {@link BinaryReportWriter}.
+ */
+public class BinaryReportFormat implements IReportFormat {
+
+    @Override
+    public String getName() {
+        return "binary";
+    }
+
+    @Override
+    public String getFilename() {
+        return BinaryReportWriter.REPORT_FILENAME;
+    }
+
+    @Override
+    public IReportWriter open(File outputDirectory, Log logger, boolean console) throws MojoExecutionException {
+        return new BinaryReportWriter(outputDirectory);
+    }
+
+    @Override
+    public IReportWriter open(File outputDirectory, Log logger, boolean console, Compression compression) throws MojoExecutionException {
+        return new BinaryReportWriter(outputDirectory, compression);
+    }
+}
@@ -0,0 +1,161 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streams the report in a compact binary format. Strings that repeat across a report, such as group IDs, versions,
+ * scopes and attribute values, are written once and referred to by number afterwards.
+ *
+ * <p>Layout, all fixed size numbers big endian and variable length numbers as unsigned LEB128 varints:
+ * <pre>
+ * int magic, byte version, boolean modules, varint headingCount, string[headingCount] attribute headings,
+ * record* (byte 1, string[7] id, groupId, artifactId, version, classifier, type, scope,
+ *          [varint moduleCount, string[moduleCount] modules], varint attributeCount, string[attributeCount] attributes),
+ * byte 0
+ * </pre>
+ * A string starts with a varint reference. 0 is null. 1 is a string that is not added to the dictionary and 2 is a
+ * string added as the next dictionary entry, both followed by a varint byte length and the UTF-8 bytes. Any other
+ * reference {@code n} refers to dictionary entry {@code n - 3}.
+ */
+public class BinaryReportWriter implements IReportWriter {
+
+    /**
+     * The filename of the exported report.
+     */
+    public static final String REPORT_FILENAME = "dependency-report.bin";
+
+    static final int MAGIC = 0x44525054;
+    static final int VERSION = 1;
+    static final int NULL_REFERENCE = 0;
+    static final int INLINE_REFERENCE = 1;
+    static final int NEW_ENTRY_REFERENCE = 2;
+    static final int FIRST_ENTRY_REFERENCE = 3;
+    static final int RECORD = 1;
+    static final int END = 0;
+
+    // Bounds the memory used by the dictionary, long or late strings are written in full each time instead.
+    private static final int MAX_DICTIONARY_ENTRIES = 1 << 16;
+    private static final int MAX_DICTIONARY_STRING_LENGTH = 256;
+
+    private final File reportFile;
+    private final DataOutputStream out;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private boolean modules;
+
+    /**
+     * Instantiates a new Binary report writer, creating the output directory if required.
+     *
+     * @param outputDirectory the directory to export the report to
+     * @throws MojoExecutionException if the report file cannot be created
+     */
+    public BinaryReportWriter(File outputDirectory) throws MojoExecutionException {
+        this(outputDirectory, Compression.NONE);
+    }
+
+    /**
+     * Instantiates a new Binary report writer compressing the report, the codec's extension is added to the filename.
+     *
+     * @param outputDirectory the directory to export the report to
+     * @param compression     the codec the report is compressed with
+     * @throws MojoExecutionException if the report file cannot be created
+     */
+    public BinaryReportWriter(File outputDirectory, Compression compression) throws MojoExecutionException {
+        reportFile = new File(outputDirectory, REPORT_FILENAME + compression.getExtension());
+        out = new DataOutputStream(ReportFiles.openStream(outputDirectory, REPORT_FILENAME, compression));
+    }
+
+    @Override
+    public void writeHeader(ReportHeader header) throws MojoExecutionException {
+        modules = header.hasModules();
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeBoolean(modules);
+            writeStrings(header.getAttributeHeadings());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing report " + reportFile, e);
+        }
+    }
+
+    @Override
+    public void writeDependency(DependencyRow row, Collection<String> dependencyModules, String[] attributes) throws MojoExecutionException {
+        try {
+            out.writeByte(RECORD);
+            writeString(row.getId());
+            writeString(row.getGroupId());
+            writeString(row.getArtifactId());
+            writeString(row.getVersion());
+            writeString(row.getClassifier());
+            writeString(row.getType());
+            writeString(row.getScope());
+            if (modules) {
+                if (dependencyModules == null) {
+                    writeVarint(0);
+                } else {
+                    writeVarint(dependencyModules.size());
+                    for (String module : dependencyModules) {
+                        writeString(module);
+                    }
+                }
+            }
+            writeStrings(attributes);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing report " + reportFile, e);
+        }
+    }
+
+    @Override
+    public void close() throws MojoExecutionException {
+        try {
+            out.writeByte(END);
+            out.close();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing report " + reportFile, e);
+        }
+    }
+
+    private void writeStrings(String[] values) throws IOException {
+        writeVarint(values.length);
+        for (String value : values) {
+            writeString(value);
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarint(NULL_REFERENCE);
+            return;
+        }
+        Integer entry = dictionary.get(value);
+        if (entry != null) {
+            writeVarint(FIRST_ENTRY_REFERENCE + entry);
+            return;
+        }
+        if (dictionary.size() < MAX_DICTIONARY_ENTRIES && value.length() <= MAX_DICTIONARY_STRING_LENGTH) {
+            dictionary.put(value, dictionary.size());
+            writeVarint(NEW_ENTRY_REFERENCE);
+        } else {
+            writeVarint(INLINE_REFERENCE);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+}
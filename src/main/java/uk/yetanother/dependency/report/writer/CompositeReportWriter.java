@@ -0,0 +1,53 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes the same report to several writers at once, so every selected format is produced from a single traversal of
+ * the dependencies. Closing closes every writer, even if one of them fails.
+ */
+class CompositeReportWriter implements IReportWriter {
+
+    private final List<IReportWriter> writers;
+
+    CompositeReportWriter(List<IReportWriter> writers) {
+        this.writers = new ArrayList<>(writers);
+    }
+
+    @Override
+    public void writeHeader(ReportHeader header) throws MojoExecutionException {
+        for (IReportWriter writer : writers) {
+            writer.writeHeader(header);
+        }
+    }
+
+    @Override
+    public void writeDependency(DependencyRow row, Collection<String> modules, String[] attributes) throws MojoExecutionException {
+        for (IReportWriter writer : writers) {
+            writer.writeDependency(row, modules, attributes);
+        }
+    }
+
+    @Override
+    public void close() throws MojoExecutionException {
+        MojoExecutionException failure = null;
+        for (IReportWriter writer : writers) {
+            try {
+                writer.close();
+            } catch (MojoExecutionException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.File;
+
+/**
+ * The {@code csv} report format, comma separated values quoted where required.
+ */
+public class CsvReportFormat implements IReportFormat {
+
+    @Override
+    public String getName() {
+        return "csv";
+    }
+
+    @Override
+    public String getFilename() {
+        return CsvReportWriter.REPORT_FILENAME;
+    }
+
+    @Override
+    public IReportWriter open(File outputDirectory, Log logger, boolean console) throws MojoExecutionException {
+        return new CsvReportWriter(outputDirectory, logger, console);
+    }
+
+    @Override
+    public IReportWriter open(File outputDirectory, Log logger, boolean console, Compression compression) throws MojoExecutionException {
+        return new CsvReportWriter(outputDirectory, logger, console, compression);
+    }
+}
@@ -0,0 +1,201 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+
+/**
+ * Streams the CSV report to disk one row at a time, so the report is never held in memory as a whole. Values are only
+ * quoted when they contain a delimiter, quote or line break, with quotes doubled as described by RFC 4180. When
+ * console output is enabled each row is also echoed to the log as it is written.
+ */
+public class CsvReportWriter implements IReportWriter {
+
+    /**
+     * The filename of the exported report.
+     */
+    public static final String REPORT_FILENAME = "dependency-report.csv";
+
+    static final char DELIMITER = ',';
+
+    private static final char QUOTE = '"';
+    static final char MODULE_SEPARATOR = ';';
+    private static final int ROW_CAPACITY = 512;
+
+    private final Log logger;
+    private final boolean console;
+    private final File reportFile;
+    private final Writer writer;
+    private final StringBuilder row = new StringBuilder(ROW_CAPACITY);
+    private final StringBuilder modulesValue = new StringBuilder();
+    private boolean firstRow = true;
+
+    /**
+     * Instantiates a new CSV report writer, creating the output directory if required.
+     *
+     * @param outputDirectory the directory to export the report to
+     * @param logger          the logger
+     * @param console         whether the report should also be printed to the console
+     * @throws MojoExecutionException if the report file cannot be created
+     */
+    public CsvReportWriter(File outputDirectory, Log logger, boolean console) throws MojoExecutionException {
+        this(outputDirectory, REPORT_FILENAME, logger, console, Compression.NONE);
+    }
+
+    /**
+     * Instantiates a new CSV report writer compressing the report, the codec's extension is added to the filename.
+     *
+     * @param outputDirectory the directory to export the report to
+     * @param logger          the logger
+     * @param console         whether the report should also be printed to the console
+     * @param compression     the codec the report is compressed with
+     * @throws MojoExecutionException if the report file cannot be created
+     */
+    public CsvReportWriter(File outputDirectory, Log logger, boolean console, Compression compression) throws MojoExecutionException {
+        this(outputDirectory, REPORT_FILENAME, logger, console, compression);
+    }
+
+    /**
+     * Instantiates a new CSV report writer for a report with a different filename.
+     *
+     * @param outputDirectory the directory to export the report to
+     * @param filename        the filename of the report
+     * @param logger          the logger
+     * @param console         whether the report should also be printed to the console
+     * @param compression     the codec the report is compressed with
+     * @throws MojoExecutionException if the report file cannot be created
+     */
+    CsvReportWriter(File outputDirectory, String filename, Log logger, boolean console, Compression compression) throws MojoExecutionException {
+        this.logger = logger;
+        this.console = console;
+        reportFile = new File(outputDirectory, filename + compression.getExtension());
+        writer = ReportFiles.openWriter(outputDirectory, filename, compression);
+
+        if (console) {
+            logger.info("CSV Dependency Report");
+        }
+    }
+
+    @Override
+    public void writeHeader(ReportHeader header) throws MojoExecutionException {
+        row.setLength(0);
+        row.append(DependencyRow.HEADINGS);
+        if (header.hasModules()) {
+            row.append(DELIMITER).append(ReportHeader.MODULES_HEADING);
+        }
+        appendValues(row, header.getAttributeHeadings());
+        writeRow(row);
+    }
+
+    @Override
+    public void writeDependency(DependencyRow dependency, Collection<String> modules, String[] attributes) throws MojoExecutionException {
+        row.setLength(0);
+        dependency.appendTo(row);
+        appendModules(row, modules);
+        appendValues(row, attributes);
+        writeRow(row);
+    }
+
+    /**
+     * Append the modules column, the modules are joined into a single value. Nothing is appended if modules is null.
+     *
+     * @param builder the row to append to
+     * @param modules the reactor modules using the dependency, may be null
+     */
+    void appendModules(StringBuilder builder, Collection<String> modules) {
+        if (modules != null) {
+            modulesValue.setLength(0);
+            for (String module : modules) {
+                if (modulesValue.length() > 0) {
+                    modulesValue.append(MODULE_SEPARATOR);
+                }
+                modulesValue.append(module);
+            }
+            appendValue(builder.append(DELIMITER), modulesValue);
+        }
+    }
+
+    /**
+     * Write a single, already formatted, row of the report. Rows are separated by a new line, with no trailing new line
+     * after the last row.
+     *
+     * @param formattedRow the formatted row
+     * @throws MojoExecutionException if the row cannot be written
+     */
+    public void writeRow(CharSequence formattedRow) throws MojoExecutionException {
+        try {
+            if (!firstRow) {
+                writer.write('\n');
+            }
+            writer.append(formattedRow);
+            firstRow = false;
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing report " + reportFile, e);
+        }
+
+        if (console) {
+            logger.info(formattedRow);
+        }
+    }
+
+    @Override
+    public void close() throws MojoExecutionException {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing report " + reportFile, e);
+        }
+    }
+
+    /**
+     * Append each value as a further column, null values are appended as empty columns.
+     *
+     * @param builder the row to append to
+     * @param values  the values
+     */
+    static void appendValues(StringBuilder builder, String[] values) {
+        for (String value : values) {
+            appendValue(builder.append(DELIMITER), value);
+        }
+    }
+
+    /**
+     * Append a single value, quoting it if required. A null value is appended as an empty value.
+     *
+     * @param builder the row to append to
+     * @param value   the value
+     * @return the builder
+     */
+    static StringBuilder appendValue(StringBuilder builder, CharSequence value) {
+        if (value == null) {
+            return builder;
+        }
+        if (!requiresQuotes(value)) {
+            return builder.append(value);
+        }
+        builder.append(QUOTE);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE) {
+                builder.append(QUOTE);
+            }
+            builder.append(c);
+        }
+        return builder.append(QUOTE);
+    }
+
+    private static boolean requiresQuotes(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == DELIMITER || c == QUOTE || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,33 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.File;
+
+/**
+ * The {@code cyclonedx} report format, a CycloneDX JSON bill of materials.
+ */
+public class CycloneDxReportFormat implements IReportFormat {
+
+    @Override
+    public String getName() {
+        return "cyclonedx";
+    }
+
+    @Override
+    public String getFilename() {
+        return CycloneDxReportWriter.REPORT_FILENAME;
+    }
+
+    @Override
+    public IReportWriter open(File outputDirectory, Log logger, boolean console) throws MojoExecutionException {
+        return new CycloneDxReportWriter(outputDirectory);
+    }
+
+    @Override
+    public IReportWriter open(File outputDirectory, Log logger, boolean console, Compression compression) throws MojoExecutionException {
+        return new CycloneDxReportWriter(outputDirectory, compression);
+    }
+}
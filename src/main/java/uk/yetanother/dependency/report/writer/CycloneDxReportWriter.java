@@ -0,0 +1,167 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * Streams the report as a CycloneDX JSON bill of materials. Each dependency becomes a library component identified by
+ * its package URL. The Maven scope, the modules using it and the additional attributes are added as component
+ * properties, with the attributes named {@code attribute:<heading>}. Test and provided dependencies are marked as
+ * excluded, as they are not part of the runtime.
+ */
+public class CycloneDxReportWriter implements IReportWriter {
+
+    /**
+     * The filename of the exported report.
+     */
+    public static final String REPORT_FILENAME = "dependency-report.cdx.json";
+
+    private static final String SPEC_VERSION = "1.4";
+    private static final String ATTRIBUTE_PREFIX = "attribute:";
+
+    private final File reportFile;
+    private final Writer writer;
+    private final StringBuilder json = new StringBuilder(1024);
+    private String[] attributeHeadings = new String[0];
+    private boolean firstComponent = true;
+
+    /**
+     * Instantiates a new CycloneDX report writer, creating the output directory if required.
+     *
+     * @param outputDirectory the directory to export the report to
+     * @throws MojoExecutionException if the report file cannot be created
+     */
+    public CycloneDxReportWriter(File outputDirectory) throws MojoExecutionException {
+        this(outputDirectory, Compression.NONE);
+    }
+
+    /**
+     * Instantiates a new CycloneDX report writer compressing the report, the codec's extension is added to the filename.
+     *
+     * @param outputDirectory the directory to export the report to
+     * @param compression     the codec the report is compressed with
+     * @throws MojoExecutionException if the report file cannot be created
+     */
+    public CycloneDxReportWriter(File outputDirectory, Compression compression) throws MojoExecutionException {
+        reportFile = new File(outputDirectory, REPORT_FILENAME + compression.getExtension());
+        writer = ReportFiles.openWriter(outputDirectory, REPORT_FILENAME, compression);
+    }
+
+    @Override
+    public void writeHeader(ReportHeader header) throws MojoExecutionException {
+        attributeHeadings = header.getAttributeHeadings();
+        json.setLength(0);
+        json.append("{\"bomFormat\":\"CycloneDX\",\"specVersion\":\"").append(SPEC_VERSION).append("\",\"version\":1,\n");
+        json.append("\"metadata\":{\"component\":{\"type\":\"application\"");
+        appendCoordinates(header.getGroupId(), header.getArtifactId(), header.getVersion(), null, null);
+        json.append("}},\n\"components\":[");
+        write();
+    }
+
+    @Override
+    public void writeDependency(DependencyRow row, Collection<String> modules, String[] attributes) throws MojoExecutionException {
+        json.setLength(0);
+        json.append(firstComponent ? "\n" : ",\n");
+        firstComponent = false;
+        json.append("{\"type\":\"library\"");
+        appendCoordinates(row.getGroupId(), row.getArtifactId(), row.getVersion(), row.getClassifier(), row.getType());
+        json.append(",\"scope\":\"").append(isExcluded(row.getScope()) ? "excluded" : "required").append('"');
+        json.append(",\"properties\":[");
+        boolean first = appendProperty(true, "maven:scope", row.getScope());
+        first = appendProperty(first, "maven:type", row.getType());
+        if (modules != null) {
+            for (String module : modules) {
+                first = appendProperty(first, "maven:module", module);
+            }
+        }
+        for (int i = 0; i < attributeHeadings.length && i < attributes.length; i++) {
+            first = appendProperty(first, ATTRIBUTE_PREFIX + attributeHeadings[i], attributes[i]);
+        }
+        json.append("]}");
+        write();
+    }
+
+    @Override
+    public void close() throws MojoExecutionException {
+        try {
+            writer.write("\n]}\n");
+            writer.close();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing report " + reportFile, e);
+        }
+    }
+
+    private void appendCoordinates(String groupId, String artifactId, String version, String classifier, String type) {
+        String purl = purl(groupId, artifactId, version, classifier, type);
+        JsonStrings.appendMember(json, false, "bom-ref", purl);
+        JsonStrings.appendMember(json, false, "group", groupId);
+        JsonStrings.appendMember(json, false, "name", artifactId);
+        JsonStrings.appendMember(json, false, "version", version);
+        JsonStrings.appendMember(json, false, "purl", purl);
+    }
+
+    private boolean appendProperty(boolean first, String name, String value) {
+        if (value == null) {
+            return first;
+        }
+        json.append(first ? "{" : ",{");
+        JsonStrings.appendMember(json, true, "name", name);
+        JsonStrings.appendMember(json, false, "value", value);
+        json.append('}');
+        return false;
+    }
+
+    private void write() throws MojoExecutionException {
+        try {
+            writer.append(json);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing report " + reportFile, e);
+        }
+    }
+
+    private static boolean isExcluded(String scope) {
+        return "test".equals(scope) || "provided".equals(scope);
+    }
+
+    /**
+     * Build the Maven package URL of an artifact, the type is only given when it is not a plain JAR.
+     */
+    static String purl(String groupId, String artifactId, String version, String classifier, String type) {
+        StringBuilder purl = new StringBuilder("pkg:maven/");
+        encode(purl, groupId).append('/');
+        encode(purl, artifactId);
+        if (version != null) {
+            encode(purl.append('@'), version);
+        }
+        char separator = '?';
+        if (classifier != null && !classifier.isEmpty()) {
+            encode(purl.append(separator).append("classifier="), classifier);
+            separator = '&';
+        }
+        if (type != null && !type.isEmpty() && !"jar".equals(type)) {
+            encode(purl.append(separator).append("type="), type);
+        }
+        return purl.toString();
+    }
+
+    private static StringBuilder encode(StringBuilder purl, String value) {
+        if (value == null) {
+            return purl;
+        }
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '_' || c == '~') {
+                purl.append(c);
+            } else {
+                purl.append('%').append(String.format("%02X", (int) c));
+            }
+        }
+        return purl;
+    }
+}
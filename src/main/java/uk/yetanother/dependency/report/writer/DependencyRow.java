@@ -0,0 +1,100 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.artifact.Artifact;
+
+/**
+ * The basic report columns of a single dependency. The values reference the strings already held by the Maven
+ * artifact, so no formatting takes place until the row is appended to the report.
+ */
+public class DependencyRow {
+
+    /**
+     * The headings of the columns provided by a dependency row, in the order they are appended.
+     */
+    public static final String HEADINGS = "id,groupId,artifactId,version,classifier,type,scope";
+
+    private final String id;
+    private final String groupId;
+    private final String artifactId;
+    private final String version;
+    private final String classifier;
+    private final String type;
+    private final String scope;
+
+    /**
+     * Instantiates a new Dependency row from the artifact of a dependency node.
+     *
+     * @param id       the artifact ID, passed in as it has already been computed by the caller
+     * @param artifact the artifact
+     */
+    public DependencyRow(String id, Artifact artifact) {
+        this(id, artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion(), artifact.getClassifier(),
+                artifact.getType(), artifact.getScope());
+    }
+
+    /**
+     * Instantiates a new Dependency row.
+     *
+     * @param id         the artifact ID
+     * @param groupId    the group ID
+     * @param artifactId the artifact ID without the group, type or version
+     * @param version    the version
+     * @param classifier the classifier, may be null
+     * @param type       the type
+     * @param scope      the scope, may be null
+     */
+    public DependencyRow(String id, String groupId, String artifactId, String version, String classifier, String type, String scope) {
+        this.id = id;
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.version = version;
+        this.classifier = classifier;
+        this.type = type;
+        this.scope = scope;
+    }
+
+    /**
+     * Append the row to the builder as comma separated values, quoting values that require it. Null values are appended
+     * as empty columns.
+     *
+     * @param builder the builder to append to
+     * @return the builder
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        CsvReportWriter.appendValue(builder, id).append(CsvReportWriter.DELIMITER);
+        CsvReportWriter.appendValue(builder, groupId).append(CsvReportWriter.DELIMITER);
+        CsvReportWriter.appendValue(builder, artifactId).append(CsvReportWriter.DELIMITER);
+        CsvReportWriter.appendValue(builder, version).append(CsvReportWriter.DELIMITER);
+        CsvReportWriter.appendValue(builder, classifier).append(CsvReportWriter.DELIMITER);
+        CsvReportWriter.appendValue(builder, type).append(CsvReportWriter.DELIMITER);
+        return CsvReportWriter.appendValue(builder, scope);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getClassifier() {
+        return classifier;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+}
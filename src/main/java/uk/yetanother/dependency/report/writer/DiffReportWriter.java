@@ -0,0 +1,117 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.File;
+import java.util.Collection;
+
+/**
+ * Streams a CSV report of the dependencies that changed since a baseline report. Each row starts with the kind of
+ * change and the version in the baseline, followed by the same columns as the full CSV report.
+ */
+public class DiffReportWriter implements AutoCloseable {
+
+    /**
+     * The filename of the exported differential report.
+     */
+    public static final String REPORT_FILENAME = "dependency-report-diff.csv";
+
+    /**
+     * The headings of the columns written before the columns of the full report.
+     */
+    public static final String HEADINGS = "change,previousVersion";
+
+    private static final int ROW_CAPACITY = 512;
+
+    private final CsvReportWriter csvWriter;
+    private final StringBuilder row = new StringBuilder(ROW_CAPACITY);
+
+    /**
+     * The kind of change to a dependency since the baseline.
+     */
+    public enum Change {
+        ADDED("added"),
+        REMOVED("removed"),
+        VERSION_CHANGED("versionChanged");
+
+        private final String value;
+
+        Change(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+
+    /**
+     * Instantiates a new Diff report writer, creating the output directory if required.
+     *
+     * @param outputDirectory the directory to export the report to
+     * @param logger          the logger
+     * @param console         whether the report should also be printed to the console
+     * @throws MojoExecutionException if the report file cannot be created
+     */
+    public DiffReportWriter(File outputDirectory, Log logger, boolean console) throws MojoExecutionException {
+        this(outputDirectory, logger, console, Compression.NONE);
+    }
+
+    /**
+     * Instantiates a new differential report writer compressing the report, the codec's extension is added to the
+     * filename.
+     *
+     * @param outputDirectory the directory to export the report to
+     * @param logger          the logger
+     * @param console         whether the report should also be printed to the console
+     * @param compression     the codec the report is compressed with
+     * @throws MojoExecutionException if the report file cannot be created
+     */
+    public DiffReportWriter(File outputDirectory, Log logger, boolean console, Compression compression) throws MojoExecutionException {
+        csvWriter = new CsvReportWriter(outputDirectory, REPORT_FILENAME, logger, console, compression);
+    }
+
+    /**
+     * Write the headings row.
+     *
+     * @param header describes the project and the columns of the report
+     * @throws MojoExecutionException if the report cannot be written
+     */
+    public void writeHeader(ReportHeader header) throws MojoExecutionException {
+        row.setLength(0);
+        row.append(HEADINGS).append(CsvReportWriter.DELIMITER).append(DependencyRow.HEADINGS);
+        if (header.hasModules()) {
+            row.append(CsvReportWriter.DELIMITER).append(ReportHeader.MODULES_HEADING);
+        }
+        CsvReportWriter.appendValues(row, header.getAttributeHeadings());
+        csvWriter.writeRow(row);
+    }
+
+    /**
+     * Write a single changed dependency.
+     *
+     * @param change          the kind of change
+     * @param previousVersion the version in the baseline, null if the dependency was added
+     * @param dependency      the basic columns of the dependency, from the baseline if it was removed
+     * @param modules         the reactor modules using the dependency, null unless the report includes modules
+     * @param attributes      the additional attributes from the datastore
+     * @throws MojoExecutionException if the dependency cannot be written
+     */
+    public void writeChange(Change change, String previousVersion, DependencyRow dependency, Collection<String> modules, String[] attributes) throws MojoExecutionException {
+        row.setLength(0);
+        row.append(change).append(CsvReportWriter.DELIMITER);
+        CsvReportWriter.appendValue(row, previousVersion).append(CsvReportWriter.DELIMITER);
+        dependency.appendTo(row);
+        csvWriter.appendModules(row, modules);
+        CsvReportWriter.appendValues(row, attributes);
+        csvWriter.writeRow(row);
+    }
+
+    @Override
+    public void close() throws MojoExecutionException {
+        csvWriter.close();
+    }
+}
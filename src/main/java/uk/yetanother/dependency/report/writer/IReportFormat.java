@@ -0,0 +1,57 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.File;
+
+/**
+ * A report format that can be selected by name. Formats are discovered with {@link java.util.ServiceLoader}, so
+ * further formats can be added by listing them in {@code META-INF/services} of a JAR added as a plugin dependency.
+ */
+public interface IReportFormat {
+
+    /**
+     * Get the name the format is selected by.
+     *
+     * @return the format name
+     */
+    String getName();
+
+    /**
+     * Get the filename the report is written to within the output directory.
+     *
+     * @return the report filename
+     */
+    String getFilename();
+
+    /**
+     * Open a writer for a new report, replacing any existing report.
+     *
+     * @param outputDirectory the directory to write the report to, created if required
+     * @param logger          the logger
+     * @param console         whether the report should also be printed to the console, if the format supports it
+     * @return the report writer
+     * @throws MojoExecutionException if the report cannot be created
+     */
+    IReportWriter open(File outputDirectory, Log logger, boolean console) throws MojoExecutionException;
+
+    /**
+     * Open a writer for a new report compressed with the given codec, the codec's extension is added to the filename.
+     * Formats that do not support compression only accept {@link Compression#NONE}.
+     *
+     * @param outputDirectory the directory to write the report to, created if required
+     * @param logger          the logger
+     * @param console         whether the report should also be printed to the console, if the format supports it
+     * @param compression     the codec the report is compressed with
+     * @return the report writer
+     * @throws MojoExecutionException if the report cannot be created or the format cannot be compressed
+     */
+    default IReportWriter open(File outputDirectory, Log logger, boolean console, Compression compression) throws MojoExecutionException {
+        if (compression != Compression.NONE) {
+            throw new MojoExecutionException(String.format("The report format '%s' does not support %s compression", getName(), compression.getCodecName()));
+        }
+        return open(outputDirectory, logger, console);
+    }
+}
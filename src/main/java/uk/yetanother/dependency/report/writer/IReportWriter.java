@@ -0,0 +1,38 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.util.Collection;
+
+/**
+ * Streams a report in a single format. The header is written once, followed by each dependency in report order, and
+ * the report is complete once the writer is closed. Writers must not hold the dependencies in memory.
+ */
+public interface IReportWriter extends AutoCloseable {
+
+    /**
+     * Write the start of the report.
+     *
+     * @param header describes the project and the columns of the report
+     * @throws MojoExecutionException if the report cannot be written
+     */
+    void writeHeader(ReportHeader header) throws MojoExecutionException;
+
+    /**
+     * Write a single dependency.
+     *
+     * @param row        the basic columns of the dependency
+     * @param modules    the reactor modules using the dependency, null unless the report includes modules
+     * @param attributes the additional attributes from the datastore, in the order of the header's attribute headings
+     * @throws MojoExecutionException if the dependency cannot be written
+     */
+    void writeDependency(DependencyRow row, Collection<String> modules, String[] attributes) throws MojoExecutionException;
+
+    /**
+     * Complete the report and release the file.
+     *
+     * @throws MojoExecutionException if the report cannot be completed
+     */
+    @Override
+    void close() throws MojoExecutionException;
+}
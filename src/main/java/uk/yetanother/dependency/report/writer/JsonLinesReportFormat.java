@@ -0,0 +1,33 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.File;
+
+/**
+ * The {@code jsonl} report format, one JSON object per dependency.
+ */
+public class JsonLinesReportFormat implements IReportFormat {
+
+    @Override
+    public String getName() {
+        return "jsonl";
+    }
+
+    @Override
+    public String getFilename() {
+        return JsonLinesReportWriter.REPORT_FILENAME;
+    }
+
+    @Override
+    public IReportWriter open(File outputDirectory, Log logger, boolean console) throws MojoExecutionException {
+        return new JsonLinesReportWriter(outputDirectory);
+    }
+
+    @Override
+    public IReportWriter open(File outputDirectory, Log logger, boolean console, Compression compression) throws MojoExecutionException {
+        return new JsonLinesReportWriter(outputDirectory, compression);
+    }
+}
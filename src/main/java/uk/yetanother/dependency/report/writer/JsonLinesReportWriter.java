@@ -0,0 +1,98 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+
+/**
+ * Streams the report as JSON Lines, one JSON object per dependency. Each object has the basic report columns, the
+ * modules using the dependency for aggregate reports and an {@code attributes} object keyed by the additional attribute
+ * headings. Values the report does not have are written as null.
+ */
+public class JsonLinesReportWriter implements IReportWriter {
+
+    /**
+     * The filename of the exported report.
+     */
+    public static final String REPORT_FILENAME = "dependency-report.jsonl";
+
+    private final File reportFile;
+    private final Writer writer;
+    private final StringBuilder line = new StringBuilder(512);
+    private String[] attributeHeadings = new String[0];
+
+    /**
+     * Instantiates a new JSON Lines report writer, creating the output directory if required.
+     *
+     * @param outputDirectory the directory to export the report to
+     * @throws MojoExecutionException if the report file cannot be created
+     */
+    public JsonLinesReportWriter(File outputDirectory) throws MojoExecutionException {
+        this(outputDirectory, Compression.NONE);
+    }
+
+    /**
+     * Instantiates a new JSON Lines report writer compressing the report, the codec's extension is added to the filename.
+     *
+     * @param outputDirectory the directory to export the report to
+     * @param compression     the codec the report is compressed with
+     * @throws MojoExecutionException if the report file cannot be created
+     */
+    public JsonLinesReportWriter(File outputDirectory, Compression compression) throws MojoExecutionException {
+        reportFile = new File(outputDirectory, REPORT_FILENAME + compression.getExtension());
+        writer = ReportFiles.openWriter(outputDirectory, REPORT_FILENAME, compression);
+    }
+
+    @Override
+    public void writeHeader(ReportHeader header) {
+        attributeHeadings = header.getAttributeHeadings();
+    }
+
+    @Override
+    public void writeDependency(DependencyRow row, Collection<String> modules, String[] attributes) throws MojoExecutionException {
+        line.setLength(0);
+        line.append('{');
+        JsonStrings.appendMember(line, true, "id", row.getId());
+        JsonStrings.appendMember(line, false, "groupId", row.getGroupId());
+        JsonStrings.appendMember(line, false, "artifactId", row.getArtifactId());
+        JsonStrings.appendMember(line, false, "version", row.getVersion());
+        JsonStrings.appendMember(line, false, "classifier", row.getClassifier());
+        JsonStrings.appendMember(line, false, "type", row.getType());
+        JsonStrings.appendMember(line, false, "scope", row.getScope());
+        if (modules != null) {
+            line.append(",\"").append(ReportHeader.MODULES_HEADING).append("\":[");
+            boolean first = true;
+            for (String module : modules) {
+                if (!first) {
+                    line.append(',');
+                }
+                JsonStrings.append(line, module);
+                first = false;
+            }
+            line.append(']');
+        }
+        line.append(",\"attributes\":{");
+        for (int i = 0; i < attributeHeadings.length; i++) {
+            JsonStrings.appendMember(line, i == 0, attributeHeadings[i], i < attributes.length ? attributes[i] : null);
+        }
+        line.append("}}\n");
+        try {
+            writer.append(line);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing report " + reportFile, e);
+        }
+    }
+
+    @Override
+    public void close() throws MojoExecutionException {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing report " + reportFile, e);
+        }
+    }
+}
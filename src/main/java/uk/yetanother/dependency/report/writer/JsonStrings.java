@@ -0,0 +1,68 @@
+package uk.yetanother.dependency.report.writer;
+
+/**
+ * Formats JSON string values, escaping quotes, backslashes and control characters.
+ */
+public final class JsonStrings {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private JsonStrings() {
+    }
+
+    /**
+     * Append a value as a JSON string, or as a JSON null if the value is null.
+     *
+     * @param json  the JSON to append to
+     * @param value the value
+     * @return the JSON
+     */
+    public static StringBuilder append(StringBuilder json, String value) {
+        if (value == null) {
+            return json.append("null");
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                    json.append('\\').append(c);
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        return json.append('"');
+    }
+
+    /**
+     * Append a name and value pair, preceded by a comma unless it is the first member of the object.
+     *
+     * @param json  the JSON to append to
+     * @param first whether this is the first member of the object
+     * @param name  the member name
+     * @param value the value
+     * @return the JSON
+     */
+    static StringBuilder appendMember(StringBuilder json, boolean first, String name, String value) {
+        if (!first) {
+            json.append(',');
+        }
+        append(json, name).append(':');
+        return append(json, value);
+    }
+}
@@ -0,0 +1,65 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Opens report files for the writers, creating the output directory if required and replacing any existing report.
+ * Compressed reports are compressed as they are written, the codec's extension is added to the filename.
+ */
+final class ReportFiles {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ReportFiles() {
+    }
+
+    static Writer openWriter(File outputDirectory, String filename, Compression compression) throws MojoExecutionException {
+        Path reportFile = createDirectory(outputDirectory).resolve(filename + compression.getExtension());
+        try {
+            if (compression == Compression.NONE) {
+                return new BufferedWriter(Channels.newWriter(openChannel(reportFile), StandardCharsets.UTF_8.newEncoder(), -1), BUFFER_SIZE);
+            }
+            return new BufferedWriter(new OutputStreamWriter(compression.compress(Channels.newOutputStream(openChannel(reportFile))), StandardCharsets.UTF_8), BUFFER_SIZE);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing report " + reportFile, e);
+        }
+    }
+
+    static OutputStream openStream(File outputDirectory, String filename, Compression compression) throws MojoExecutionException {
+        Path reportFile = createDirectory(outputDirectory).resolve(filename + compression.getExtension());
+        try {
+            // Buffered ahead of the codec, so it compresses large blocks rather than each value written.
+            return new BufferedOutputStream(compression.compress(Channels.newOutputStream(openChannel(reportFile))), BUFFER_SIZE);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing report " + reportFile, e);
+        }
+    }
+
+    private static FileChannel openChannel(Path reportFile) throws IOException {
+        return FileChannel.open(reportFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    private static Path createDirectory(File outputDirectory) throws MojoExecutionException {
+        if (!outputDirectory.exists()) {
+            boolean result = outputDirectory.mkdirs();
+            if (!result) {
+                throw new MojoExecutionException("Error creating folders for path " + outputDirectory.getAbsolutePath());
+            }
+        }
+        return outputDirectory.toPath();
+    }
+}
@@ -0,0 +1,104 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Looks up the report formats available to the plugin by name and opens writers for them.
+ */
+public final class ReportFormats {
+
+    private ReportFormats() {
+    }
+
+    /**
+     * Get every available report format keyed by name, the built in formats are listed first.
+     *
+     * @return the report formats
+     */
+    public static Map<String, IReportFormat> getAvailableFormats() {
+        Map<String, IReportFormat> formats = new LinkedHashMap<>();
+        for (IReportFormat format : ServiceLoader.load(IReportFormat.class, IReportFormat.class.getClassLoader())) {
+            formats.putIfAbsent(format.getName().toLowerCase(Locale.ROOT), format);
+        }
+        return formats;
+    }
+
+    /**
+     * Resolve the selected format names, ignoring case and repeated names.
+     *
+     * @param names the format names
+     * @return the formats in the order they were first named
+     * @throws MojoExecutionException if a name is not an available format or no formats are named
+     */
+    public static List<IReportFormat> resolve(List<String> names) throws MojoExecutionException {
+        Map<String, IReportFormat> available = getAvailableFormats();
+        Map<String, IReportFormat> selected = new LinkedHashMap<>();
+        for (String name : names) {
+            String key = name.trim().toLowerCase(Locale.ROOT);
+            if (key.isEmpty()) {
+                continue;
+            }
+            IReportFormat format = available.get(key);
+            if (format == null) {
+                throw new MojoExecutionException(String.format("Unknown report format '%s', the available formats are %s", name, available.keySet()));
+            }
+            selected.put(key, format);
+        }
+        if (selected.isEmpty()) {
+            throw new MojoExecutionException("At least one report format must be selected, the available formats are " + available.keySet());
+        }
+        return new ArrayList<>(selected.values());
+    }
+
+    /**
+     * Open a writer that writes the report in every one of the formats.
+     *
+     * @param formats         the formats to write
+     * @param outputDirectory the directory to write the reports to
+     * @param logger          the logger
+     * @param console         whether the report should also be printed to the console
+     * @return the report writer
+     * @throws MojoExecutionException if any of the reports cannot be created
+     */
+    public static IReportWriter open(List<IReportFormat> formats, File outputDirectory, Log logger, boolean console) throws MojoExecutionException {
+        return open(formats, outputDirectory, logger, console, Compression.NONE);
+    }
+
+    /**
+     * Open a writer that writes the report in every one of the formats, each compressed with the given codec.
+     *
+     * @param formats         the formats to write
+     * @param outputDirectory the directory to write the reports to
+     * @param logger          the logger
+     * @param console         whether the report should also be printed to the console
+     * @param compression     the codec the reports are compressed with
+     * @return the report writer
+     * @throws MojoExecutionException if any of the reports cannot be created
+     */
+    public static IReportWriter open(List<IReportFormat> formats, File outputDirectory, Log logger, boolean console, Compression compression) throws MojoExecutionException {
+        List<IReportWriter> writers = new ArrayList<>(formats.size());
+        try {
+            for (IReportFormat format : formats) {
+                writers.add(format.open(outputDirectory, logger, console, compression));
+            }
+        } catch (MojoExecutionException e) {
+            try {
+                new CompositeReportWriter(writers).close();
+            } catch (MojoExecutionException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+        return writers.size() == 1 ? writers.get(0) : new CompositeReportWriter(writers);
+    }
+}
@@ -0,0 +1,55 @@
+package uk.yetanother.dependency.report.writer;
+
+/**
+ * Describes the report being written, the project it is for and the columns each dependency has.
+ */
+public class ReportHeader {
+
+    /**
+     * The heading of the modules column included in aggregate reports.
+     */
+    public static final String MODULES_HEADING = "modules";
+
+    private final String groupId;
+    private final String artifactId;
+    private final String version;
+    private final boolean modules;
+    private final String[] attributeHeadings;
+
+    /**
+     * Instantiates a new Report header.
+     *
+     * @param groupId           the group ID of the project the report is for
+     * @param artifactId        the artifact ID of the project the report is for
+     * @param version           the version of the project the report is for
+     * @param modules           whether each dependency lists the reactor modules using it
+     * @param attributeHeadings the additional attribute headings from the datastore
+     */
+    public ReportHeader(String groupId, String artifactId, String version, boolean modules, String[] attributeHeadings) {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.version = version;
+        this.modules = modules;
+        this.attributeHeadings = attributeHeadings;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public boolean hasModules() {
+        return modules;
+    }
+
+    public String[] getAttributeHeadings() {
+        return attributeHeadings;
+    }
+}
@@ -0,0 +1,80 @@
+package uk.yetanother.dependency.report.compression;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class CompressionTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void roundTripTest() throws IOException {
+        StringBuilder content = new StringBuilder("id,licence\n");
+        for (int i = 0; i < 10_000; i++) {
+            content.append("org.example:lib").append(i).append(":jar:1.0,Apache 2.0\n");
+        }
+        byte[] data = content.toString().getBytes(StandardCharsets.UTF_8);
+
+        for (Compression compression : Compression.values()) {
+            Path file = temporaryFolder.getRoot().toPath().resolve("data.csv" + compression.getExtension());
+            try (OutputStream out = compression.compress(Files.newOutputStream(file))) {
+                out.write(data);
+            }
+            assertEquals(compression, Compression.detect(file));
+            if (compression != Compression.NONE) {
+                assertTrue(compression + " should compress repeated rows", Files.size(file) < data.length / 4);
+            }
+            try (InputStream in = Compression.open(file)) {
+                assertArrayEquals(compression.toString(), data, readAll(in));
+            }
+        }
+    }
+
+    @Test
+    public void shortAndMissingFilesTest() throws IOException {
+        Path empty = temporaryFolder.newFile("empty.csv").toPath();
+        assertEquals(Compression.NONE, Compression.detect(empty));
+        try (InputStream in = Compression.open(empty)) {
+            assertEquals(-1, in.read());
+        }
+        Path single = temporaryFolder.getRoot().toPath().resolve("single.csv");
+        Files.write(single, new byte[]{0x1f});
+        assertEquals(Compression.NONE, Compression.detect(single));
+        assertEquals(Compression.NONE, Compression.detect(temporaryFolder.getRoot().toPath().resolve("missing.csv")));
+    }
+
+    @Test
+    public void namedTest() throws MojoExecutionException {
+        assertEquals(Compression.NONE, Compression.named(null));
+        assertEquals(Compression.GZIP, Compression.named(" GZip "));
+        assertEquals(Compression.ZSTD, Compression.named("zstd"));
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void unknownCodecTest() throws MojoExecutionException {
+        Compression.named("lz4");
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
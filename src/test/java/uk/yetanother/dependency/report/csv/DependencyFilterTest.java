@@ -0,0 +1,49 @@
+package uk.yetanother.dependency.report.csv;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class DependencyFilterTest {
+
+    @Test
+    public void noFilterIncludesEverythingTest() {
+        DependencyFilter filter = new DependencyFilter();
+        assertFalse(filter.isFiltering());
+        assertTrue(filter.include(createArtifact("org.example", "test", "pom")));
+    }
+
+    @Test
+    public void includesAndExcludesTest() {
+        DependencyFilter filter = new DependencyFilter()
+                .scopes(Arrays.asList("compile", "runtime"), null)
+                .groupIds(Collections.singletonList("org.springframework*"), Collections.singletonList("org.springframework.*.test"))
+                .types(null, Collections.singletonList("pom"));
+        assertTrue(filter.isFiltering());
+
+        assertTrue(filter.include(createArtifact("org.springframework", "compile", "jar")));
+        assertTrue(filter.include(createArtifact("org.springframework.boot", "runtime", "jar")));
+        assertFalse(filter.include(createArtifact("org.springframework.boot", "test", "jar")));
+        assertFalse(filter.include(createArtifact("org.springframework.boot.test", "compile", "jar")));
+        assertFalse(filter.include(createArtifact("org.springframework.boot", "compile", "pom")));
+        assertFalse(filter.include(createArtifact("com.example", "compile", "jar")));
+    }
+
+    @Test
+    public void sameFiltersDescribedTheSameTest() {
+        DependencyFilter first = new DependencyFilter().scopes(null, Arrays.asList("test", " provided "));
+        DependencyFilter second = new DependencyFilter().scopes(Collections.emptyList(), Arrays.asList("test", "provided"));
+        assertEquals(first.toString(), second.toString());
+        assertNotEquals(first.toString(), new DependencyFilter().toString());
+    }
+
+    private static Artifact createArtifact(String groupId, String scope, String type) {
+        return new DefaultArtifact(groupId, "artifact", "1.0", scope, type, null, new DefaultArtifactHandler(type));
+    }
+}
@@ -0,0 +1,69 @@
+package uk.yetanother.dependency.report.csv;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DependencyGraphTest {
+
+    @Test
+    public void shortestPathTest() {
+        DependencyGraph graph = new DependencyGraph();
+        int root = graph.addOccurrence("root", -1, 0);
+        int a = graph.addOccurrence("a", root, 1);
+        int deep = graph.addOccurrence("deep", a, 2);
+        graph.addOccurrence("c", deep, 3);
+        int b = graph.addOccurrence("b", root, 1);
+        graph.addOccurrence("c", b, 2);
+        graph.addOccurrence("c", b, 2);
+
+        assertEquals(5, graph.size());
+        assertEquals(2, graph.getDepth("c"));
+        assertEquals(Arrays.asList("root", "b", "c"), graph.getShortestPath("c"));
+        assertEquals(Arrays.asList("deep", "b"), graph.getParents("c"));
+        assertArrayEquals(new String[]{"2", "root > b > c", "deep;b"}, graph.getColumns("c"));
+        assertArrayEquals(new String[]{"0", "root", ""}, graph.getColumns("root"));
+        assertArrayEquals(new String[3], graph.getColumns("missing"));
+    }
+
+    @Test
+    public void manyEdgesTest() {
+        DependencyGraph graph = new DependencyGraph();
+        int root = graph.addOccurrence("root", -1, 0);
+        // Far more occurrences than the initial capacity, most of them repeats of the same edges.
+        for (int i = 0; i < 50_000; i++) {
+            int parent = graph.addOccurrence("parent" + (i % 100), root, 1);
+            graph.addOccurrence("child" + (i / 100 % 250), parent, 2);
+        }
+        assertEquals(351, graph.size());
+        // Each child is introduced by every parent, twice over.
+        List<String> parents = graph.getParents("child0");
+        assertEquals(100, parents.size());
+        assertEquals("parent0", parents.get(0));
+        assertEquals("parent99", parents.get(99));
+    }
+
+    @Test
+    public void mergeKeepsEarlierPathOnTieTest() {
+        DependencyGraph first = new DependencyGraph();
+        int module0 = first.addOccurrence("module0", -1, 0);
+        first.addOccurrence("lib", first.addOccurrence("a", module0, 1), 2);
+
+        DependencyGraph second = new DependencyGraph();
+        int module1 = second.addOccurrence("module1", -1, 0);
+        second.addOccurrence("lib", second.addOccurrence("b", module1, 1), 2);
+        second.addOccurrence("other", module1, 1);
+
+        DependencyGraph merged = new DependencyGraph();
+        merged.merge(first);
+        merged.merge(second);
+        assertEquals(Arrays.asList("module0", "a", "lib"), merged.getShortestPath("lib"));
+        assertEquals(Arrays.asList("a", "b"), merged.getParents("lib"));
+        assertEquals(Arrays.asList("module1", "other"), merged.getShortestPath("other"));
+        assertEquals(Collections.singletonList("module1"), merged.getShortestPath("module1"));
+    }
+}
@@ -0,0 +1,150 @@
+package uk.yetanother.dependency.report.csv;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.shared.dependency.graph.DependencyGraphBuilder;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.junit.Test;
+import uk.yetanother.dependency.report.csv.ReactorDependencyResolver.AggregatedDependency;
+import uk.yetanother.dependency.report.metrics.ExecutionMetrics;
+import uk.yetanother.dependency.report.writer.DependencyRow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ReactorDependencyResolverTest {
+
+    private final Map<String, String[]> moduleDependencies = new HashMap<>();
+
+    private final DependencyGraphBuilder graphBuilder = (request, filter) -> {
+        MavenProject project = request.getProject();
+        // Delay earlier modules the longest so the worker threads finish out of reactor order.
+        try {
+            Thread.sleep(10L * (moduleDependencies.size() - Integer.parseInt(project.getArtifactId().substring(6))));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return createTree(project.getArtifactId(), moduleDependencies.get(project.getArtifactId()));
+    };
+
+    @Test
+    public void resolveReactorMatchesSingleThreadedOrderTest() throws MojoExecutionException {
+        moduleDependencies.put("module0", new String[]{"dep1", "dep2"});
+        moduleDependencies.put("module1", new String[]{"dep3", "dep1"});
+        moduleDependencies.put("module2", new String[]{"dep4", "dep2", "dep3"});
+        List<MavenProject> projects = createProjects(3);
+
+        Map<String, AggregatedDependency> singleThreaded = new ReactorDependencyResolver(graphBuilder, new DefaultProjectBuildingRequest(), 1).resolveReactor(projects);
+        Map<String, AggregatedDependency> multiThreaded = new ReactorDependencyResolver(graphBuilder, new DefaultProjectBuildingRequest(), 3).resolveReactor(projects);
+
+        assertEquals(Arrays.asList("test:module0:jar:1.0", "test:dep1:jar:1.0", "test:dep2:jar:1.0",
+                "test:module1:jar:1.0", "test:dep3:jar:1.0", "test:module2:jar:1.0", "test:dep4:jar:1.0"), new ArrayList<>(singleThreaded.keySet()));
+        assertEquals(new ArrayList<>(singleThreaded.keySet()), new ArrayList<>(multiThreaded.keySet()));
+        assertEquals(Arrays.asList("module0", "module2"), new ArrayList<>(multiThreaded.get("test:dep2:jar:1.0").getModules()));
+        assertEquals(Arrays.asList("module1", "module2"), new ArrayList<>(multiThreaded.get("test:dep3:jar:1.0").getModules()));
+    }
+
+    @Test
+    public void resolveProjectTest() throws MojoExecutionException {
+        moduleDependencies.put("module0", new String[]{"dep1", "dep2"});
+        Map<String, DependencyRow> dependencies = new ReactorDependencyResolver(graphBuilder, new DefaultProjectBuildingRequest(), 1).resolveProject(createProjects(1).get(0));
+
+        assertEquals(Arrays.asList("test:module0:jar:1.0", "test:dep1:jar:1.0", "test:dep2:jar:1.0"), new ArrayList<>(dependencies.keySet()));
+        assertEquals("test:dep1:jar:1.0,test,dep1,1.0,,jar,compile", dependencies.get("test:dep1:jar:1.0").appendTo(new StringBuilder()).toString());
+    }
+
+    @Test
+    public void resolveProjectWithFilterTest() throws MojoExecutionException {
+        DefaultDependencyNode rootNode = new DefaultDependencyNode(createArtifact("module0"));
+        DefaultDependencyNode compileNode = addChild(rootNode, "dep1", "compile");
+        addChild(compileNode, "dep2", "compile");
+        DefaultDependencyNode testNode = addChild(rootNode, "dep3", "test");
+        addChild(testNode, "dep4", "test");
+        DependencyGraphBuilder treeBuilder = (request, filter) -> rootNode;
+        ExecutionMetrics metrics = new ExecutionMetrics("csv");
+
+        DependencyFilter filter = new DependencyFilter().scopes(null, Collections.singletonList("test"));
+        Map<String, DependencyRow> dependencies = new ReactorDependencyResolver(treeBuilder, new DefaultProjectBuildingRequest(), 1, filter, metrics)
+                .resolveProject(createProjects(1).get(0));
+
+        assertEquals(Arrays.asList("test:module0:jar:1.0", "test:dep1:jar:1.0", "test:dep2:jar:1.0"), new ArrayList<>(dependencies.keySet()));
+        // The test dependency is excluded and the dependency below it is never visited.
+        assertEquals(4L, metrics.getCount("nodesVisited"));
+        assertEquals(1L, metrics.getCount("nodesExcluded"));
+    }
+
+    @Test
+    public void resolveProjectWithPathsTest() throws MojoExecutionException {
+        DefaultDependencyNode rootNode = new DefaultDependencyNode(createArtifact("module0"));
+        DefaultDependencyNode first = addChild(rootNode, "dep1", "compile");
+        addChild(addChild(first, "dep2", "compile"), "dep3", "compile");
+        addChild(addChild(rootNode, "dep4", "test"), "dep3", "test");
+        DependencyGraphBuilder treeBuilder = (request, filter) -> rootNode;
+
+        DependencyGraph graph = new DependencyGraph();
+        new ReactorDependencyResolver(treeBuilder, new DefaultProjectBuildingRequest(), 1).resolveProject(createProjects(1).get(0), graph);
+
+        assertEquals(2, graph.getDepth("test:dep3:jar:1.0"));
+        assertEquals(Arrays.asList("test:module0:jar:1.0", "test:dep4:jar:1.0", "test:dep3:jar:1.0"), graph.getShortestPath("test:dep3:jar:1.0"));
+        assertEquals(Arrays.asList("test:dep2:jar:1.0", "test:dep4:jar:1.0"), graph.getParents("test:dep3:jar:1.0"));
+
+        // Excluded dependencies are not expanded, so they are not on any path.
+        DependencyGraph filtered = new DependencyGraph();
+        new ReactorDependencyResolver(treeBuilder, new DefaultProjectBuildingRequest(), 1, new DependencyFilter().scopes(null, Collections.singletonList("test")), new ExecutionMetrics("csv"))
+                .resolveProject(createProjects(1).get(0), filtered);
+        assertEquals(Arrays.asList("test:module0:jar:1.0", "test:dep1:jar:1.0", "test:dep2:jar:1.0", "test:dep3:jar:1.0"), filtered.getShortestPath("test:dep3:jar:1.0"));
+    }
+
+    private DefaultDependencyNode addChild(DefaultDependencyNode parent, String artifactId, String scope) {
+        DefaultDependencyNode child = new DefaultDependencyNode(parent, createArtifact(artifactId, scope), null, null, null);
+        child.setChildren(new ArrayList<>());
+        if (parent.getChildren() == null) {
+            parent.setChildren(new ArrayList<>());
+        }
+        parent.getChildren().add(child);
+        return child;
+    }
+
+    private List<MavenProject> createProjects(int count) {
+        List<MavenProject> projects = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MavenProject project = new MavenProject();
+            project.setGroupId("test");
+            project.setArtifactId("module" + i);
+            project.setVersion("1.0");
+            projects.add(project);
+        }
+        return projects;
+    }
+
+    private DependencyNode createTree(String root, String[] dependencies) {
+        DefaultDependencyNode rootNode = new DefaultDependencyNode(createArtifact(root));
+        List<DependencyNode> children = new ArrayList<>();
+        for (String dependency : dependencies) {
+            DefaultDependencyNode child = new DefaultDependencyNode(rootNode, createArtifact(dependency), null, null, null);
+            child.setChildren(new ArrayList<>());
+            children.add(child);
+        }
+        rootNode.setChildren(children);
+        return rootNode;
+    }
+
+    private Artifact createArtifact(String artifactId) {
+        return createArtifact(artifactId, "compile");
+    }
+
+    private Artifact createArtifact(String artifactId, String scope) {
+        return new DefaultArtifact("test", artifactId, "1.0", scope, "jar", null, new DefaultArtifactHandler("jar"));
+    }
+}
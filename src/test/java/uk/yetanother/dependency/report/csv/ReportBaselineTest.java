@@ -0,0 +1,104 @@
+package uk.yetanother.dependency.report.csv;
+
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.yetanother.dependency.report.csv.ReportBaseline.ReportChange;
+import uk.yetanother.dependency.report.writer.CsvReportWriter;
+import uk.yetanother.dependency.report.writer.DependencyRow;
+import uk.yetanother.dependency.report.writer.DiffReportWriter;
+import uk.yetanother.dependency.report.writer.ReportHeader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReportBaselineTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void compareTest() throws MojoExecutionException {
+        ReportBaseline baseline = ReportBaseline.load(writeBaseline());
+
+        // The classifier is part of the artifact, so a classified artifact is a different dependency.
+        List<ReportChange> changes = baseline.compare(Arrays.asList(row("lib", "1.0", null), row("other", "2.1", null), row("lib", "1.0", "sources")),
+                fossId -> null);
+        assertEquals(3, changes.size());
+        assertEquals(DiffReportWriter.Change.VERSION_CHANGED, changes.get(0).getChange());
+        assertEquals("test:other:jar:2.1", changes.get(0).getRow().getId());
+        assertEquals("2.0", changes.get(0).getPreviousVersion());
+        assertEquals(DiffReportWriter.Change.ADDED, changes.get(1).getChange());
+        assertEquals("test:lib:jar:sources:1.0", changes.get(1).getRow().getId());
+        assertEquals(DiffReportWriter.Change.REMOVED, changes.get(2).getChange());
+        assertEquals("test:gone:jar:3.0", changes.get(2).getRow().getId());
+        assertEquals(Collections.singletonList("module1"), changes.get(2).getModules());
+    }
+
+    @Test
+    public void compareSeveralVersionsTest() throws MojoExecutionException {
+        File outputDirectory = temporaryFolder.getRoot();
+        try (CsvReportWriter writer = new CsvReportWriter(outputDirectory, new DefaultLog(new ConsoleLogger()), false)) {
+            writer.writeHeader(new ReportHeader("test", "app", "1.0", true, new String[0]));
+            writer.writeDependency(row("lib", "2", null), Collections.singletonList("module0"), new String[0]);
+            writer.writeDependency(row("lib", "3", null), Collections.singletonList("module1"), new String[0]);
+        }
+        ReportBaseline baseline = ReportBaseline.load(new File(outputDirectory, CsvReportWriter.REPORT_FILENAME).toPath());
+
+        // Version 2 is unchanged even though version 1 comes first, so only 3 moved to 1.
+        List<ReportChange> changes = baseline.compare(Arrays.asList(row("lib", "1", null), row("lib", "2", null)),
+                fossId -> Collections.singletonList("module1"));
+        assertEquals(1, changes.size());
+        assertEquals(DiffReportWriter.Change.VERSION_CHANGED, changes.get(0).getChange());
+        assertEquals("3", changes.get(0).getPreviousVersion());
+        assertEquals("test:lib:jar:1", changes.get(0).getRow().getId());
+        assertEquals(Collections.singletonList("module1"), changes.get(0).getModules());
+    }
+
+    @Test
+    public void writeDiffTest() throws MojoExecutionException, IOException {
+        ReportBaseline baseline = ReportBaseline.load(writeBaseline());
+        File outputDirectory = temporaryFolder.newFolder("diff");
+        try (DiffReportWriter writer = new DiffReportWriter(outputDirectory, new DefaultLog(new ConsoleLogger()), false)) {
+            writer.writeHeader(new ReportHeader("test", "app", "1.0", false, new String[]{"licence"}));
+            List<ReportChange> changes = baseline.compare(Arrays.asList(row("lib", "1.0", null), row("gone", "3.0", null),
+                    row("other", "2.1", null), row("new", "1.0", null)), fossId -> null);
+            ReportChange changed = changes.get(0);
+            writer.writeChange(changed.getChange(), changed.getPreviousVersion(), changed.getRow(), null, new String[]{"MIT"});
+            ReportChange added = changes.get(1);
+            writer.writeChange(added.getChange(), added.getPreviousVersion(), added.getRow(), null, new String[1]);
+        }
+
+        byte[] report = Files.readAllBytes(new File(outputDirectory, DiffReportWriter.REPORT_FILENAME).toPath());
+        assertEquals("change,previousVersion,id,groupId,artifactId,version,classifier,type,scope,licence\n"
+                + "versionChanged,2.0,test:other:jar:2.1,test,other,2.1,,jar,compile,MIT\n"
+                + "added,,test:new:jar:1.0,test,new,1.0,,jar,compile,", new String(report, StandardCharsets.UTF_8));
+    }
+
+    private Path writeBaseline() throws MojoExecutionException {
+        File outputDirectory = temporaryFolder.getRoot();
+        try (CsvReportWriter writer = new CsvReportWriter(outputDirectory, new DefaultLog(new ConsoleLogger()), false)) {
+            writer.writeHeader(new ReportHeader("test", "app", "1.0", true, new String[]{"licence"}));
+            writer.writeDependency(row("lib", "1.0", null), Arrays.asList("module0", "module1"), new String[]{"Apache 2.0"});
+            writer.writeDependency(row("other", "2.0", null), Collections.singletonList("module0"), new String[]{"MIT"});
+            writer.writeDependency(row("gone", "3.0", null), Collections.singletonList("module1"), new String[1]);
+        }
+        return new File(outputDirectory, CsvReportWriter.REPORT_FILENAME).toPath();
+    }
+
+    private static DependencyRow row(String artifactId, String version, String classifier) {
+        String id = "test:" + artifactId + ":jar" + (classifier == null ? "" : ":" + classifier) + ":" + version;
+        return new DependencyRow(id, "test", artifactId, version, classifier, "jar", "compile");
+    }
+}
@@ -0,0 +1,102 @@
+package uk.yetanother.dependency.report.csv;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.yetanother.dependency.report.writer.CsvReportWriter;
+import uk.yetanother.dependency.report.writer.JsonLinesReportWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReportFingerprintTest {
+
+    private static final String PLUGIN_VERSION = "1.1.0";
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void sameModelsHaveSameFingerprintTest() throws MojoExecutionException {
+        String first = fingerprint(createProject("app", "1.0", createDependency("lib", "2.0")));
+        String second = fingerprint(createProject("app", "1.0", createDependency("lib", "2.0")));
+
+        assertNotNull(first);
+        assertEquals(first, second);
+        assertNotEquals(first, fingerprint(createProject("app", "1.0", createDependency("lib", "2.1"))));
+        assertNotEquals("A new plugin version must change the fingerprint", first,
+                fingerprint(createProject("app", "1.0", createDependency("lib", "2.0")), "1.2.0"));
+    }
+
+    @Test
+    public void externalSnapshotIsNotFingerprintedTest() throws MojoExecutionException {
+        assertNull(fingerprint(createProject("app", "1.0", createDependency("lib", "2.0-SNAPSHOT"))));
+        assertNull(fingerprint(createProject("app", "1.0", createDependency("lib", "[2.0,3.0)"))));
+    }
+
+    @Test
+    public void reactorSnapshotIsFingerprintedByModelTest() throws MojoExecutionException {
+        MavenProject core = createProject("core", "1.0-SNAPSHOT", createDependency("lib", "2.0"));
+        MavenProject app = createProject("app", "1.0-SNAPSHOT", createDependency("core", "1.0-SNAPSHOT"));
+        String first = new ReportFingerprint(Arrays.asList(core, app), PLUGIN_VERSION).addProject(app).toHex();
+        assertNotNull(first);
+
+        core.getDependencies().set(0, createDependency("lib", "2.1"));
+        assertNotEquals(first, new ReportFingerprint(Arrays.asList(core, app), PLUGIN_VERSION).addProject(app).toHex());
+    }
+
+    @Test
+    public void matchesWrittenFingerprintTest() throws MojoExecutionException, IOException {
+        File outputDirectory = temporaryFolder.getRoot();
+        List<String> csvReport = Collections.singletonList(CsvReportWriter.REPORT_FILENAME);
+        List<String> allReports = Arrays.asList(CsvReportWriter.REPORT_FILENAME, JsonLinesReportWriter.REPORT_FILENAME);
+        assertFalse(ReportFingerprint.matches(outputDirectory, "abc", csvReport));
+
+        ReportFingerprint.write(outputDirectory, "abc");
+        assertFalse("A fingerprint without a report must not match", ReportFingerprint.matches(outputDirectory, "abc", csvReport));
+
+        Files.createFile(new File(outputDirectory, CsvReportWriter.REPORT_FILENAME).toPath());
+        assertTrue(ReportFingerprint.matches(outputDirectory, "abc", csvReport));
+        assertFalse(ReportFingerprint.matches(outputDirectory, "def", csvReport));
+        assertFalse("Every report must exist to match", ReportFingerprint.matches(outputDirectory, "abc", allReports));
+
+        ReportFingerprint.write(outputDirectory, null);
+        assertFalse(ReportFingerprint.matches(outputDirectory, "abc", csvReport));
+    }
+
+    private String fingerprint(MavenProject project) throws MojoExecutionException {
+        return fingerprint(project, PLUGIN_VERSION);
+    }
+
+    private String fingerprint(MavenProject project, String pluginVersion) throws MojoExecutionException {
+        List<MavenProject> reactor = Collections.singletonList(project);
+        return new ReportFingerprint(reactor, pluginVersion).addProject(project).toHex();
+    }
+
+    @SuppressWarnings("unchecked")
+    private MavenProject createProject(String artifactId, String version, Dependency... dependencies) {
+        MavenProject project = new MavenProject();
+        project.setGroupId("test");
+        project.setArtifactId(artifactId);
+        project.setVersion(version);
+        project.getDependencies().addAll(Arrays.asList(dependencies));
+        return project;
+    }
+
+    private Dependency createDependency(String artifactId, String version) {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId("test");
+        dependency.setArtifactId(artifactId);
+        dependency.setVersion(version);
+        return dependency;
+    }
+}
@@ -0,0 +1,65 @@
+package uk.yetanother.dependency.report.csv;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+import uk.yetanother.dependency.report.writer.DependencyRow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ReportSorterTest {
+
+    private static final String[] HEADINGS = {"licence"};
+
+    @Test
+    public void sortByIdTest() throws MojoExecutionException {
+        List<DependencyRow> rows = Arrays.asList(row("org.b", "lib"), row("org.a", "lib"), row("org.a", "api"));
+        List<DependencyRow> sorted = new ReportSorter(ReportSorter.SORT_BY_ID, HEADINGS).sort(rows, row -> row, row -> null);
+        assertEquals(Arrays.asList("org.a:api:jar:1.0", "org.a:lib:jar:1.0", "org.b:lib:jar:1.0"), ids(sorted));
+    }
+
+    @Test
+    public void sortByAttributeTest() throws MojoExecutionException {
+        String[] licences = {"MIT", "Apache 2.0", "EPL 2.0"};
+        List<DependencyRow> rows = new ArrayList<>();
+        Map<String, String[]> attributes = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            int group = i * 7919 % 500;
+            DependencyRow row = row("org.test" + group, "lib");
+            rows.add(row);
+            attributes.put(row.getId(), new String[]{licences[group % 3]});
+        }
+        // A row without attributes sorts first, as an empty value.
+        rows.add(row("org.unknown", "lib"));
+
+        List<DependencyRow> sorted = new ReportSorter("licence", HEADINGS).sort(rows, row -> row, row -> attributes.get(row.getId()));
+        assertEquals(501, sorted.size());
+        assertEquals("org.unknown:lib:jar:1.0", sorted.get(0).getId());
+        assertEquals("org.test100:lib:jar:1.0", sorted.get(1).getId());
+        // Rows with the same licence stay ordered by id.
+        assertEquals("org.test103:lib:jar:1.0", sorted.get(2).getId());
+        assertEquals("MIT", attributes.get(sorted.get(500).getId())[0]);
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void unknownColumnTest() throws MojoExecutionException {
+        new ReportSorter("missing", HEADINGS);
+    }
+
+    private static List<String> ids(List<DependencyRow> rows) {
+        List<String> ids = new ArrayList<>(rows.size());
+        for (DependencyRow row : rows) {
+            ids.add(row.getId());
+        }
+        return ids;
+    }
+
+    private static DependencyRow row(String groupId, String artifactId) {
+        return new DependencyRow(groupId + ":" + artifactId + ":jar:1.0", groupId, artifactId, "1.0", null, "jar", "compile");
+    }
+}
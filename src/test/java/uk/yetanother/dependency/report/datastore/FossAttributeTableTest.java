@@ -0,0 +1,48 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FossAttributeTableTest {
+
+    @Test
+    public void storeAndDecodeTest() {
+        for (boolean offHeap : new boolean[]{false, true}) {
+            FossAttributeTable table = new FossAttributeTable(offHeap);
+            for (int i = 0; i < 5000; i++) {
+                assertTrue(table.put("foss" + i, new String[]{"licence" + (i % 3), null, "assessor" + (i % 7)}));
+            }
+
+            assertEquals(5000, table.size());
+            assertArrayEquals(new String[]{"licence1", null, "assessor3"}, table.get("foss4000"));
+            assertNull(table.get("foss5000"));
+
+            assertFalse(table.put("foss4000", new String[]{"changed", "value", null}));
+            assertArrayEquals(new String[]{"changed", "value", null}, table.get("foss4000"));
+            assertEquals(5000, table.size());
+        }
+    }
+
+    @Test
+    public void irregularRowsTest() {
+        FossAttributeTable table = new FossAttributeTable(false);
+        table.put("foss1", new String[]{"1.1", "1.2"});
+        assertTrue(table.put("foss2", new String[]{"2.1"}));
+        assertFalse(table.put("foss1", new String[]{"1.1", "1.2", "1.3"}));
+
+        assertTrue(table.contains("foss2"));
+        assertEquals(2, table.size());
+        assertArrayEquals(new String[]{"2.1"}, table.get("foss2"));
+        assertArrayEquals(new String[]{"1.1", "1.2", "1.3"}, table.get("foss1"));
+
+        assertFalse(table.put("foss1", new String[]{"1.1", "1.2"}));
+        Map<String, String[]> rows = new HashMap<>();
+        table.forEach(rows::put);
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[]{"1.1", "1.2"}, rows.get("foss1"));
+    }
+}
@@ -0,0 +1,108 @@
+package uk.yetanother.dependency.report.datastore;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class FossDatafileChunkParserTest {
+
+    private static final String DATAFILE = "id,col1,col2\n"
+            + "foss1,\"multi\nline\",1.2\n"
+            + "foss2,\"quoted, comma\",\"doubled \"\"quotes\"\"\"\r\n"
+            + "foss3,\"escaped \\\" quote\nstill quoted\",3.2\n"
+            + "foss4,C:\\path\\to,4.2\n"
+            + "foss1,\"replaced\n\",1.22\n"
+            + "foss5,\"no trailing\nnew line\",5.2";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void chunksMatchSequentialParseTest() throws IOException, CsvValidationException {
+        Path file = temporaryFolder.newFile("datafile.csv").toPath();
+        Files.write(file, DATAFILE.getBytes(StandardCharsets.UTF_8));
+        List<String[]> expected = new ArrayList<>();
+        try (CSVReader reader = new CSVReader(Files.newBufferedReader(file))) {
+            reader.forEach(expected::add);
+        }
+        assertEquals(7, expected.size());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // Every chunk size from a single byte up to the whole file cuts the rows at a different point.
+            for (int chunkSize = 1; chunkSize <= DATAFILE.length(); chunkSize++) {
+                List<String[]> actual = new ArrayList<>();
+                try (FossDatafileChunkParser parser = new FossDatafileChunkParser(file, pool, chunkSize)) {
+                    String[] row;
+                    while ((row = parser.readRow()) != null) {
+                        actual.add(row);
+                    }
+                }
+                assertEquals("Chunk size " + chunkSize, expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertArrayEquals("Chunk size " + chunkSize, expected.get(i), actual.get(i));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void lastRowWinsTest() throws IOException, MojoExecutionException {
+        Path file = temporaryFolder.newFile("datafile.csv").toPath();
+        Files.write(file, DATAFILE.getBytes(StandardCharsets.UTF_8));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try (FossDatafileReader reader = new FossDatafileReader(file, pool, 16)) {
+            FossAttributeTable table = new FossAttributeTable(false);
+            String[] row;
+            while ((row = reader.readRow()) != null) {
+                table.put(row[0], Arrays.copyOfRange(row, 1, row.length));
+            }
+            assertArrayEquals(new String[]{"id", "col1", "col2"}, reader.getHeadingsRow());
+            assertEquals(6, reader.getRowCount());
+            assertEquals(5, table.size());
+            assertArrayEquals(new String[]{"replaced\n", "1.22"}, table.get("foss1"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void emptyFileTest() throws IOException {
+        Path file = temporaryFolder.newFile("empty.csv").toPath();
+        try (FossDatafileChunkParser parser = new FossDatafileChunkParser(file, ForkJoinPool.commonPool(), 4)) {
+            assertNull(parser.readRow());
+        }
+    }
+
+    @Test
+    public void readAheadIsBoundedTest() throws IOException {
+        Path file = temporaryFolder.newFile("bounded.csv").toPath();
+        Files.write(file, DATAFILE.getBytes(StandardCharsets.UTF_8));
+        ForkJoinPool pool = new ForkJoinPool(64);
+        try (FossDatafileChunkParser defaultChunks = new FossDatafileChunkParser(file, pool, FossDatafileChunkParser.DEFAULT_CHUNK_SIZE);
+             FossDatafileChunkParser smallChunks = new FossDatafileChunkParser(file, pool, 1024)) {
+            // However many threads the pool has, the chunks read ahead stay within the byte limit.
+            assertEquals(FossDatafileChunkParser.MAX_READ_AHEAD / FossDatafileChunkParser.DEFAULT_CHUNK_SIZE, defaultChunks.getChunksAhead());
+            assertEquals(128, smallChunks.getChunksAhead());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.*;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class FossDatastoreCacheTest {
+
+    private static final Log LOG = new DefaultLog(new ConsoleLogger());
+    private static Path datastoreLocation;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        datastoreLocation = InternalFileFossDatastore.getDatastoreLocation();
+    }
+
+    @AfterClass
+    public static void afterClass() throws IOException {
+        FossDatastoreCache.invalidate();
+        Files.deleteIfExists(datastoreLocation);
+    }
+
+    @Before
+    public void setup() throws IOException {
+        FossDatastoreCache.invalidate();
+        Files.deleteIfExists(datastoreLocation);
+    }
+
+    @Test
+    public void datastoreIsReusedUntilInvalidatedTest() throws URISyntaxException, MojoExecutionException {
+        new IndexedFileFossDatastore(LOG).createDatastore(getResource("fossDatafile.csv"));
+
+        IFossDatastore first = FossDatastoreCache.getDatastore(LOG);
+        assertSame(first, FossDatastoreCache.getDatastore(LOG));
+        assertArrayEquals(new String[]{"1.1", "1.2", "1.3"}, first.getAdditionalAttributesForFossItem("foss1"));
+
+        FossDatastoreCache.invalidate();
+        assertNotSame(first, FossDatastoreCache.getDatastore(LOG));
+    }
+
+    @Test
+    public void changedDatastoreIsReloadedTest() throws URISyntaxException, MojoExecutionException, IOException {
+        new IndexedFileFossDatastore(LOG).createDatastore(getResource("fossDatafile.csv"));
+        IFossDatastore first = FossDatastoreCache.getDatastore(LOG);
+
+        new InternalFileFossDatastore(LOG).updateDatastore(getResource("fossDatafileValidUpdate.csv"), true);
+        Files.setLastModifiedTime(datastoreLocation, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+
+        IFossDatastore second = FossDatastoreCache.getDatastore(LOG);
+        assertNotSame(first, second);
+        assertArrayEquals(new String[]{"33.1", "33.2", "33.3"}, second.getAdditionalAttributesForFossItem("foss3"));
+    }
+
+    @Test
+    public void concurrentRequestsShareOneLoadTest() throws Exception {
+        new IndexedFileFossDatastore(LOG).createDatastore(getResource("fossDatafile.csv"));
+        FossDatastoreCache.invalidate();
+
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<IFossDatastore>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit((Callable<IFossDatastore>) () -> {
+                    start.await();
+                    return FossDatastoreCache.getDatastore(LOG);
+                }));
+            }
+            start.countDown();
+
+            IFossDatastore expected = results.get(0).get();
+            for (Future<IFossDatastore> result : results) {
+                assertSame(expected, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Path getResource(String name) throws URISyntaxException {
+        return Paths.get(ClassLoader.getSystemResource(name).toURI());
+    }
+}
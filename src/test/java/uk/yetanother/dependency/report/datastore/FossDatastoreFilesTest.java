@@ -0,0 +1,62 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class FossDatastoreFilesTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writeAtomicallyReplacesFileTest() throws IOException {
+        Path target = temporaryFolder.newFile("datastore.csv").toPath();
+        Files.write(target, "old".getBytes(StandardCharsets.UTF_8));
+
+        FossDatastoreFiles.writeAtomically(target, file -> Files.write(file, "new".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("new", new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+        assertArrayEquals(new String[]{"datastore.csv"}, temporaryFolder.getRoot().list());
+    }
+
+    @Test
+    public void failedWriteLeavesFileUnchangedTest() throws IOException {
+        Path target = temporaryFolder.newFile("datastore.csv").toPath();
+        Files.write(target, "old".getBytes(StandardCharsets.UTF_8));
+
+        try {
+            FossDatastoreFiles.writeAtomically(target, file -> {
+                Files.write(file, "partial".getBytes(StandardCharsets.UTF_8));
+                throw new IOException("Interrupted");
+            });
+            fail("Exception was expected");
+        } catch (IOException e) {
+            assertEquals("Interrupted", e.getMessage());
+        }
+
+        assertEquals("old", new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+        assertArrayEquals(new String[]{"datastore.csv"}, temporaryFolder.getRoot().list());
+    }
+
+    @Test
+    public void lockIsReentrantTest() throws MojoExecutionException {
+        Path datastore = new File(temporaryFolder.getRoot(), "datastore.csv").toPath();
+        try (FossDatastoreLock exclusive = FossDatastoreLock.exclusive(datastore);
+             FossDatastoreLock shared = FossDatastoreLock.shared(datastore)) {
+            assertTrue(Files.exists(datastore.resolveSibling("datastore.csv.lock")));
+        }
+        try (FossDatastoreLock exclusive = FossDatastoreLock.exclusive(datastore)) {
+            assertNotNull(exclusive);
+        }
+    }
+}
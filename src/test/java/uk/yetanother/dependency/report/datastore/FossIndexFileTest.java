@@ -0,0 +1,73 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FossIndexFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void segmentedIndexTest() throws Exception {
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            rows.add(new String[]{"org.test" + i + ":lib:jar:1.0", "license" + i, i % 2 == 0 ? null : "note" + i});
+        }
+        rows.add(new String[]{"org.rule:lib", "rule license", "rule note"});
+        Iterator<String[]> source = rows.iterator();
+
+        // Segments of 256 bytes spread the index across many mappings, so records and offsets meet segment ends.
+        Path file = folder.getRoot().toPath().resolve("segmented.idx");
+        FossIndexFile.write(file, new String[]{"License", "Note"}, () -> source.hasNext() ? source.next() : null, 1L, 2L, 8);
+        assertTrue(Files.size(file) > 256 * 20);
+
+        FossIndexFile index = FossIndexFile.map(file);
+        assertNotNull(index);
+        assertTrue(index.isBuiltFrom(1L, 2L));
+        assertArrayEquals(new String[]{"License", "Note"}, index.getHeadings());
+        assertEquals(201, index.getRowCount());
+        for (String[] row : rows) {
+            assertArrayEquals(Arrays.copyOfRange(row, 1, row.length), index.find(row[0]));
+        }
+        assertNull(index.find("org.missing:lib:jar:1.0"));
+
+        Map<String, String[]> found = index.findAll(Arrays.asList("org.test7:lib:jar:1.0", "org.test150:lib:jar:1.0", "org.missing:lib:jar:1.0"));
+        assertEquals(2, found.size());
+        assertArrayEquals(new String[]{"license150", null}, found.get("org.test150:lib:jar:1.0"));
+
+        int count = 0;
+        FossRowSource all = index.rows();
+        while (all.readRow() != null) {
+            count++;
+        }
+        assertEquals(201, count);
+        assertArrayEquals(new String[]{"rule license", "rule note"}, index.loadRules().find("org.rule:lib:jar:1.0"));
+    }
+
+    @Test
+    public void oversizedRowTest() throws Exception {
+        char[] license = new char[300];
+        Arrays.fill(license, 'x');
+        Iterator<String[]> source = Arrays.<String[]>asList(new String[]{"org.test:lib:jar:1.0", new String(license)}).iterator();
+        Path file = folder.getRoot().toPath().resolve("oversized.idx");
+        try {
+            FossIndexFile.write(file, new String[]{"License"}, () -> source.hasNext() ? source.next() : null, 1L, 2L, 8);
+            fail("A row larger than a segment should not be indexed");
+        } catch (IOException e) {
+            assertEquals("A row of the Foss Datastore is too large to be indexed", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FossRuleIndexTest {
+
+    @Test
+    public void isRuleTest() {
+        assertTrue(FossRuleIndex.isRule("org.example"));
+        assertTrue(FossRuleIndex.isRule("org.example:lib"));
+        assertTrue(FossRuleIndex.isRule("org.example:lib:[1.0,2.0)"));
+        assertFalse(FossRuleIndex.isRule("org.example:lib:jar:1.0"));
+        assertFalse(FossRuleIndex.isRule("org.example:lib:jar:tests:1.0"));
+        assertFalse(FossRuleIndex.isRule(""));
+    }
+
+    @Test
+    public void mostSpecificRuleTest() {
+        FossRuleIndex rules = new FossRuleIndex();
+        assertTrue(rules.put("org.*", new String[]{"org"}));
+        assertTrue(rules.put("org.example", new String[]{"group"}));
+        assertTrue(rules.put("org.example:lib", new String[]{"artifact"}));
+        assertTrue(rules.put("org.example:lib:[1.0,)", new String[]{"from 1"}));
+        assertTrue(rules.put("org.example:lib:[2.0,3.0)", new String[]{"from 2"}));
+        assertTrue(rules.put("org.example:lib:0.9", new String[]{"exactly 0.9"}));
+        assertFalse(rules.put("org.example:lib:[2.0", new String[]{"invalid"}));
+        assertEquals(6, rules.size());
+
+        assertArrayEquals(new String[]{"from 2"}, rules.find("org.example:lib:jar:2.5"));
+        assertArrayEquals(new String[]{"from 1"}, rules.find("org.example:lib:jar:sources:3.0"));
+        assertArrayEquals(new String[]{"exactly 0.9"}, rules.find("org.example:lib:jar:0.9"));
+        assertArrayEquals(new String[]{"artifact"}, rules.find("org.example:lib:jar:0.8"));
+        assertArrayEquals(new String[]{"group"}, rules.find("org.example:other:jar:1.0"));
+        assertArrayEquals(new String[]{"org"}, rules.find("org.example.sub:other:jar:1.0"));
+        assertArrayEquals(new String[]{"org"}, rules.find("org:other:jar:1.0"));
+        assertNull(rules.find("com.example:lib:jar:1.0"));
+        assertNull(rules.find("organisation:lib:jar:1.0"));
+    }
+
+    @Test
+    public void replaceRuleTest() {
+        FossRuleIndex rules = new FossRuleIndex();
+        rules.put("org.example:lib:[1.0,2.0)", new String[]{"first"});
+        rules.put("org.example:lib:[1.0,2.0)", new String[]{"second"});
+        assertEquals(1, rules.size());
+        assertArrayEquals(new String[]{"second"}, rules.find("org.example:lib:jar:1.5"));
+    }
+}
@@ -0,0 +1,224 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.*;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class IndexedFileFossDatastoreTest {
+
+    private static final String DEFAULT_TEST_DATAFILE_FILENAME = "fossDatafile.csv";
+    private static Path datastoreLocation;
+    private static Path indexLocation;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        datastoreLocation = InternalFileFossDatastore.getDatastoreLocation();
+        indexLocation = datastoreLocation.resolveSibling(IndexedFileFossDatastore.INDEX_FILENAME);
+    }
+
+    @AfterClass
+    public static void afterClass() throws IOException {
+        Files.deleteIfExists(datastoreLocation);
+        Files.deleteIfExists(indexLocation);
+        deleteDeltaLog();
+    }
+
+    @Before
+    public void setup() throws IOException {
+        Files.deleteIfExists(datastoreLocation);
+        Files.deleteIfExists(indexLocation);
+        deleteDeltaLog();
+    }
+
+    @Test
+    public void createDatastoreTest() throws URISyntaxException, MojoExecutionException {
+        IndexedFileFossDatastore fossDatastore = new IndexedFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        assertTrue(fossDatastore.isDatastoreEmpty());
+        assertFalse(Files.exists(indexLocation));
+
+        fossDatastore.createDatastore(getResource(DEFAULT_TEST_DATAFILE_FILENAME));
+        assertTrue(Files.exists(datastoreLocation));
+        assertTrue(Files.exists(indexLocation));
+        assertFalse(fossDatastore.isDatastoreEmpty());
+        assertArrayEquals(new String[]{"col1", "col2", "col3"}, fossDatastore.getAdditionalAttributeHeadings());
+        assertArrayEquals(new String[]{"1.1", "1.2", "1.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss1"));
+        assertArrayEquals(new String[]{"2.1", "2.2", "2.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss2"));
+        assertArrayEquals(new String[]{"3.1", "3.2", "3.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss3"));
+        assertArrayEquals(new String[3], fossDatastore.getAdditionalAttributesForFossItem("foss4"));
+        assertArrayEquals(new String[3], fossDatastore.getAdditionalAttributesForFossItem("foss"));
+    }
+
+    @Test
+    public void migrateExistingCsvDatastoreTest() throws URISyntaxException, MojoExecutionException {
+        new InternalFileFossDatastore(new DefaultLog(new ConsoleLogger())).createDatastore(getResource(DEFAULT_TEST_DATAFILE_FILENAME));
+        assertFalse(Files.exists(indexLocation));
+
+        IndexedFileFossDatastore fossDatastore = new IndexedFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        assertTrue(Files.exists(indexLocation));
+        assertArrayEquals(new String[]{"1.1", "1.2", "1.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss1"));
+    }
+
+    @Test
+    public void staleIndexIsRebuiltTest() throws URISyntaxException, MojoExecutionException, IOException {
+        new IndexedFileFossDatastore(new DefaultLog(new ConsoleLogger())).createDatastore(getResource(DEFAULT_TEST_DATAFILE_FILENAME));
+
+        // Update the CSV datastore directly, leaving the index behind.
+        InternalFileFossDatastore csvDatastore = new InternalFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        csvDatastore.updateDatastore(getResource("fossDatafileValidUpdate.csv"), true);
+        Files.setLastModifiedTime(datastoreLocation, FileTime.fromMillis(Files.getLastModifiedTime(indexLocation).toMillis() + 1000));
+
+        IndexedFileFossDatastore fossDatastore = new IndexedFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        assertArrayEquals(new String[]{"33.1", "33.2", "33.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss3"));
+        assertArrayEquals(new String[]{"5.1", "5.2", "5.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss5"));
+    }
+
+    @Test
+    public void updateDatastoreTest() throws URISyntaxException, MojoExecutionException {
+        IndexedFileFossDatastore fossDatastore = new IndexedFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        fossDatastore.createDatastore(getResource(DEFAULT_TEST_DATAFILE_FILENAME));
+        fossDatastore.updateDatastore(getResource("fossDatafileValidUpdate.csv"), false);
+
+        assertArrayEquals(new String[]{"3.1", "3.2", "3.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss3"));
+        assertArrayEquals(new String[]{"4.1", "4.2", "4.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss4"));
+    }
+
+    @Test
+    public void concurrentUpdatesSeeEachOthersRowsTest() throws URISyntaxException, MojoExecutionException {
+        // Both executions open the empty datastore before either of them updates it.
+        IndexedFileFossDatastore first = new IndexedFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        IndexedFileFossDatastore second = new IndexedFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+
+        first.updateDatastore(getResource(DEFAULT_TEST_DATAFILE_FILENAME), false);
+        second.updateDatastore(getResource("fossDatafileValidUpdate.csv"), false);
+
+        IndexedFileFossDatastore fossDatastore = new IndexedFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        assertEquals(5, fossDatastore.getFossItemCount());
+        assertArrayEquals(new String[]{"1.1", "1.2", "1.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss1"));
+        assertArrayEquals(new String[]{"3.1", "3.2", "3.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss3"));
+        assertArrayEquals(new String[]{"4.1", "4.2", "4.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss4"));
+        assertArrayEquals(new String[]{"3.1", "3.2", "3.3"}, second.getAdditionalAttributesForFossItem("foss3"));
+    }
+
+    @Test
+    public void updateDatastoreKeepsIndexUntilCompactedTest() throws URISyntaxException, MojoExecutionException, IOException {
+        IndexedFileFossDatastore fossDatastore = new IndexedFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        fossDatastore.createDatastore(getResource(DEFAULT_TEST_DATAFILE_FILENAME));
+        byte[] index = Files.readAllBytes(indexLocation);
+        assertEquals(3, fossDatastore.getFossItemCount());
+
+        fossDatastore.updateDatastore(getResource("fossDatafileValidUpdate.csv"), true);
+        assertArrayEquals(index, Files.readAllBytes(indexLocation));
+        assertEquals(5, fossDatastore.getFossItemCount());
+        assertArrayEquals(new String[]{"33.1", "33.2", "33.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss3"));
+
+        fossDatastore = new IndexedFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        assertArrayEquals(index, Files.readAllBytes(indexLocation));
+        assertArrayEquals(new String[]{"33.1", "33.2", "33.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss3"));
+        assertArrayEquals(new String[]{"5.1", "5.2", "5.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss5"));
+
+        assertEquals(5, fossDatastore.getFossItemCount());
+
+        fossDatastore.compactDatastore();
+        assertTrue(FossDatastoreDeltaLog.getSegments(datastoreLocation).isEmpty());
+        assertEquals(5, fossDatastore.getFossItemCount());
+        assertArrayEquals(new String[]{"33.1", "33.2", "33.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss3"));
+        assertArrayEquals(new String[]{"5.1", "5.2", "5.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss5"));
+    }
+
+    @Test
+    public void compressedDatastoreTest() throws Exception {
+        // A gzip datafile is read as it is decompressed, and the datastore is written with its own codec.
+        Path datafile = Files.createTempFile("fossDatafile", ".csv.gz");
+        try {
+            try (OutputStream out = Compression.GZIP.compress(Files.newOutputStream(datafile))) {
+                Files.copy(getResource(DEFAULT_TEST_DATAFILE_FILENAME), out);
+            }
+            new IndexedFileFossDatastore(new DefaultLog(new ConsoleLogger()), Compression.ZSTD).createDatastore(datafile);
+        } finally {
+            Files.delete(datafile);
+        }
+        assertEquals(Compression.ZSTD, Compression.detect(datastoreLocation));
+
+        IndexedFileFossDatastore fossDatastore = new IndexedFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        assertArrayEquals(new String[]{"2.1", "2.2", "2.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss2"));
+
+        // Compacting without a configured codec keeps the codec the datastore already has.
+        fossDatastore.updateDatastore(getResource("fossDatafileValidUpdate.csv"), true);
+        fossDatastore.compactDatastore();
+        assertEquals(Compression.ZSTD, Compression.detect(datastoreLocation));
+        assertArrayEquals(new String[]{"33.1", "33.2", "33.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss3"));
+        assertArrayEquals(new String[]{"33.1", "33.2", "33.3"}, new InternalFileFossDatastore(new DefaultLog(new ConsoleLogger())).getAdditionalAttributesForFossItem("foss3"));
+    }
+
+    @Test
+    public void clearDatastoreTest() throws URISyntaxException, MojoExecutionException {
+        IndexedFileFossDatastore fossDatastore = new IndexedFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        fossDatastore.createDatastore(getResource(DEFAULT_TEST_DATAFILE_FILENAME));
+
+        fossDatastore.updateDatastore(getResource("fossDatafileValidUpdate.csv"), false);
+
+        assertTrue(fossDatastore.clearDatastore());
+        assertFalse(Files.exists(datastoreLocation));
+        assertTrue(FossDatastoreDeltaLog.getSegments(datastoreLocation).isEmpty());
+        assertFalse(Files.exists(indexLocation));
+        assertTrue(fossDatastore.isDatastoreEmpty());
+        assertEquals(0, fossDatastore.getAdditionalAttributeHeadings().length);
+        assertEquals(0, fossDatastore.getAdditionalAttributesForFossItem("foss1").length);
+    }
+
+    @Test
+    public void rulesTest() throws URISyntaxException, MojoExecutionException {
+        new IndexedFileFossDatastore(new DefaultLog(new ConsoleLogger())).createDatastore(getResource("fossDatafileWithRules.csv"));
+
+        IndexedFileFossDatastore fossDatastore = new IndexedFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        assertArrayEquals(new String[]{"exact", "4.2", "4.3"}, fossDatastore.getAdditionalAttributesForFossItem("org.example:lib:jar:2.5"));
+        assertArrayEquals(new String[]{"range", "3.2", "3.3"}, fossDatastore.getAdditionalAttributesForFossItem("org.example:lib:jar:2.1"));
+        assertArrayEquals(new String[]{"artifact", "2.2", "2.3"}, fossDatastore.getAdditionalAttributesForFossItem("org.example:lib:pom:3.0"));
+        assertArrayEquals(new String[]{"group", "1.2", "1.3"}, fossDatastore.getAdditionalAttributesForFossItem("org.example:other:jar:1.0"));
+        assertArrayEquals(new String[]{"subgroups", "1.2", "1.3"}, fossDatastore.getAdditionalAttributesForFossItem("org.example.sub:other:jar:1.0"));
+        assertArrayEquals(new String[3], fossDatastore.getAdditionalAttributesForFossItem("com.example:lib:jar:1.0"));
+    }
+
+    @Test
+    public void batchLookupTest() throws URISyntaxException, MojoExecutionException {
+        IndexedFileFossDatastore fossDatastore = new IndexedFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        fossDatastore.createDatastore(getResource("fossDatafileWithRules.csv"));
+        fossDatastore.updateDatastore(getResource(DEFAULT_TEST_DATAFILE_FILENAME), false);
+
+        List<String> fossIds = Arrays.asList("org.example:lib:jar:2.5", "foss3", "org.example:lib:jar:2.1", "missing", "foss1",
+                "org.example.sub:other:jar:1.0", "a", "zzz", "foss1");
+        Map<String, String[]> attributes = fossDatastore.getAdditionalAttributesForFossItems(fossIds);
+        assertEquals(new HashSet<>(fossIds), attributes.keySet());
+        for (String fossId : fossIds) {
+            assertArrayEquals(fossId, fossDatastore.getAdditionalAttributesForFossItem(fossId), attributes.get(fossId));
+        }
+    }
+
+    private Path getResource(String name) throws URISyntaxException {
+        return Paths.get(ClassLoader.getSystemResource(name).toURI());
+    }
+
+    private static void deleteDeltaLog() throws IOException {
+        try {
+            FossDatastoreDeltaLog.delete(datastoreLocation);
+        } catch (MojoExecutionException e) {
+            throw new IOException(e);
+        }
+    }
+}
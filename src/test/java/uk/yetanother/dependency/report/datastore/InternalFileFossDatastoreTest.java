@@ -11,6 +11,8 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -31,11 +33,13 @@ public class InternalFileFossDatastoreTest {
     @AfterClass
     public static void afterClass() throws IOException {
         Files.deleteIfExists(datastoreLocation);
+        deleteDeltaLog();
     }
 
     @Before
     public void setup() throws IOException {
         Files.deleteIfExists(datastoreLocation);
+        deleteDeltaLog();
     }
 
     @Test
@@ -102,6 +106,23 @@ public class InternalFileFossDatastoreTest {
         assertTrue(checkAttributeSequenceMatches("5.", fossDatastore.getAdditionalAttributesForFossItem("foss5")));
     }
 
+    @Test
+    public void concurrentUpdatesSeeEachOthersRowsTest() throws URISyntaxException, MojoExecutionException {
+        // Both executions open the empty datastore before either of them updates it.
+        InternalFileFossDatastore first = new InternalFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        InternalFileFossDatastore second = new InternalFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+
+        first.updateDatastore(Paths.get(ClassLoader.getSystemResource(DEFAULT_TEST_DATAFILE_FILENAME).toURI()), false);
+        second.updateDatastore(Paths.get(ClassLoader.getSystemResource("fossDatafileValidUpdate.csv").toURI()), false);
+
+        InternalFileFossDatastore fossDatastore = new InternalFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        assertEquals(5, fossDatastore.getFossItemCount());
+        assertTrue(checkAttributeSequenceMatches("1.", fossDatastore.getAdditionalAttributesForFossItem("foss1")));
+        assertTrue(checkAttributeSequenceMatches("3.", fossDatastore.getAdditionalAttributesForFossItem("foss3")));
+        assertTrue(checkAttributeSequenceMatches("4.", fossDatastore.getAdditionalAttributesForFossItem("foss4")));
+        assertTrue(checkAttributeSequenceMatches("3.", second.getAdditionalAttributesForFossItem("foss3")));
+    }
+
     @Test
     public void updateDatastoreValidWithOverrideTest() throws URISyntaxException, MojoExecutionException {
         Path filePath = Paths.get(ClassLoader.getSystemResource(DEFAULT_TEST_DATAFILE_FILENAME).toURI());
@@ -123,6 +144,48 @@ public class InternalFileFossDatastoreTest {
         assertTrue(checkAttributeSequenceMatches("5.", fossDatastore.getAdditionalAttributesForFossItem("foss5")));
     }
 
+    @Test
+    public void updateDatastoreAppendsDeltaTest() throws URISyntaxException, MojoExecutionException, IOException {
+        Path filePath = Paths.get(ClassLoader.getSystemResource(DEFAULT_TEST_DATAFILE_FILENAME).toURI());
+        InternalFileFossDatastore fossDatastore = new InternalFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        fossDatastore.createDatastore(filePath);
+        byte[] baseDatastore = Files.readAllBytes(datastoreLocation);
+
+        Path filePathValidUpdate = Paths.get(ClassLoader.getSystemResource("fossDatafileValidUpdate.csv").toURI());
+        fossDatastore.updateDatastore(filePathValidUpdate, false);
+        assertArrayEquals(baseDatastore, Files.readAllBytes(datastoreLocation));
+        List<String[]> deltaRows = new ArrayList<>();
+        FossDatastoreDeltaLog.read(datastoreLocation, deltaRows::add);
+        assertEquals(2, deltaRows.size());
+
+        fossDatastore = new InternalFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        assertTrue(checkAttributeSequenceMatches("3.", fossDatastore.getAdditionalAttributesForFossItem("foss3")));
+        assertTrue(checkAttributeSequenceMatches("4.", fossDatastore.getAdditionalAttributesForFossItem("foss4")));
+        assertTrue(checkAttributeSequenceMatches("5.", fossDatastore.getAdditionalAttributesForFossItem("foss5")));
+
+        fossDatastore.updateDatastore(filePathValidUpdate, true);
+        fossDatastore = new InternalFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        assertTrue(checkAttributeSequenceMatches("33.", fossDatastore.getAdditionalAttributesForFossItem("foss3")));
+    }
+
+    @Test
+    public void compactDatastoreTest() throws URISyntaxException, MojoExecutionException {
+        Path filePath = Paths.get(ClassLoader.getSystemResource(DEFAULT_TEST_DATAFILE_FILENAME).toURI());
+        InternalFileFossDatastore fossDatastore = new InternalFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        fossDatastore.createDatastore(filePath);
+        Path filePathValidUpdate = Paths.get(ClassLoader.getSystemResource("fossDatafileValidUpdate.csv").toURI());
+        fossDatastore.updateDatastore(filePathValidUpdate, true);
+        assertFalse(FossDatastoreDeltaLog.getSegments(datastoreLocation).isEmpty());
+
+        fossDatastore.compactDatastore();
+        assertTrue(FossDatastoreDeltaLog.getSegments(datastoreLocation).isEmpty());
+
+        fossDatastore = new InternalFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        assertTrue(checkAttributeSequenceMatches("1.", fossDatastore.getAdditionalAttributesForFossItem("foss1")));
+        assertTrue(checkAttributeSequenceMatches("33.", fossDatastore.getAdditionalAttributesForFossItem("foss3")));
+        assertTrue(checkAttributeSequenceMatches("5.", fossDatastore.getAdditionalAttributesForFossItem("foss5")));
+    }
+
     @Test
     public void updateDatastoreInvalidColumnsTest() throws URISyntaxException, MojoExecutionException {
         Path filePath = Paths.get(ClassLoader.getSystemResource(DEFAULT_TEST_DATAFILE_FILENAME).toURI());
@@ -245,6 +308,24 @@ public class InternalFileFossDatastoreTest {
         assertTrue(areAttributesEmpty(fossDatastore.getAdditionalAttributesForFossItem("foss3")));
     }
 
+    @Test
+    public void updateWithEmptyDataFile() throws URISyntaxException, MojoExecutionException {
+        Path filePath = Paths.get(ClassLoader.getSystemResource(DEFAULT_TEST_DATAFILE_FILENAME).toURI());
+        InternalFileFossDatastore fossDatastore = new InternalFileFossDatastore(new DefaultLog(new ConsoleLogger()));
+        fossDatastore.createDatastore(filePath);
+
+        Path filePathNoData = Paths.get(ClassLoader.getSystemResource("fossDatafileWithNoData.csv").toURI());
+        try {
+            fossDatastore.updateDatastore(filePathNoData, true);
+            fail("Exception was expected");
+        } catch (MojoExecutionException e) {
+            e.printStackTrace();
+        }
+
+        assertTrue(FossDatastoreDeltaLog.getSegments(datastoreLocation).isEmpty());
+        assertTrue(checkAttributeSequenceMatches("1.", fossDatastore.getAdditionalAttributesForFossItem("foss1")));
+    }
+
     private boolean doesFossFileExist() {
         return Files.exists(datastoreLocation);
     }
@@ -267,4 +348,11 @@ public class InternalFileFossDatastoreTest {
         return true;
     }
 
-}
\ No newline at end of file
+    private static void deleteDeltaLog() throws IOException {
+        try {
+            FossDatastoreDeltaLog.delete(datastoreLocation);
+        } catch (MojoExecutionException e) {
+            throw new IOException(e);
+        }
+    }
+}
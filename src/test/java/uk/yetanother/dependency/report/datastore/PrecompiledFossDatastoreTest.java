@@ -0,0 +1,79 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PrecompiledFossDatastoreTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void buildAndLookupTest() throws Exception {
+        Path snapshotFile = temporaryFolder.getRoot().toPath().resolve("datastore.fossidx");
+        assertEquals(3, PrecompiledFossDatastore.build(getResource("fossDatafile.csv"), snapshotFile));
+        assertTrue(Files.exists(snapshotFile));
+
+        PrecompiledFossDatastore fossDatastore = new PrecompiledFossDatastore(new DefaultLog(new ConsoleLogger()), snapshotFile);
+        assertFalse(fossDatastore.isDatastoreEmpty());
+        assertEquals(3, fossDatastore.getFossItemCount());
+        assertArrayEquals(new String[]{"col1", "col2", "col3"}, fossDatastore.getAdditionalAttributeHeadings());
+        assertArrayEquals(new String[]{"2.1", "2.2", "2.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss2"));
+        assertArrayEquals(new String[3], fossDatastore.getAdditionalAttributesForFossItem("missing"));
+
+        Map<String, String[]> attributes = fossDatastore.getAdditionalAttributesForFossItems(Arrays.asList("foss3", "missing"));
+        assertArrayEquals(new String[]{"3.1", "3.2", "3.3"}, attributes.get("foss3"));
+        assertArrayEquals(new String[3], attributes.get("missing"));
+    }
+
+    @Test
+    public void rulesTest() throws Exception {
+        Path snapshotFile = temporaryFolder.getRoot().toPath().resolve("rules.fossidx");
+        PrecompiledFossDatastore.build(getResource("fossDatafileWithRules.csv"), snapshotFile);
+
+        PrecompiledFossDatastore fossDatastore = new PrecompiledFossDatastore(new DefaultLog(new ConsoleLogger()), snapshotFile);
+        assertArrayEquals(new String[]{"exact", "4.2", "4.3"}, fossDatastore.getAdditionalAttributesForFossItem("org.example:lib:jar:2.5"));
+        assertArrayEquals(new String[]{"range", "3.2", "3.3"}, fossDatastore.getAdditionalAttributesForFossItem("org.example:lib:jar:2.1"));
+        assertArrayEquals(new String[]{"subgroups", "1.2", "1.3"}, fossDatastore.getAdditionalAttributesForFossItem("org.example.sub:other:jar:1.0"));
+    }
+
+    @Test
+    public void readOnlyTest() throws Exception {
+        Path snapshotFile = temporaryFolder.getRoot().toPath().resolve("datastore.fossidx");
+        PrecompiledFossDatastore.build(getResource("fossDatafile.csv"), snapshotFile);
+        PrecompiledFossDatastore fossDatastore = new PrecompiledFossDatastore(new DefaultLog(new ConsoleLogger()), snapshotFile);
+
+        assertThrows(MojoExecutionException.class, () -> fossDatastore.updateDatastore(getResource("fossDatafileValidUpdate.csv"), true));
+        assertThrows(MojoExecutionException.class, fossDatastore::clearDatastore);
+        assertEquals(3, fossDatastore.getFossItemCount());
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void invalidSnapshotTest() throws Exception {
+        new PrecompiledFossDatastore(new DefaultLog(new ConsoleLogger()), getResource("fossDatafile.csv"));
+    }
+
+    @Test
+    public void parseCoordinatesTest() throws MojoExecutionException {
+        assertEquals("fossidx", FossDatastoreArtifacts.parse("com.example:foss-data:1.2").getExtension());
+        assertEquals("1.2", FossDatastoreArtifacts.parse("com.example:foss-data:1.2").getVersion());
+        assertEquals("licences", FossDatastoreArtifacts.parse("com.example:foss-data:fossidx:licences:1.2").getClassifier());
+    }
+
+    private Path getResource(String name) throws URISyntaxException {
+        return Paths.get(ClassLoader.getSystemResource(name).toURI());
+    }
+}
@@ -0,0 +1,142 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class SnapshotFossDatastoreTest {
+
+    private static final Log LOG = new DefaultLog(new ConsoleLogger());
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void createDatastoreTest() throws URISyntaxException, MojoExecutionException, IOException {
+        Path directory = temporaryFolder.getRoot().toPath().resolve("shared");
+        SnapshotFossDatastore fossDatastore = new SnapshotFossDatastore(LOG, directory);
+        assertTrue(fossDatastore.isDatastoreEmpty());
+
+        fossDatastore.createDatastore(getResource("fossDatafile.csv"));
+        assertEquals(1, getSnapshots(directory).size());
+        String latest = new String(Files.readAllBytes(directory.resolve(SnapshotFossDatastore.POINTER_FILENAME)), StandardCharsets.UTF_8);
+        assertEquals(getSnapshots(directory).get(0), latest);
+        assertTrue(latest.matches("fossAdditionalAttributes-[0-9a-f]{64}\\.idx"));
+
+        SnapshotFossDatastore reopened = new SnapshotFossDatastore(LOG, directory);
+        assertEquals(3, reopened.getFossItemCount());
+        assertArrayEquals(new String[]{"col1", "col2", "col3"}, reopened.getAdditionalAttributeHeadings());
+        assertArrayEquals(new String[]{"2.1", "2.2", "2.3"}, reopened.getAdditionalAttributesForFossItem("foss2"));
+        assertArrayEquals(new String[3], reopened.getAdditionalAttributesForFossItem("foss4"));
+    }
+
+    @Test
+    public void sameDataSharesSnapshotTest() throws URISyntaxException, MojoExecutionException, IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        new SnapshotFossDatastore(LOG, directory).createDatastore(getResource("fossDatafile.csv"));
+        FossDatastoreVersion version = SnapshotFossDatastore.getDatastoreVersion(directory);
+
+        new SnapshotFossDatastore(LOG, directory).createDatastore(getResource("fossDatafile.csv"));
+        assertEquals(1, getSnapshots(directory).size());
+        assertEquals(version, SnapshotFossDatastore.getDatastoreVersion(directory));
+    }
+
+    @Test
+    public void updateDatastoreTest() throws URISyntaxException, MojoExecutionException, IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        SnapshotFossDatastore fossDatastore = new SnapshotFossDatastore(LOG, directory);
+        fossDatastore.createDatastore(getResource("fossDatafile.csv"));
+        FossDatastoreVersion version = SnapshotFossDatastore.getDatastoreVersion(directory);
+
+        fossDatastore.updateDatastore(getResource("fossDatafileValidUpdate.csv"), false);
+        assertNotEquals(version, SnapshotFossDatastore.getDatastoreVersion(directory));
+        assertEquals(5, fossDatastore.getFossItemCount());
+        assertArrayEquals(new String[]{"3.1", "3.2", "3.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss3"));
+        assertArrayEquals(new String[]{"4.1", "4.2", "4.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss4"));
+
+        fossDatastore.updateDatastore(getResource("fossDatafileValidUpdate.csv"), true);
+        assertEquals(5, fossDatastore.getFossItemCount());
+        assertArrayEquals(new String[]{"33.1", "33.2", "33.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss3"));
+        assertArrayEquals(new String[]{"1.1", "1.2", "1.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss1"));
+    }
+
+    @Test
+    public void readersKeepTheirSnapshotTest() throws URISyntaxException, MojoExecutionException, IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        new SnapshotFossDatastore(LOG, directory).createDatastore(getResource("fossDatafile.csv"));
+        SnapshotFossDatastore reader = new SnapshotFossDatastore(LOG, directory);
+
+        SnapshotFossDatastore writer = new SnapshotFossDatastore(LOG, directory);
+        writer.updateDatastore(getResource("fossDatafileValidUpdate.csv"), true);
+        assertEquals(2, getSnapshots(directory).size());
+        assertArrayEquals(new String[]{"3.1", "3.2", "3.3"}, reader.getAdditionalAttributesForFossItem("foss3"));
+
+        // The replaced snapshot is within its grace period, so compacting keeps it for readers about to map it.
+        writer.compactDatastore();
+        assertEquals(2, getSnapshots(directory).size());
+
+        new SnapshotFossDatastore(LOG, directory, 0L).compactDatastore();
+        assertEquals(1, getSnapshots(directory).size());
+        assertArrayEquals(new String[]{"33.1", "33.2", "33.3"}, new SnapshotFossDatastore(LOG, directory).getAdditionalAttributesForFossItem("foss3"));
+    }
+
+    @Test
+    public void concurrentWritersKeepEachOthersRowsTest() throws URISyntaxException, MojoExecutionException, IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        new SnapshotFossDatastore(LOG, directory).createDatastore(getResource("fossDatafile.csv"));
+        SnapshotFossDatastore first = new SnapshotFossDatastore(LOG, directory);
+        SnapshotFossDatastore second = new SnapshotFossDatastore(LOG, directory);
+
+        // Both writers opened the same snapshot, the second must build on the snapshot the first published.
+        first.updateDatastore(getResource("fossDatafileValidUpdate.csv"), false);
+        second.updateDatastore(getResource("fossDatafileWithRules.csv"), false);
+        SnapshotFossDatastore reopened = new SnapshotFossDatastore(LOG, directory);
+        assertArrayEquals(new String[]{"4.1", "4.2", "4.3"}, reopened.getAdditionalAttributesForFossItem("foss4"));
+        assertArrayEquals(new String[]{"exact", "4.2", "4.3"}, reopened.getAdditionalAttributesForFossItem("org.example:lib:jar:2.5"));
+    }
+
+    @Test
+    public void clearDatastoreTest() throws URISyntaxException, MojoExecutionException, IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        SnapshotFossDatastore fossDatastore = new SnapshotFossDatastore(LOG, directory);
+        fossDatastore.createDatastore(getResource("fossDatafile.csv"));
+
+        assertTrue(fossDatastore.clearDatastore());
+        assertTrue(fossDatastore.isDatastoreEmpty());
+        assertTrue(getSnapshots(directory).isEmpty());
+        assertTrue(new SnapshotFossDatastore(LOG, directory).isDatastoreEmpty());
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void createWithNoDataTest() throws URISyntaxException, MojoExecutionException {
+        new SnapshotFossDatastore(LOG, temporaryFolder.getRoot().toPath()).createDatastore(getResource("fossDatafileWithNoData.csv"));
+    }
+
+    private static List<String> getSnapshots(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SnapshotFossDatastore.SNAPSHOT_PREFIX) && name.endsWith(SnapshotFossDatastore.SNAPSHOT_SUFFIX))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static Path getResource(String name) throws URISyntaxException {
+        return Paths.get(ClassLoader.getSystemResource(name).toURI());
+    }
+}
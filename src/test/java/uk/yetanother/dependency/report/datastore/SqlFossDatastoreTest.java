@@ -0,0 +1,155 @@
+package uk.yetanother.dependency.report.datastore;
+
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SqlFossDatastoreTest {
+
+    private static final Log LOG = new DefaultLog(new ConsoleLogger());
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void createDatastoreTest() throws URISyntaxException, MojoExecutionException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        SqlFossDatastore fossDatastore = new SqlFossDatastore(LOG, directory);
+        assertTrue(fossDatastore.isDatastoreEmpty());
+        FossDatastoreVersion version = SqlFossDatastore.getDatastoreVersion(directory);
+
+        fossDatastore.createDatastore(getResource("fossDatafile.csv"));
+        assertNotEquals(version, SqlFossDatastore.getDatastoreVersion(directory));
+        assertTrue(Files.exists(directory.resolve(SqlFossDatastore.DATABASE_NAME + SqlFossDatastore.DATABASE_SUFFIX)));
+        assertEquals(3, fossDatastore.getFossItemCount());
+        assertArrayEquals(new String[]{"col1", "col2", "col3"}, fossDatastore.getAdditionalAttributeHeadings());
+        assertArrayEquals(new String[]{"1.1", "1.2", "1.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss1"));
+        assertArrayEquals(new String[3], fossDatastore.getAdditionalAttributesForFossItem("foss4"));
+    }
+
+    @Test
+    public void updateDatastoreTest() throws URISyntaxException, MojoExecutionException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        new SqlFossDatastore(LOG, directory).createDatastore(getResource("fossDatafile.csv"));
+
+        SqlFossDatastore fossDatastore = new SqlFossDatastore(LOG, directory);
+        fossDatastore.updateDatastore(getResource("fossDatafileValidUpdate.csv"), false);
+        assertEquals(5, fossDatastore.getFossItemCount());
+        assertArrayEquals(new String[]{"3.1", "3.2", "3.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss3"));
+        assertArrayEquals(new String[]{"4.1", "4.2", "4.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss4"));
+
+        fossDatastore.updateDatastore(getResource("fossDatafileValidUpdate.csv"), true);
+        assertArrayEquals(new String[]{"33.1", "33.2", "33.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss3"));
+
+        fossDatastore.compactDatastore();
+        assertArrayEquals(new String[]{"33.1", "33.2", "33.3"}, new SqlFossDatastore(LOG, directory).getAdditionalAttributesForFossItem("foss3"));
+    }
+
+    @Test
+    public void concurrentUpdatesSeeEachOthersRowsTest() throws URISyntaxException, MojoExecutionException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        // Both executions open the empty datastore before either of them updates it.
+        SqlFossDatastore first = new SqlFossDatastore(LOG, directory);
+        SqlFossDatastore second = new SqlFossDatastore(LOG, directory);
+
+        first.updateDatastore(getResource("fossDatafile.csv"), false);
+        second.updateDatastore(getResource("fossDatafileValidUpdate.csv"), false);
+
+        SqlFossDatastore fossDatastore = new SqlFossDatastore(LOG, directory);
+        assertEquals(5, fossDatastore.getFossItemCount());
+        assertArrayEquals(new String[]{"1.1", "1.2", "1.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss1"));
+        assertArrayEquals(new String[]{"3.1", "3.2", "3.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss3"));
+        assertArrayEquals(new String[]{"4.1", "4.2", "4.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss4"));
+    }
+
+    @Test
+    public void invalidUpdateLeavesDatastoreUnchangedTest() throws URISyntaxException, MojoExecutionException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        SqlFossDatastore fossDatastore = new SqlFossDatastore(LOG, directory);
+        fossDatastore.createDatastore(getResource("fossDatafile.csv"));
+        FossDatastoreVersion version = SqlFossDatastore.getDatastoreVersion(directory);
+
+        assertThrows(MojoExecutionException.class, () -> fossDatastore.updateDatastore(getResource("fossDatafileInvalidUpdate.csv"), true));
+        assertEquals(version, SqlFossDatastore.getDatastoreVersion(directory));
+        assertEquals(3, fossDatastore.getFossItemCount());
+    }
+
+    @Test
+    public void interruptedCreateIsRecoveredTest() throws URISyntaxException, MojoExecutionException, SQLException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        new SqlFossDatastore(LOG, directory).createDatastore(getResource("fossDatafile.csv"));
+
+        // A crash while loading leaves a partial staging table next to the datastore, which is ignored.
+        String url = "jdbc:h2:file:" + directory.toAbsolutePath().resolve(SqlFossDatastore.DATABASE_NAME) + ";AUTO_SERVER=TRUE";
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE FOSS_ITEM_STAGING (ID VARCHAR PRIMARY KEY, A1 VARCHAR)");
+            statement.execute("INSERT INTO FOSS_ITEM_STAGING VALUES ('partial', 'row')");
+        }
+        SqlFossDatastore fossDatastore = new SqlFossDatastore(LOG, directory);
+        assertEquals(3, fossDatastore.getFossItemCount());
+
+        // A crash after the old rows were dropped but before the staging table was renamed is finished on open.
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE FOSS_ITEM_STAGING");
+            statement.execute("ALTER TABLE FOSS_ITEM RENAME TO FOSS_ITEM_STAGING");
+        }
+        fossDatastore = new SqlFossDatastore(LOG, directory);
+        assertEquals(3, fossDatastore.getFossItemCount());
+        assertArrayEquals(new String[]{"1.1", "1.2", "1.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss1"));
+
+        fossDatastore.createDatastore(getResource("fossDatafileValidUpdate.csv"));
+        assertEquals(3, fossDatastore.getFossItemCount());
+        assertArrayEquals(new String[]{"33.1", "33.2", "33.3"}, fossDatastore.getAdditionalAttributesForFossItem("foss3"));
+    }
+
+    @Test
+    public void batchLookupAndRulesTest() throws URISyntaxException, MojoExecutionException {
+        SqlFossDatastore fossDatastore = new SqlFossDatastore(LOG, temporaryFolder.getRoot().toPath());
+        fossDatastore.createDatastore(getResource("fossDatafileWithRules.csv"));
+
+        List<String> fossIds = Arrays.asList("org.example:lib:jar:2.5", "org.example:lib:jar:2.1", "org.example.sub:other:jar:1.0", "missing");
+        Map<String, String[]> attributes = fossDatastore.getAdditionalAttributesForFossItems(fossIds);
+        assertEquals(4, attributes.size());
+        assertArrayEquals(new String[]{"exact", "4.2", "4.3"}, attributes.get("org.example:lib:jar:2.5"));
+        assertArrayEquals(new String[]{"range", "3.2", "3.3"}, attributes.get("org.example:lib:jar:2.1"));
+        assertArrayEquals(new String[]{"subgroups", "1.2", "1.3"}, attributes.get("org.example.sub:other:jar:1.0"));
+        assertArrayEquals(new String[3], attributes.get("missing"));
+    }
+
+    @Test
+    public void clearDatastoreTest() throws URISyntaxException, MojoExecutionException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        SqlFossDatastore fossDatastore = new SqlFossDatastore(LOG, directory);
+        assertFalse(fossDatastore.clearDatastore());
+        fossDatastore.createDatastore(getResource("fossDatafile.csv"));
+
+        assertTrue(fossDatastore.clearDatastore());
+        assertTrue(fossDatastore.isDatastoreEmpty());
+        assertFalse(Files.exists(directory.resolve(SqlFossDatastore.DATABASE_NAME + SqlFossDatastore.DATABASE_SUFFIX)));
+        assertTrue(new SqlFossDatastore(LOG, directory).isDatastoreEmpty());
+    }
+
+    private static Path getResource(String name) throws URISyntaxException {
+        return Paths.get(ClassLoader.getSystemResource(name).toURI());
+    }
+}
@@ -0,0 +1,74 @@
+package uk.yetanother.dependency.report.metrics;
+
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class ExecutionMetricsTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void phasesAndCountsAccumulateTest() {
+        ExecutionMetrics metrics = new ExecutionMetrics("csv");
+        metrics.addTime("graphBuild", 1_500_000L);
+        try (ExecutionMetrics.Phase phase = metrics.time("graphBuild")) {
+            metrics.addCount("nodesVisited", 3);
+        }
+        metrics.addCount("nodesVisited", 4);
+        metrics.setCount("uniqueArtifacts", 5);
+        metrics.setCount("uniqueArtifacts", 6);
+
+        assertTrue(metrics.getTime("graphBuild") >= 1_500_000L);
+        assertEquals(0, metrics.getTime("write"));
+        assertEquals(7, metrics.getCount("nodesVisited"));
+        assertEquals(6, metrics.getCount("uniqueArtifacts"));
+    }
+
+    @Test
+    public void toJsonTest() {
+        ExecutionMetrics metrics = new ExecutionMetrics("csv");
+        metrics.setAttribute("project", "test:\"quoted\"\\path");
+        metrics.addTime("write", 2_500_000L);
+        metrics.setCount("lookupHits", 2);
+        metrics.setCount("lookupMisses", 1);
+
+        String json = metrics.toJson();
+        assertTrue(json.contains("\"goal\": \"csv\""));
+        assertTrue(json.contains("\"project\": \"test:\\\"quoted\\\"\\\\path\""));
+        assertTrue(json.contains("\"phaseMillis\": {\n    \"write\": 2.500\n  }"));
+        assertTrue(json.contains("\"counts\": {\n    \"lookupHits\": 2,\n    \"lookupMisses\": 1\n  }"));
+        assertTrue(metrics.summary().startsWith("Metrics for csv: total "));
+        assertTrue(metrics.summary().endsWith("write 2.500 ms, lookupHits 2, lookupMisses 1"));
+    }
+
+    @Test
+    public void writeTest() throws IOException, MojoExecutionException {
+        File directory = new File(temporaryFolder.getRoot(), "target");
+        ExecutionMetrics metrics = new ExecutionMetrics("update-datastore");
+        metrics.setCount("datastoreRows", 10);
+        metrics.write(directory, new DefaultLog(new ConsoleLogger()), true);
+
+        File metricsFile = new File(directory, "dependency-report-update-datastore-metrics.json");
+        assertEquals(metricsFile.getName(), ExecutionMetrics.getFilename("update-datastore"));
+        String json = new String(Files.readAllBytes(metricsFile.toPath()), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"datastoreRows\": 10"));
+        assertTrue(json.contains("\"phaseMillis\": {}"));
+
+        // Without a directory only the summary is logged.
+        assertTrue(metricsFile.delete());
+        metrics.write(null, new DefaultLog(new ConsoleLogger()), true);
+        assertFalse(metricsFile.exists());
+    }
+}
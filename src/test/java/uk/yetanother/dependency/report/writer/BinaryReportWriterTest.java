@@ -0,0 +1,106 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BinaryReportWriterTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writeAndDecodeTest() throws MojoExecutionException, IOException {
+        File outputDirectory = temporaryFolder.getRoot();
+        try (BinaryReportWriter writer = new BinaryReportWriter(outputDirectory)) {
+            writer.writeHeader(new ReportHeader("test", "app", "1.0", true, new String[]{"licence"}));
+            writer.writeDependency(new DependencyRow("test:lib:jar:1.0", "test", "lib", "1.0", null, "jar", "compile"), Arrays.asList("module0", "module1"), new String[]{"MIT"});
+            writer.writeDependency(new DependencyRow("test:other:jar:1.0", "test", "other", "1.0", null, "jar", "compile"), Arrays.asList("module1"), new String[]{"MIT"});
+        }
+
+        byte[] report = Files.readAllBytes(new File(outputDirectory, BinaryReportWriter.REPORT_FILENAME).toPath());
+        Decoder decoder = new Decoder(report);
+        assertEquals(BinaryReportWriter.MAGIC, decoder.in.readInt());
+        assertEquals(BinaryReportWriter.VERSION, decoder.in.readByte());
+        assertTrue(decoder.in.readBoolean());
+        assertArrayEquals(new String[]{"licence"}, decoder.readStrings());
+
+        assertEquals(BinaryReportWriter.RECORD, decoder.in.readByte());
+        assertArrayEquals(new String[]{"test:lib:jar:1.0", "test", "lib", "1.0", null, "jar", "compile"}, decoder.readStrings(7));
+        assertArrayEquals(new String[]{"module0", "module1"}, decoder.readStrings());
+        assertArrayEquals(new String[]{"MIT"}, decoder.readStrings());
+
+        assertEquals(BinaryReportWriter.RECORD, decoder.in.readByte());
+        assertArrayEquals(new String[]{"test:other:jar:1.0", "test", "other", "1.0", null, "jar", "compile"}, decoder.readStrings(7));
+        assertArrayEquals(new String[]{"module1"}, decoder.readStrings());
+        assertArrayEquals(new String[]{"MIT"}, decoder.readStrings());
+        assertEquals(BinaryReportWriter.END, decoder.in.readByte());
+        assertEquals(-1, decoder.in.read());
+
+        assertEquals("Repeated strings are written once", 12, decoder.dictionary.size());
+    }
+
+    private static class Decoder {
+
+        private final DataInputStream in;
+        private final List<String> dictionary = new ArrayList<>();
+
+        Decoder(byte[] report) {
+            in = new DataInputStream(new ByteArrayInputStream(report));
+        }
+
+        String[] readStrings() throws IOException {
+            return readStrings(readVarint());
+        }
+
+        String[] readStrings(int count) throws IOException {
+            String[] values = new String[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = readString();
+            }
+            return values;
+        }
+
+        String readString() throws IOException {
+            int reference = readVarint();
+            if (reference == BinaryReportWriter.NULL_REFERENCE) {
+                return null;
+            }
+            if (reference >= BinaryReportWriter.FIRST_ENTRY_REFERENCE) {
+                return dictionary.get(reference - BinaryReportWriter.FIRST_ENTRY_REFERENCE);
+            }
+            byte[] bytes = new byte[readVarint()];
+            in.readFully(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            if (reference == BinaryReportWriter.NEW_ENTRY_REFERENCE) {
+                dictionary.add(value);
+            }
+            return value;
+        }
+
+        int readVarint() throws IOException {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
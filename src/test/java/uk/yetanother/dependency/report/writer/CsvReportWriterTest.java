@@ -0,0 +1,89 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.yetanother.dependency.report.compression.Compression;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class CsvReportWriterTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writeRowsTest() throws MojoExecutionException, IOException {
+        File outputDirectory = new File(temporaryFolder.getRoot(), "nested/target");
+        try (CsvReportWriter writer = new CsvReportWriter(outputDirectory, new DefaultLog(new ConsoleLogger()), true)) {
+            writer.writeRow("id,licence");
+            writer.writeRow("foss1,Apache 2.0");
+            writer.writeRow("foss2,Gnu ©");
+        }
+
+        byte[] report = Files.readAllBytes(new File(outputDirectory, CsvReportWriter.REPORT_FILENAME).toPath());
+        assertEquals("id,licence\nfoss1,Apache 2.0\nfoss2,Gnu ©", new String(report, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void writeCompressedReportTest() throws MojoExecutionException, IOException {
+        File outputDirectory = temporaryFolder.getRoot();
+        try (IReportWriter writer = ReportFormats.open(ReportFormats.resolve(Arrays.asList("csv", "jsonl")), outputDirectory,
+                new DefaultLog(new ConsoleLogger()), false, Compression.ZSTD)) {
+            writer.writeHeader(new ReportHeader("test", "app", "1.0", false, new String[]{"licence"}));
+            writer.writeDependency(new DependencyRow("test:lib:jar:1.0", "test", "lib", "1.0", null, "jar", "compile"), null, new String[]{"MIT"});
+        }
+
+        assertFalse(new File(outputDirectory, CsvReportWriter.REPORT_FILENAME).exists());
+        File report = new File(outputDirectory, CsvReportWriter.REPORT_FILENAME + ".zst");
+        assertEquals(Compression.ZSTD, Compression.detect(report.toPath()));
+        assertTrue(new File(outputDirectory, JsonLinesReportWriter.REPORT_FILENAME + ".zst").exists());
+        try (InputStream in = Compression.open(report.toPath())) {
+            assertEquals("id,groupId,artifactId,version,classifier,type,scope,licence\ntest:lib:jar:1.0,test,lib,1.0,,jar,compile,MIT",
+                    new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void existingReportIsReplacedTest() throws MojoExecutionException, IOException {
+        File outputDirectory = temporaryFolder.getRoot();
+        try (CsvReportWriter writer = new CsvReportWriter(outputDirectory, new DefaultLog(new ConsoleLogger()), false)) {
+            writer.writeRow("a much longer first report row");
+        }
+        try (CsvReportWriter writer = new CsvReportWriter(outputDirectory, new DefaultLog(new ConsoleLogger()), false)) {
+            writer.writeRow("short");
+        }
+
+        byte[] report = Files.readAllBytes(new File(outputDirectory, CsvReportWriter.REPORT_FILENAME).toPath());
+        assertEquals("short", new String(report, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void writeEscapedDependenciesTest() throws MojoExecutionException, IOException {
+        File outputDirectory = temporaryFolder.getRoot();
+        try (CsvReportWriter writer = new CsvReportWriter(outputDirectory, new DefaultLog(new ConsoleLogger()), false)) {
+            writer.writeHeader(new ReportHeader("test", "app", "1.0", true, new String[]{"licence", "notes"}));
+            writer.writeDependency(new DependencyRow("test:lib:jar:1.0", "test", "lib", "1.0", null, "jar", "compile"),
+                    Arrays.asList("module0", "module1"), new String[]{"Apache 2.0, MIT", "says \"hi\""});
+            writer.writeDependency(new DependencyRow("test:other:jar:2.0", "test", "other", "2.0", null, "jar", null),
+                    Collections.singletonList("module1"), new String[2]);
+        }
+
+        byte[] report = Files.readAllBytes(new File(outputDirectory, CsvReportWriter.REPORT_FILENAME).toPath());
+        assertEquals("id,groupId,artifactId,version,classifier,type,scope,modules,licence,notes\n"
+                + "test:lib:jar:1.0,test,lib,1.0,,jar,compile,module0;module1,\"Apache 2.0, MIT\",\"says \"\"hi\"\"\"\n"
+                + "test:other:jar:2.0,test,other,2.0,,jar,,module1,,", new String(report, StandardCharsets.UTF_8));
+    }
+}
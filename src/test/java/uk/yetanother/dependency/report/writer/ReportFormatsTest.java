@@ -0,0 +1,76 @@
+package uk.yetanother.dependency.report.writer;
+
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReportFormatsTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void resolveFormatsTest() throws MojoExecutionException {
+        assertEquals(Arrays.asList("csv", "jsonl", "cyclonedx", "binary"), new ArrayList<>(ReportFormats.getAvailableFormats().keySet()));
+
+        List<IReportFormat> formats = ReportFormats.resolve(Arrays.asList("JSONL", " csv", "jsonl"));
+        assertEquals(2, formats.size());
+        assertEquals(JsonLinesReportWriter.REPORT_FILENAME, formats.get(0).getFilename());
+        assertEquals(CsvReportWriter.REPORT_FILENAME, formats.get(1).getFilename());
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void resolveUnknownFormatTest() throws MojoExecutionException {
+        ReportFormats.resolve(Collections.singletonList("xml"));
+    }
+
+    @Test
+    public void writeAllFormatsInOnePassTest() throws MojoExecutionException, IOException {
+        File outputDirectory = temporaryFolder.getRoot();
+        List<IReportFormat> formats = ReportFormats.resolve(Arrays.asList("csv", "jsonl", "cyclonedx", "binary"));
+        try (IReportWriter writer = ReportFormats.open(formats, outputDirectory, new DefaultLog(new ConsoleLogger()), false)) {
+            writer.writeHeader(new ReportHeader("test", "app", "1.0", false, new String[]{"licence"}));
+            writer.writeDependency(new DependencyRow("test:lib:jar:1.0", "test", "lib", "1.0", null, "jar", "compile"), null, new String[]{"MIT"});
+            writer.writeDependency(new DependencyRow("test:junit:jar:tests:4.0", "test", "junit", "4.0", "tests", "test-jar", "test"), null, new String[1]);
+        }
+
+        for (IReportFormat format : formats) {
+            assertTrue(new File(outputDirectory, format.getFilename()).exists());
+        }
+        assertEquals("{\"id\":\"test:lib:jar:1.0\",\"groupId\":\"test\",\"artifactId\":\"lib\",\"version\":\"1.0\",\"classifier\":null,\"type\":\"jar\",\"scope\":\"compile\",\"attributes\":{\"licence\":\"MIT\"}}\n"
+                        + "{\"id\":\"test:junit:jar:tests:4.0\",\"groupId\":\"test\",\"artifactId\":\"junit\",\"version\":\"4.0\",\"classifier\":\"tests\",\"type\":\"test-jar\",\"scope\":\"test\",\"attributes\":{\"licence\":null}}\n",
+                read(outputDirectory, JsonLinesReportWriter.REPORT_FILENAME));
+
+        String bom = read(outputDirectory, CycloneDxReportWriter.REPORT_FILENAME);
+        assertTrue(bom.startsWith("{\"bomFormat\":\"CycloneDX\",\"specVersion\":\"1.4\""));
+        assertTrue(bom.contains("\"metadata\":{\"component\":{\"type\":\"application\",\"bom-ref\":\"pkg:maven/test/app@1.0\""));
+        assertTrue(bom.contains("{\"type\":\"library\",\"bom-ref\":\"pkg:maven/test/lib@1.0\",\"group\":\"test\",\"name\":\"lib\",\"version\":\"1.0\",\"purl\":\"pkg:maven/test/lib@1.0\",\"scope\":\"required\","
+                + "\"properties\":[{\"name\":\"maven:scope\",\"value\":\"compile\"},{\"name\":\"maven:type\",\"value\":\"jar\"},{\"name\":\"attribute:licence\",\"value\":\"MIT\"}]}"));
+        assertTrue(bom.contains("\"purl\":\"pkg:maven/test/junit@4.0?classifier=tests&type=test-jar\",\"scope\":\"excluded\""));
+        assertTrue(bom.endsWith("\n]}\n"));
+    }
+
+    @Test
+    public void purlTest() {
+        assertEquals("pkg:maven/org.example/lib@1.0", CycloneDxReportWriter.purl("org.example", "lib", "1.0", null, "jar"));
+        assertEquals("pkg:maven/org.example/lib@1.0%2Bbuild?type=pom", CycloneDxReportWriter.purl("org.example", "lib", "1.0+build", "", "pom"));
+    }
+
+    private String read(File outputDirectory, String filename) throws IOException {
+        return new String(Files.readAllBytes(new File(outputDirectory, filename).toPath()), StandardCharsets.UTF_8);
+    }
+}